@@ -0,0 +1,299 @@
+package com.torresj.apisensorserver.action;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.annotation.PreDestroy;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.torresj.apisensorserver.models.ActionDelivery;
+import com.torresj.apisensorserver.models.ActionDelivery.Status;
+import com.torresj.apisensorserver.models.SocketMessage;
+import com.torresj.apisensorserver.models.entities.Sensor;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sends actions to the stations socket port from a shared, bounded pool of workers. Every station
+ * has a lane: its actions are sent one at a time in the order they were dispatched, while different
+ * stations are served in parallel. A failed attempt is retried with exponential backoff before the
+ * lane moves on. Connect and write both time out, and the last deliveries of each station are kept
+ * so callers can follow them.
+ */
+@Component
+public class ActionDispatcher {
+
+    /* Logs */
+    private static final Logger logger = LogManager.getLogger(ActionDispatcher.class);
+
+    private ObjectMapper objectMapper;
+
+    private int port;
+
+    private int connectTimeoutMs;
+
+    private int writeTimeoutMs;
+
+    private int maxAttempts;
+
+    private long backoffMs;
+
+    private int history;
+
+    private ThreadPoolExecutor workers;
+
+    private ScheduledExecutorService retries;
+
+    private Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+
+    private Counter delivered;
+
+    private Counter failed;
+
+    private Counter retried;
+
+    public ActionDispatcher(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${socket.port}") int port,
+            @Value("${action.dispatch.threads}") int threads,
+            @Value("${action.dispatch.queue-capacity}") int queueCapacity,
+            @Value("${action.dispatch.connect-timeout-ms}") int connectTimeoutMs,
+            @Value("${action.dispatch.write-timeout-ms}") int writeTimeoutMs,
+            @Value("${action.dispatch.max-attempts}") int maxAttempts,
+            @Value("${action.dispatch.backoff-ms}") long backoffMs,
+            @Value("${action.dispatch.history}") int history) {
+        this.objectMapper = objectMapper;
+        this.port = port;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.writeTimeoutMs = writeTimeoutMs;
+        this.maxAttempts = maxAttempts;
+        this.backoffMs = backoffMs;
+        this.history = history;
+        AtomicInteger workerId = new AtomicInteger();
+        workers = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "action-dispatcher-" + workerId.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        workers.allowCoreThreadTimeOut(true);
+        retries = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "action-retries");
+            thread.setDaemon(true);
+            return thread;
+        });
+        delivered = meterRegistry.counter("actions.delivered");
+        failed = meterRegistry.counter("actions.failed");
+        retried = meterRegistry.counter("actions.retried");
+    }
+
+    /* Queues the action and returns at once, the delivery is updated as it progresses */
+    public ActionDelivery dispatch(Sensor sensor, String action) throws JsonProcessingException {
+        return dispatch(sensor, action, delivery -> {
+        });
+    }
+
+    /* Same as above, onDone runs on the dispatcher threads once the delivery is finished */
+    public ActionDelivery dispatch(Sensor sensor, String action, Consumer<ActionDelivery> onDone)
+            throws JsonProcessingException {
+        String message = objectMapper
+                .writeValueAsString(new SocketMessage(sensor.getPrivateIp(), action));
+        LocalDateTime now = LocalDateTime.now();
+        ActionDelivery delivery = new ActionDelivery(UUID.randomUUID().toString(), sensor.getId(),
+                action, Status.PENDING, 0, null, now, now);
+        logger.debug("[ACTION - DISPATCHER] Queueing {} action to sensor {}. Delivery {}", action,
+                sensor.getId(), delivery.getId());
+        lanes.computeIfAbsent(sensor.getId(), Lane::new)
+                .offer(new Task(delivery, sensor.getPublicIp(), message, onDone));
+        return delivery;
+    }
+
+    /* Last deliveries of the station, newest first */
+    public List<ActionDelivery> getDeliveries(long sensorId) {
+        Lane lane = lanes.get(sensorId);
+        return lane == null ? new ArrayList<>() : lane.history();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        retries.shutdownNow();
+        workers.shutdown();
+        workers.awaitTermination(connectTimeoutMs + writeTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void send(String host, String message) throws Exception {
+        try (AsynchronousSocketChannel channel = AsynchronousSocketChannel.open()) {
+            logger.debug("[ACTION - DISPATCHER] Opening socket to {}:{}", host, port);
+            channel.connect(new InetSocketAddress(host, port))
+                    .get(connectTimeoutMs, TimeUnit.MILLISECONDS);
+            ByteBuffer buffer = ByteBuffer
+                    .wrap((message + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer).get(writeTimeoutMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private static class Task {
+
+        private final ActionDelivery delivery;
+
+        private final String host;
+
+        private final String message;
+
+        private final Consumer<ActionDelivery> onDone;
+
+        private Task(ActionDelivery delivery, String host, String message,
+                Consumer<ActionDelivery> onDone) {
+            this.delivery = delivery;
+            this.host = host;
+            this.message = message;
+            this.onDone = onDone;
+        }
+    }
+
+    private class Lane {
+
+        private final long sensorId;
+
+        private final Deque<Task> queue = new ArrayDeque<>();
+
+        private final Deque<ActionDelivery> deliveries = new ArrayDeque<>();
+
+        /* A worker or a retry owns the head of the queue */
+        private boolean busy;
+
+        private Lane(long sensorId) {
+            this.sensorId = sensorId;
+        }
+
+        synchronized void offer(Task task) {
+            deliveries.addFirst(task.delivery);
+            if (deliveries.size() > history) {
+                deliveries.pollLast();
+            }
+            queue.addLast(task);
+            if (!busy) {
+                busy = true;
+                submit();
+            }
+        }
+
+        synchronized List<ActionDelivery> history() {
+            return new ArrayList<>(deliveries);
+        }
+
+        /* Called holding the lock, or from a retry while the lane is still busy */
+        private void submit() {
+            try {
+                workers.execute(this::sendHead);
+            } catch (RejectedExecutionException e) {
+                // Every worker and queue slot is taken, the head keeps its place and waits
+                retryLater(backoffMs);
+            }
+        }
+
+        private void sendHead() {
+            Task task;
+            synchronized (this) {
+                task = queue.peekFirst();
+            }
+            ActionDelivery delivery = task.delivery;
+            delivery.setAttempts(delivery.getAttempts() + 1);
+            try {
+                send(task.host, task.message);
+                logger.debug("[ACTION - DISPATCHER] {} action delivered to sensor {}",
+                        delivery.getAction(), sensorId);
+                delivered.increment();
+                complete(Status.DELIVERED, null);
+            } catch (Exception e) {
+                Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                String error = cause.getClass().getSimpleName()
+                        + (cause.getMessage() == null ? "" : ": " + cause.getMessage());
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                if (delivery.getAttempts() < maxAttempts && !workers.isShutdown()) {
+                    long delay = backoffMs << (delivery.getAttempts() - 1);
+                    logger.warn(
+                            "[ACTION - DISPATCHER] Attempt {} of {} action to sensor {} failed. Retrying in {} ms. {}",
+                            delivery.getAttempts(), delivery.getAction(), sensorId, delay, error);
+                    delivery.setError(error);
+                    delivery.setUpdateAt(LocalDateTime.now());
+                    retried.increment();
+                    retryLater(delay);
+                } else {
+                    logger.error("[ACTION - DISPATCHER] Error sending {} action to sensor {}. {}",
+                            delivery.getAction(), sensorId, error);
+                    failed.increment();
+                    complete(Status.FAILED, error);
+                }
+            }
+        }
+
+        private void retryLater(long delay) {
+            try {
+                retries.schedule(this::submit, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                failPending("Dispatcher stopped");
+            }
+        }
+
+        private synchronized void complete(Status status, String error) {
+            finish(queue.pollFirst(), status, error);
+            if (queue.isEmpty()) {
+                busy = false;
+            } else {
+                submit();
+            }
+        }
+
+        private synchronized void failPending(String error) {
+            Task task;
+            while ((task = queue.pollFirst()) != null) {
+                failed.increment();
+                finish(task, Status.FAILED, error);
+            }
+            busy = false;
+        }
+
+        private void finish(Task task, Status status, String error) {
+            task.delivery.setError(error);
+            task.delivery.setStatus(status);
+            task.delivery.setUpdateAt(LocalDateTime.now());
+            try {
+                task.onDone.accept(task.delivery);
+            } catch (Exception e) {
+                logger.error("[ACTION - DISPATCHER] Error notifying delivery {}", task.delivery.getId(),
+                        e);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.torresj.apisensorserver.cache;
+
+import java.util.function.LongPredicate;
+
+import com.torresj.apisensorserver.repositories.HouseRepository;
+import com.torresj.apisensorserver.repositories.SensorRepository;
+import com.torresj.apisensorserver.repositories.VariableRepository;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Read-through cache of the sensor, variable and house ids known to exist. Only positive answers
+ * are kept, so an id created behind the services is still found on the next lookup. Services
+ * evict an id whenever they register, update or delete the entity.
+ */
+@Component
+public class ExistenceCache {
+
+    /* Logs */
+    private static final Logger logger = LogManager.getLogger(ExistenceCache.class);
+
+    private IdSet sensors;
+
+    private IdSet variables;
+
+    private IdSet houses;
+
+    public ExistenceCache(SensorRepository sensorRepository, VariableRepository variableRepository,
+            HouseRepository houseRepository, MeterRegistry meterRegistry) {
+        sensors = new IdSet("sensors", sensorRepository::existsById, meterRegistry);
+        variables = new IdSet("variables", variableRepository::existsById, meterRegistry);
+        houses = new IdSet("houses", houseRepository::existsById, meterRegistry);
+    }
+
+    public boolean sensorExists(long id) {
+        return sensors.exists(id);
+    }
+
+    public boolean variableExists(long id) {
+        return variables.exists(id);
+    }
+
+    public boolean houseExists(long id) {
+        return houses.exists(id);
+    }
+
+    public void evictSensor(long id) {
+        logger.debug("[EXISTENCE - CACHE] Evicting sensor {}", id);
+        sensors.evict(id);
+    }
+
+    public void evictVariable(long id) {
+        logger.debug("[EXISTENCE - CACHE] Evicting variable {}", id);
+        variables.evict(id);
+    }
+
+    public void evictHouse(long id) {
+        logger.debug("[EXISTENCE - CACHE] Evicting house {}", id);
+        houses.evict(id);
+    }
+
+    private static class IdSet {
+
+        private LongHashSet ids = new LongHashSet();
+
+        private LongPredicate loader;
+
+        /* Bumped on every eviction so a lookup racing with a delete doesn't cache a stale id */
+        private long generation;
+
+        private Counter hits;
+
+        private Counter misses;
+
+        IdSet(String name, LongPredicate loader, MeterRegistry meterRegistry) {
+            this.loader = loader;
+            Tags tags = Tags.of("cache", "existence." + name);
+            hits = meterRegistry.counter("cache.gets", tags.and("result", "hit"));
+            misses = meterRegistry.counter("cache.gets", tags.and("result", "miss"));
+            meterRegistry.gauge("cache.size", tags, this, IdSet::size);
+        }
+
+        boolean exists(long id) {
+            long loadGeneration;
+            synchronized (this) {
+                if (ids.contains(id)) {
+                    hits.increment();
+                    return true;
+                }
+                loadGeneration = generation;
+            }
+            misses.increment();
+            boolean exists = loader.test(id);
+            if (exists) {
+                synchronized (this) {
+                    if (loadGeneration == generation) {
+                        ids.add(id);
+                    }
+                }
+            }
+            return exists;
+        }
+
+        synchronized void evict(long id) {
+            ids.remove(id);
+            generation++;
+        }
+
+        synchronized double size() {
+            return ids.size();
+        }
+    }
+}
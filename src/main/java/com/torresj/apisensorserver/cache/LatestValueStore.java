@@ -0,0 +1,95 @@
+package com.torresj.apisensorserver.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.torresj.apisensorserver.models.LatestValue;
+import com.torresj.apisensorserver.models.entities.Record;
+import com.torresj.apisensorserver.repositories.RecordRepository;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Latest value of every sensor variable, by sensor. Saved records update it, so reads never hit
+ * the database. It is warmed on startup with one grouped query, and a record older than the held
+ * one never replaces it, so warming and ingest can overlap.
+ */
+@Component
+public class LatestValueStore {
+
+    /* Logs */
+    private static final Logger logger = LogManager.getLogger(LatestValueStore.class);
+
+    private static final Comparator<LatestValue> BY_SERIES = Comparator
+            .comparingLong(LatestValue::getSensorId).thenComparingLong(LatestValue::getVariableId);
+
+    private RecordRepository recordRepository;
+
+    private Map<Long, Map<Long, LatestValue>> sensors = new ConcurrentHashMap<>();
+
+    public LatestValueStore(RecordRepository recordRepository, MeterRegistry meterRegistry) {
+        this.recordRepository = recordRepository;
+        meterRegistry.gauge("cache.size", Tags.of("cache", "latest"), this, LatestValueStore::size);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        long start = System.currentTimeMillis();
+        recordRepository.forEachLatest(this::update);
+        logger.info("[LATEST - STORE] Warmed {} series in {} ms", size(),
+                System.currentTimeMillis() - start);
+    }
+
+    public void update(Record record) {
+        sensors.computeIfAbsent(record.getSensorId(), k -> new ConcurrentHashMap<>())
+                .merge(record.getVariableId(), LatestValue.of(record),
+                        (current, candidate) -> candidate.getCreateAt()
+                                .isBefore(current.getCreateAt()) ? current : candidate);
+    }
+
+    /* Ordered by variable */
+    public List<LatestValue> getBySensor(long sensorId) {
+        List<LatestValue> values = new ArrayList<>(
+                sensors.getOrDefault(sensorId, new ConcurrentHashMap<>()).values());
+        values.sort(BY_SERIES);
+        return values;
+    }
+
+    /* Ordered by sensor and variable */
+    public List<LatestValue> getBySensors(Collection<Long> sensorIds) {
+        List<LatestValue> values = new ArrayList<>();
+        for (Long sensorId : sensorIds) {
+            Map<Long, LatestValue> variables = sensors.get(sensorId);
+            if (variables != null) {
+                values.addAll(variables.values());
+            }
+        }
+        values.sort(BY_SERIES);
+        return values;
+    }
+
+    public void evictSensor(long sensorId) {
+        logger.debug("[LATEST - STORE] Evicting sensor {}", sensorId);
+        sensors.remove(sensorId);
+    }
+
+    public void evictVariable(long variableId) {
+        logger.debug("[LATEST - STORE] Evicting variable {}", variableId);
+        sensors.values().forEach(variables -> variables.remove(variableId));
+    }
+
+    private double size() {
+        return sensors.values().stream().mapToInt(Map::size).sum();
+    }
+}
@@ -0,0 +1,131 @@
+package com.torresj.apisensorserver.cache;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing set of primitive longs with linear probing. Avoids boxing the ids on every
+ * lookup. Not thread safe, callers must synchronize.
+ */
+public class LongHashSet {
+
+    private static final long FREE = 0L;
+
+    private long[] keys;
+
+    private int mask;
+
+    private int size;
+
+    /* 0 is the free slot marker so it is tracked apart */
+    private boolean containsFree;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2) - 1) << 1;
+        keys = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    public boolean contains(long key) {
+        if (key == FREE) {
+            return containsFree;
+        }
+        for (int i = index(key); ; i = (i + 1) & mask) {
+            long current = keys[i];
+            if (current == FREE) {
+                return false;
+            }
+            if (current == key) {
+                return true;
+            }
+        }
+    }
+
+    public boolean add(long key) {
+        if (key == FREE) {
+            if (containsFree) {
+                return false;
+            }
+            containsFree = true;
+            size++;
+            return true;
+        }
+        int i = index(key);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        size++;
+        if (size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return true;
+    }
+
+    public boolean remove(long key) {
+        if (key == FREE) {
+            if (!containsFree) {
+                return false;
+            }
+            containsFree = false;
+            size--;
+            return true;
+        }
+        int i = index(key);
+        while (keys[i] != key) {
+            if (keys[i] == FREE) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = FREE;
+        size--;
+        // Shift back the rest of the cluster so probing never stops at the hole
+        int hole = i;
+        for (int j = (i + 1) & mask; keys[j] != FREE; j = (j + 1) & mask) {
+            int home = index(keys[j]);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                keys[j] = FREE;
+                hole = j;
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        containsFree = false;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        keys = new long[capacity];
+        mask = capacity - 1;
+        for (long key : old) {
+            if (key != FREE) {
+                int i = index(key);
+                while (keys[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+            }
+        }
+    }
+
+    private int index(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
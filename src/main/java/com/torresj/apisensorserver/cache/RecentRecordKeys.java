@@ -0,0 +1,149 @@
+package com.torresj.apisensorserver.cache;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.torresj.apisensorserver.models.entities.Record;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Sliding window of the (sensorId, variableId, date) keys stored lately, so QoS 1 redeliveries are
+ * dropped without asking the database. The window is a ring of sets, one per time bucket by
+ * arrival, and the oldest one is cleared as the ring turns. Keys are 64 bit hashes, a collision
+ * would drop a record but it is unlikely enough to ignore with the sizes of a window. Records
+ * without date are never matched, and duplicates older than the window are left to the unique
+ * index of the table.
+ */
+@Component
+public class RecentRecordKeys {
+
+    private long bucketMillis;
+
+    private LongHashSet[] buckets;
+
+    /* Time bucket of the newest set */
+    private long current;
+
+    private int currentIndex;
+
+    private int size;
+
+    private Counter windowDuplicates;
+
+    private Counter indexDuplicates;
+
+    public RecentRecordKeys(@Value("${ingest.dedup.window-ms}") long windowMillis,
+            @Value("${ingest.dedup.buckets}") int buckets, MeterRegistry meterRegistry) {
+        this.bucketMillis = Math.max(1, windowMillis / buckets);
+        this.buckets = new LongHashSet[buckets];
+        for (int i = 0; i < buckets; i++) {
+            this.buckets[i] = new LongHashSet();
+        }
+        this.current = System.currentTimeMillis() / bucketMillis;
+        windowDuplicates = meterRegistry
+                .counter("ingest.records.duplicates", Tags.of("source", "window"));
+        indexDuplicates = meterRegistry
+                .counter("ingest.records.duplicates", Tags.of("source", "index"));
+        meterRegistry.gauge("cache.size", Tags.of("cache", "record.keys"), this,
+                RecentRecordKeys::size);
+    }
+
+    /* Records neither in the window nor repeated earlier in the list, in order */
+    public List<Record> filter(List<Record> records) {
+        return filter(records, System.currentTimeMillis());
+    }
+
+    /* Adds the keys of records just stored */
+    public void addAll(List<Record> records) {
+        addAll(records, System.currentTimeMillis());
+    }
+
+    /* Adds the key of a record the unique index rejected, so its next redelivery is dropped early */
+    public void duplicate(Record record) {
+        indexDuplicates.increment();
+        addAll(Collections.singletonList(record), System.currentTimeMillis());
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    synchronized List<Record> filter(List<Record> records, long now) {
+        rotate(now);
+        List<Record> fresh = new ArrayList<>(records.size());
+        LongHashSet batch = new LongHashSet(records.size());
+        for (Record record : records) {
+            if (record.getDate() == null) {
+                fresh.add(record);
+                continue;
+            }
+            long key = key(record);
+            if (contains(key) || !batch.add(key)) {
+                windowDuplicates.increment();
+            } else {
+                fresh.add(record);
+            }
+        }
+        return fresh;
+    }
+
+    synchronized void addAll(List<Record> records, long now) {
+        rotate(now);
+        LongHashSet newest = buckets[currentIndex];
+        for (Record record : records) {
+            if (record.getDate() != null) {
+                long key = key(record);
+                if (!contains(key) && newest.add(key)) {
+                    size++;
+                }
+            }
+        }
+    }
+
+    static long key(Record record) {
+        LocalDateTime date = record.getDate();
+        long h = mix(record.getSensorId());
+        h = mix(h ^ record.getVariableId());
+        h = mix(h ^ date.toEpochSecond(ZoneOffset.UTC));
+        return mix(h ^ date.getNano());
+    }
+
+    private boolean contains(long key) {
+        for (LongHashSet bucket : buckets) {
+            if (bucket.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* Clears the buckets that fell out of the window since the last call */
+    private void rotate(long now) {
+        long bucket = now / bucketMillis;
+        long steps = Math.min(bucket - current, buckets.length);
+        for (long i = 0; i < steps; i++) {
+            currentIndex = (currentIndex + 1) % buckets.length;
+            size -= buckets[currentIndex].size();
+            buckets[currentIndex].clear();
+        }
+        if (bucket > current) {
+            current = bucket;
+        }
+    }
+
+    /* SplitMix64 finalizer */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
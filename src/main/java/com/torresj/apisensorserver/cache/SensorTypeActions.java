@@ -0,0 +1,96 @@
+package com.torresj.apisensorserver.cache;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.torresj.apisensorserver.models.entities.SensorType;
+import com.torresj.apisensorserver.repositories.SensorTypeRepository;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Actions of each sensor type, parsed once into an immutable set and kept by type id. Types are
+ * loaded on first use and the sensor type service refreshes them whenever one is saved or removed,
+ * so checking an action is a map and a set lookup. Unknown types are never cached.
+ */
+@Component
+public class SensorTypeActions {
+
+    /* Logs */
+    private static final Logger logger = LogManager.getLogger(SensorTypeActions.class);
+
+    private SensorTypeRepository sensorTypeRepository;
+
+    private Map<Long, Set<String>> actions = new ConcurrentHashMap<>();
+
+    /* Bumped on every refresh so a load racing with an update doesn't cache stale actions */
+    private long generation;
+
+    private Counter hits;
+
+    private Counter misses;
+
+    public SensorTypeActions(SensorTypeRepository sensorTypeRepository,
+            MeterRegistry meterRegistry) {
+        this.sensorTypeRepository = sensorTypeRepository;
+        Tags tags = Tags.of("cache", "sensortype.actions");
+        hits = meterRegistry.counter("cache.gets", tags.and("result", "hit"));
+        misses = meterRegistry.counter("cache.gets", tags.and("result", "miss"));
+        meterRegistry.gaugeMapSize("cache.size", tags, actions);
+    }
+
+    /* Empty when the type doesn't exist */
+    public Optional<Set<String>> getActions(long typeId) {
+        long loadGeneration;
+        synchronized (this) {
+            Set<String> cached = actions.get(typeId);
+            if (cached != null) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+        Optional<SensorType> type = sensorTypeRepository.findById(typeId);
+        if (!type.isPresent()) {
+            return Optional.empty();
+        }
+        Set<String> parsed = parse(type.get().getActions());
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                actions.put(typeId, parsed);
+            }
+        }
+        return Optional.of(parsed);
+    }
+
+    public synchronized void refresh(SensorType type) {
+        logger.debug("[SENSOR TYPE - ACTIONS] Refreshing sensor type {} actions", type.getId());
+        actions.put(type.getId(), parse(type.getActions()));
+        generation++;
+    }
+
+    public synchronized void evict(long typeId) {
+        logger.debug("[SENSOR TYPE - ACTIONS] Evicting sensor type {} actions", typeId);
+        actions.remove(typeId);
+        generation++;
+    }
+
+    private static Set<String> parse(String actions) {
+        if (actions == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(actions.split(","))));
+    }
+}
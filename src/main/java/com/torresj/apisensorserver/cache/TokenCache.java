@@ -0,0 +1,112 @@
+package com.torresj.apisensorserver.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Subjects of the JWTs already verified, keyed by the SHA-256 of the token so raw tokens aren't
+ * kept in memory. An entry lives until its token expires. Tokens without expiration are never
+ * cached, and once the cache is full new tokens are verified on every use until expired ones are
+ * swept.
+ */
+@Component
+public class TokenCache {
+
+    /* Logs */
+    private static final Logger logger = LogManager.getLogger(TokenCache.class);
+
+    private String secret;
+
+    private int maxSize;
+
+    private Map<String, VerifiedToken> tokens = new ConcurrentHashMap<>();
+
+    private Counter hits;
+
+    private Counter misses;
+
+    public TokenCache(@Value("${jwt.token.secret}") String secret,
+            @Value("${jwt.token.cache.max-size}") int maxSize, MeterRegistry meterRegistry) {
+        this.secret = secret;
+        this.maxSize = maxSize;
+        Tags tags = Tags.of("cache", "tokens");
+        hits = meterRegistry.counter("cache.hits", tags);
+        misses = meterRegistry.counter("cache.misses", tags);
+        meterRegistry.gaugeMapSize("cache.size", tags, tokens);
+    }
+
+    /* Verification errors are thrown as Jwts does, and are never cached */
+    public String getSubject(String token) {
+        String key = hash(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken verified = tokens.get(key);
+        if (verified != null) {
+            if (verified.expiresAt > now) {
+                hits.increment();
+                return verified.subject;
+            }
+            tokens.remove(key, verified);
+        }
+        misses.increment();
+
+        Claims claims = Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
+        Date expiration = claims.getExpiration();
+        if (claims.getSubject() != null && expiration != null) {
+            if (tokens.size() >= maxSize) {
+                evictExpired();
+            }
+            if (tokens.size() < maxSize) {
+                tokens.put(key, new VerifiedToken(claims.getSubject(), expiration.getTime()));
+            }
+        }
+        return claims.getSubject();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.token.cache.sweep-ms}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        int before = tokens.size();
+        tokens.values().removeIf(token -> token.expiresAt <= now);
+        logger.debug("[TOKEN - CACHE] Evicted {} expired tokens", before - tokens.size());
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder()
+                    .encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class VerifiedToken {
+
+        private final String subject;
+
+        private final long expiresAt;
+
+        private VerifiedToken(String subject, long expiresAt) {
+            this.subject = subject;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
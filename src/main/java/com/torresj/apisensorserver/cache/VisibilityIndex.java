@@ -0,0 +1,207 @@
+package com.torresj.apisensorserver.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
+import com.torresj.apisensorserver.models.entities.Sensor;
+import com.torresj.apisensorserver.models.entities.User;
+import com.torresj.apisensorserver.models.entities.UserHouseRelation;
+import com.torresj.apisensorserver.models.entities.VariableSensorRelation;
+import com.torresj.apisensorserver.repositories.SensorRepository;
+import com.torresj.apisensorserver.repositories.UserHouseRelationRepository;
+import com.torresj.apisensorserver.repositories.UserRepository;
+import com.torresj.apisensorserver.repositories.VariableSensorRelationRepository;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Houses, sensors and variables each user can see, kept in memory by username so visibility
+ * checks don't query the database at all. A user's view is loaded with four queries on first use.
+ * Grants are applied to loaded views in place; anything that can take visibility away drops the
+ * affected views so they are rebuilt on the next check.
+ *
+ * <p>Only changes made through this instance reach the index. Views expire ttl-ms after being
+ * loaded, which bounds how long a change made by another instance stays unseen.
+ */
+@Component
+public class VisibilityIndex {
+
+    /* Logs */
+    private static final Logger logger = LogManager.getLogger(VisibilityIndex.class);
+
+    private UserRepository userRepository;
+
+    private UserHouseRelationRepository userHouseRelationRepository;
+
+    private SensorRepository sensorRepository;
+
+    private VariableSensorRelationRepository variableSensorRelationRepository;
+
+    private long ttlMillis;
+
+    private Map<String, UserView> views = new ConcurrentHashMap<>();
+
+    /* Bumped on every change so a view loaded while the change was made is not kept */
+    private AtomicLong generation = new AtomicLong();
+
+    public VisibilityIndex(UserRepository userRepository,
+            UserHouseRelationRepository userHouseRelationRepository,
+            SensorRepository sensorRepository,
+            VariableSensorRelationRepository variableSensorRelationRepository,
+            @Value("${visibility.index.ttl-ms}") long ttlMillis) {
+        this.userRepository = userRepository;
+        this.userHouseRelationRepository = userHouseRelationRepository;
+        this.sensorRepository = sensorRepository;
+        this.variableSensorRelationRepository = variableSensorRelationRepository;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public boolean canSeeHouse(String username, long houseId) throws EntityNotFoundException {
+        return view(username).hasHouse(houseId);
+    }
+
+    public boolean canSeeSensor(String username, long sensorId) throws EntityNotFoundException {
+        return view(username).hasSensor(sensorId);
+    }
+
+    public boolean canSeeVariable(String username, long variableId) throws EntityNotFoundException {
+        return view(username).hasVariable(variableId);
+    }
+
+    /* Changes only ever raise it, caches built on these views compare it to know they are stale */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /* House granted to a user */
+    public void houseAdded(long userId, long houseId) {
+        generation.incrementAndGet();
+        List<UserView> userViews = views.values().stream().filter(view -> view.userId == userId)
+                .collect(Collectors.toList());
+        if (!userViews.isEmpty()) {
+            logger.debug("[VISIBILITY - INDEX] Adding house {} to user {}", houseId, userId);
+            List<Long> sensorIds = sensorRepository.findByHouseId(houseId).stream().map(Sensor::getId)
+                    .collect(Collectors.toList());
+            List<Long> variableIds = variablesOf(sensorIds);
+            userViews.forEach(view -> view
+                    .add(Collections.singletonList(houseId), sensorIds, variableIds));
+        }
+    }
+
+    /* Variable attached to a sensor */
+    public void variableAdded(long sensorId, long variableId) {
+        generation.incrementAndGet();
+        views.values().stream().filter(view -> view.hasSensor(sensorId))
+                .forEach(view -> view.add(Collections.emptyList(), Collections.emptyList(),
+                        Collections.singletonList(variableId)));
+    }
+
+    /* Houses taken from a user, user removed or roles changed */
+    public void userChanged(long userId) {
+        evictIf(view -> view.userId == userId);
+    }
+
+    /* Sensors moved in or out of the house, or the house removed */
+    public void houseChanged(long houseId) {
+        evictIf(view -> view.hasHouse(houseId));
+    }
+
+    /* Sensor moved to another house, removed or lost a variable */
+    public void sensorChanged(long sensorId, Long houseId) {
+        evictIf(view -> view.hasSensor(sensorId) || (houseId != null && view.hasHouse(houseId)));
+    }
+
+    public void variableChanged(long variableId) {
+        evictIf(view -> view.hasVariable(variableId));
+    }
+
+    /* Drops every view, after changes made straight to the tables */
+    public void clear() {
+        generation.incrementAndGet();
+        views.clear();
+    }
+
+    private void evictIf(Predicate<UserView> predicate) {
+        generation.incrementAndGet();
+        views.values().removeIf(predicate);
+    }
+
+    private UserView view(String username) throws EntityNotFoundException {
+        long now = System.currentTimeMillis();
+        UserView view = views.get(username);
+        if (view == null || view.expiresAt <= now) {
+            view = load(username, now);
+        }
+        return view;
+    }
+
+    private UserView load(String username, long now) throws EntityNotFoundException {
+        long loadGeneration = generation.get();
+        // Removing a user drops its view, so one recreated under the same name gets its new id
+        long userId = userRepository.findByUsername(username).map(User::getId)
+                .orElseThrow(EntityNotFoundException::new);
+        logger.debug("[VISIBILITY - INDEX] Loading visibility for user {}", userId);
+        List<Long> houseIds = userHouseRelationRepository.findByUserId(userId).stream()
+                .map(UserHouseRelation::getHouseId).collect(Collectors.toList());
+        List<Long> sensorIds = houseIds.isEmpty() ? Collections.emptyList()
+                : sensorRepository.findByHouseIdIn(houseIds).stream().map(Sensor::getId)
+                        .collect(Collectors.toList());
+        UserView view = new UserView(userId, now + ttlMillis);
+        view.add(houseIds, sensorIds, variablesOf(sensorIds));
+        if (generation.get() == loadGeneration) {
+            views.put(username, view);
+        }
+        return view;
+    }
+
+    private List<Long> variablesOf(List<Long> sensorIds) {
+        return sensorIds.isEmpty() ? Collections.emptyList()
+                : variableSensorRelationRepository.findBySensorIdIn(sensorIds).stream()
+                        .map(VariableSensorRelation::getVariableId).collect(Collectors.toList());
+    }
+
+    private static class UserView {
+
+        private final long userId;
+
+        private final long expiresAt;
+
+        private LongHashSet houses = new LongHashSet();
+
+        private LongHashSet sensors = new LongHashSet();
+
+        private LongHashSet variables = new LongHashSet();
+
+        UserView(long userId, long expiresAt) {
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
+
+        synchronized void add(List<Long> houseIds, List<Long> sensorIds, List<Long> variableIds) {
+            houseIds.forEach(houses::add);
+            sensorIds.forEach(sensors::add);
+            variableIds.forEach(variables::add);
+        }
+
+        synchronized boolean hasHouse(long id) {
+            return houses.contains(id);
+        }
+
+        synchronized boolean hasSensor(long id) {
+            return sensors.contains(id);
+        }
+
+        synchronized boolean hasVariable(long id) {
+            return variables.contains(id);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.torresj.apisensorserver.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads what {@link BitOutput} writes. Not thread safe.
+ */
+public class BitInput {
+
+    private InputStream in;
+
+    /* Bits read from the stream but not yet consumed, never more than 7 between calls */
+    private long pending;
+
+    private int pendingBits;
+
+    public BitInput(InputStream in) {
+        this.in = in;
+    }
+
+    public boolean readBit() throws IOException {
+        return readBits(1) == 1;
+    }
+
+    public long readBits(int bits) throws IOException {
+        if (bits > 32) {
+            long high = readBits(bits - 32);
+            return (high << 32) | readBits(32);
+        }
+        while (pendingBits < bits) {
+            pending = (pending << 8) | readByte();
+            pendingBits += 8;
+        }
+        pendingBits -= bits;
+        long value = (pending >>> pendingBits) & ((1L << bits) - 1);
+        pending &= (1L << pendingBits) - 1;
+        return value;
+    }
+
+    /* Skips the padding up to the next byte */
+    public void align() {
+        pending = 0;
+        pendingBits = 0;
+    }
+
+    public long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    public long readSignedVarLong() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Record stream ended in the middle of a block");
+        }
+        return b;
+    }
+}
@@ -0,0 +1,66 @@
+package com.torresj.apisensorserver.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes bit fields most significant bit first, and byte aligned varints, to a stream. Not
+ * thread safe.
+ */
+public class BitOutput {
+
+    private OutputStream out;
+
+    /* Bits written but not yet emitted, never more than 7 between calls */
+    private long pending;
+
+    private int pendingBits;
+
+    public BitOutput(OutputStream out) {
+        this.out = out;
+    }
+
+    public void writeBit(boolean bit) throws IOException {
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    /* Writes the low bits of value, 0 to 64 of them */
+    public void writeBits(long value, int bits) throws IOException {
+        if (bits > 32) {
+            writeBits(value >>> 32, bits - 32);
+            bits = 32;
+        }
+        pending = (pending << bits) | (value & ((1L << bits) - 1));
+        pendingBits += bits;
+        while (pendingBits >= 8) {
+            pendingBits -= 8;
+            out.write((int) (pending >>> pendingBits));
+        }
+        pending &= (1L << pendingBits) - 1;
+    }
+
+    /* Pads the current byte with zeros */
+    public void align() throws IOException {
+        if (pendingBits > 0) {
+            writeBits(0, 8 - pendingBits);
+        }
+    }
+
+    /* Unsigned LEB128, 7 bits per byte. Only valid on a byte boundary */
+    public void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /* Varint of the zigzag mapping, so small negative numbers stay short */
+    public void writeSignedVarLong(long value) throws IOException {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,131 @@
+package com.torresj.apisensorserver.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import com.torresj.apisensorserver.models.entities.Record;
+
+/**
+ * Reads the streams written by {@link RecordEncoder}, one block in memory at a time. Not thread
+ * safe.
+ */
+public class RecordDecoder {
+
+    private BitInput in;
+
+    private boolean finished;
+
+    private int size;
+
+    private int position;
+
+    private long[] ids = new long[0];
+
+    private long[] sensorIds = new long[0];
+
+    private long[] variableIds = new long[0];
+
+    private long[] createAts = new long[0];
+
+    private long[] dates = new long[0];
+
+    private long[] values = new long[0];
+
+    public RecordDecoder(InputStream in) throws IOException {
+        byte[] header = new byte[RecordEncoder.MAGIC.length + 1];
+        for (int i = 0; i < header.length; i++) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Not a record stream, header is missing");
+            }
+            header[i] = (byte) b;
+        }
+        if (!Arrays.equals(Arrays.copyOf(header, RecordEncoder.MAGIC.length), RecordEncoder.MAGIC)) {
+            throw new IOException("Not a record stream, wrong header");
+        }
+        if (header[RecordEncoder.MAGIC.length] != RecordEncoder.VERSION) {
+            throw new IOException("Unsupported record stream version " + header[RecordEncoder.MAGIC.length]);
+        }
+        this.in = new BitInput(in);
+    }
+
+    /* Next record, null once the end marker is read */
+    public Record read() throws IOException {
+        if (position == size && !readBlock()) {
+            return null;
+        }
+        int i = position++;
+        return new Record(ids[i], sensorIds[i], variableIds[i], Double.longBitsToDouble(values[i]),
+                RecordEncoder.fromNanos(dates[i]), RecordEncoder.fromNanos(createAts[i]));
+    }
+
+    private boolean readBlock() throws IOException {
+        if (finished) {
+            return false;
+        }
+        long count = in.readVarLong();
+        if (count == 0) {
+            finished = true;
+            return false;
+        }
+        if (count > RecordEncoder.MAX_BLOCK_SIZE) {
+            throw new IOException("Malformed block of " + count + " records");
+        }
+        size = (int) count;
+        position = 0;
+        if (ids.length < size) {
+            ids = new long[size];
+            sensorIds = new long[size];
+            variableIds = new long[size];
+            createAts = new long[size];
+            dates = new long[size];
+            values = new long[size];
+        }
+        readDeltas(ids);
+        readDeltas(sensorIds);
+        readDeltas(variableIds);
+        readDeltasOfDeltas(createAts);
+        readDeltasOfDeltas(dates);
+        readXors(values);
+        return true;
+    }
+
+    private void readDeltas(long[] column) throws IOException {
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            previous += in.readSignedVarLong();
+            column[i] = previous;
+        }
+    }
+
+    private void readDeltasOfDeltas(long[] column) throws IOException {
+        long previous = 0;
+        long delta = 0;
+        for (int i = 0; i < size; i++) {
+            long read = in.readSignedVarLong();
+            delta = i < 2 ? read : delta + read;
+            previous += delta;
+            column[i] = previous;
+        }
+    }
+
+    private void readXors(long[] column) throws IOException {
+        long previous = in.readBits(64);
+        column[0] = previous;
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < size; i++) {
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.readBits(5);
+                    int meaningful = (int) in.readBits(6);
+                    trailing = 64 - leading - (meaningful == 0 ? 64 : meaningful);
+                }
+                previous ^= in.readBits(64 - leading - trailing) << trailing;
+            }
+            column[i] = previous;
+        }
+        in.align();
+    }
+}
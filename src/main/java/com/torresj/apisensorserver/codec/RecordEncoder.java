@@ -0,0 +1,170 @@
+package com.torresj.apisensorserver.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import com.torresj.apisensorserver.models.entities.Record;
+
+/**
+ * Compact columnar encoding of records. Records are buffered in blocks and every block is written
+ * column by column, so neighbouring values of the same field compress against each other:
+ *
+ * <ul>
+ * <li>header: the bytes {@code RCB} and the format version</li>
+ * <li>block: varint record count, 0 marks the end of the stream</li>
+ * <li>id, sensorId, variableId: zigzag varint delta from the previous record</li>
+ * <li>createAt, date: UTC epoch nanoseconds, the first raw, the second as delta and the rest as
+ * delta of delta, all zigzag varints. Steady sampling rates encode in one byte</li>
+ * <li>value: XOR of the previous value's bits with reused leading/trailing zero windows, as in
+ * Facebook's Gorilla, padded to a byte</li>
+ * </ul>
+ *
+ * <p>Runs of one sensor and variable ordered by date, as the exports write them, compress best.
+ * Every field of the records must be set. Not thread safe.
+ */
+public class RecordEncoder {
+
+    static final byte[] MAGIC = { 'R', 'C', 'B' };
+
+    static final int VERSION = 1;
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    /* Caps what a decoder allocates for a block */
+    public static final int MAX_BLOCK_SIZE = 1 << 16;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private BitOutput out;
+
+    private int size;
+
+    private long[] ids;
+
+    private long[] sensorIds;
+
+    private long[] variableIds;
+
+    private long[] createAts;
+
+    private long[] dates;
+
+    private long[] values;
+
+    public RecordEncoder(OutputStream out) throws IOException {
+        this(out, DEFAULT_BLOCK_SIZE);
+    }
+
+    public RecordEncoder(OutputStream out, int blockSize) throws IOException {
+        if (blockSize <= 0 || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException(
+                    "Block size must be between 1 and " + MAX_BLOCK_SIZE + ", got " + blockSize);
+        }
+        this.out = new BitOutput(out);
+        ids = new long[blockSize];
+        sensorIds = new long[blockSize];
+        variableIds = new long[blockSize];
+        createAts = new long[blockSize];
+        dates = new long[blockSize];
+        values = new long[blockSize];
+        out.write(MAGIC);
+        out.write(VERSION);
+    }
+
+    public void write(Record record) throws IOException {
+        ids[size] = record.getId();
+        sensorIds[size] = record.getSensorId();
+        variableIds[size] = record.getVariableId();
+        createAts[size] = toNanos(record.getCreateAt());
+        dates[size] = toNanos(record.getDate());
+        values[size] = Double.doubleToRawLongBits(record.getValue());
+        if (++size == ids.length) {
+            writeBlock();
+        }
+    }
+
+    /* Writes the last block and the end marker. The underlying stream is flushed, not closed */
+    public void finish() throws IOException {
+        if (size > 0) {
+            writeBlock();
+        }
+        out.writeVarLong(0);
+        out.flush();
+    }
+
+    private void writeBlock() throws IOException {
+        out.writeVarLong(size);
+        writeDeltas(ids);
+        writeDeltas(sensorIds);
+        writeDeltas(variableIds);
+        writeDeltasOfDeltas(createAts);
+        writeDeltasOfDeltas(dates);
+        writeXors(values);
+        size = 0;
+    }
+
+    private void writeDeltas(long[] column) throws IOException {
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            out.writeSignedVarLong(column[i] - previous);
+            previous = column[i];
+        }
+    }
+
+    private void writeDeltasOfDeltas(long[] column) throws IOException {
+        long previous = 0;
+        long previousDelta = 0;
+        for (int i = 0; i < size; i++) {
+            long delta = column[i] - previous;
+            out.writeSignedVarLong(i < 2 ? delta : delta - previousDelta);
+            previous = column[i];
+            previousDelta = delta;
+        }
+    }
+
+    private void writeXors(long[] column) throws IOException {
+        long previous = column[0];
+        out.writeBits(previous, 64);
+        int leading = -1;
+        int trailing = 0;
+        for (int i = 1; i < size; i++) {
+            long xor = column[i] ^ previous;
+            previous = column[i];
+            if (xor == 0) {
+                out.writeBit(false);
+                continue;
+            }
+            out.writeBit(true);
+            // 5 bits hold the leading zeros, more than 31 are written as meaningful bits
+            int currentLeading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int currentTrailing = Long.numberOfTrailingZeros(xor);
+            if (leading >= 0 && currentLeading >= leading && currentTrailing >= trailing) {
+                out.writeBit(false);
+                out.writeBits(xor >>> trailing, 64 - leading - trailing);
+            } else {
+                leading = currentLeading;
+                trailing = currentTrailing;
+                int meaningful = 64 - leading - trailing;
+                out.writeBit(true);
+                out.writeBits(leading, 5);
+                // 64 meaningful bits don't fit in 6, they are written as 0
+                out.writeBits(meaningful, 6);
+                out.writeBits(xor >>> trailing, meaningful);
+            }
+        }
+        out.align();
+    }
+
+    static long toNanos(LocalDateTime dateTime) {
+        return Math.addExact(
+                Math.multiplyExact(dateTime.toEpochSecond(ZoneOffset.UTC), NANOS_PER_SECOND),
+                dateTime.getNano());
+    }
+
+    static LocalDateTime fromNanos(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(nanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+}
@@ -1,21 +1,32 @@
 package com.torresj.apisensorserver.controller;
 
 import java.security.Principal;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import com.torresj.apisensorserver.exceptions.EntityAlreadyExistsException;
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
+import com.torresj.apisensorserver.models.ActionReport;
+import com.torresj.apisensorserver.models.LatestValue;
+import com.torresj.apisensorserver.models.RecordExportFormat;
 import com.torresj.apisensorserver.models.entities.House;
 import com.torresj.apisensorserver.models.entities.Sensor;
 import com.torresj.apisensorserver.models.entities.User;
 import com.torresj.apisensorserver.models.entities.User.Role;
 import com.torresj.apisensorserver.services.HouseService;
+import com.torresj.apisensorserver.services.RecordExportService;
+import com.torresj.apisensorserver.services.SensorService;
 import com.torresj.apisensorserver.services.UserService;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -27,6 +38,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -44,10 +56,17 @@ public class HouseController {
 
     private UserService userService;
 
+    private RecordExportService exportService;
+
+    private SensorService sensorService;
+
     public HouseController(HouseService houseService,
-            UserService userService) {
+            UserService userService, RecordExportService exportService,
+            SensorService sensorService) {
         this.houseService = houseService;
         this.userService = userService;
+        this.exportService = exportService;
+        this.sensorService = sensorService;
     }
 
     @GetMapping
@@ -199,6 +218,118 @@ public class HouseController {
         }
     }
 
+    @GetMapping(value = "/{houseId}/latest")
+    @ApiOperation(value = "Retrieve the latest value of every variable of the house sensors", response = LatestValue.class, responseContainer = "List")
+    public ResponseEntity<List<LatestValue>> getLatestValuesByHouseID(@PathVariable("houseId") long id,
+            Principal principal) {
+        try {
+            logger.info("[HOUSE - LATEST] Getting house {} latest values by user \"{}\"", id,
+                    principal.getName());
+            if (!userService.isUserAllowed(principal.getName(), Role.ADMIN, Role.STATION)
+                    && !houseService
+                    .hasUserVisibilityHouse(principal.getName(), id)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                        "User does not have permission for this endpoint");
+            }
+
+            List<LatestValue> values = houseService.getLatestValues(id);
+
+            logger.info("[HOUSE - LATEST] Request for house {} latest values finished by user \"{}\"",
+                    id, principal.getName());
+            return new ResponseEntity<>(values, HttpStatus.OK);
+        } catch (ResponseStatusException e) {
+            logger.error("[HOUSE - LATEST] User does not have permission for this endpoint");
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    e.getReason(), e);
+        } catch (EntityNotFoundException e) {
+            logger.error("[HOUSE - LATEST] House not found", e);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "House not found", e);
+        } catch (Exception e) {
+            logger.error("[HOUSE - LATEST] Error getting house {} latest values", id, e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Internal error", e);
+        }
+    }
+
+    @PostMapping(value = "/{houseId}/actions/{action}")
+    @ApiOperation(value = "Send action to every sensor of the house", response = ActionReport.class, notes = "Sensors whose type doesn't support the action are rejected")
+    public ResponseEntity<ActionReport> sendActionToHouse(@PathVariable("houseId") long id,
+            @PathVariable("action") String action, Principal principal) {
+        try {
+            logger.info("[HOUSE - ACTIONS] Sending {} action to house {} sensors by user \"{}\"",
+                    action, id, principal.getName());
+            if (!userService.isUserAllowed(principal.getName(), Role.ADMIN)
+                    && !houseService
+                    .hasUserVisibilityHouse(principal.getName(), id)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                        "User does not have permission for this endpoint");
+            }
+
+            ActionReport report = sensorService.sendHouseAction(id, action);
+
+            logger.info(
+                    "[HOUSE - ACTIONS] Request sending {} action to house {} sensors finished by user \"{}\"",
+                    action, id, principal.getName());
+            return new ResponseEntity<>(report, HttpStatus.OK);
+        } catch (ResponseStatusException e) {
+            logger.error("[HOUSE - ACTIONS] User does not have permission for this endpoint");
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    e.getReason(), e);
+        } catch (EntityNotFoundException e) {
+            logger.error("[HOUSE - ACTIONS] House not found", e);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "House not found", e);
+        } catch (Exception e) {
+            logger.error("[HOUSE - ACTIONS] Error sending {} action to house {}", action, id, e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Internal error", e);
+        }
+    }
+
+    @GetMapping(value = "/{houseId}/records/export")
+    @ApiOperation(value = "Export records of every sensor in the house", notes = "Streams every record in the range as csv, ndjson or bin (the columnar binary encoding), ordered by sensor, variable and date")
+    public ResponseEntity<StreamingResponseBody> exportRecords(@PathVariable("houseId") long id,
+            @RequestParam(value = "from") @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+            @RequestParam(value = "to") @DateTimeFormat(iso = ISO.DATE) LocalDate to,
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            Principal principal) {
+        try {
+            logger.info("[HOUSE - EXPORT] Exporting {} records of house {} from {} to {} by user \"{}\"",
+                    format, id, from, to, principal.getName());
+            RecordExportFormat exportFormat = RecordExportFormat.fromCode(format);
+            if (!userService.isUserAllowed(principal.getName(), Role.ADMIN, Role.STATION)
+                    && !houseService
+                    .hasUserVisibilityHouse(principal.getName(), id)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                        "User does not have permission for this endpoint");
+            }
+
+            List<Long> sensorIds = houseService.getSensors(id).stream().map(Sensor::getId)
+                    .collect(Collectors.toList());
+            String name = principal.getName();
+            StreamingResponseBody body = out -> {
+                exportService.export(sensorIds, null, from, to, exportFormat, out);
+                logger.info("[HOUSE - EXPORT] Request exporting records of house {} finished by user \"{}\"",
+                        id, name);
+            };
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"records-house-"
+                            + id + "." + exportFormat.getCode() + "\"")
+                    .body(body);
+        } catch (ResponseStatusException e) {
+            logger.error("[HOUSE - EXPORT] User does not have permission for this endpoint");
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    e.getReason(), e);
+        } catch (IllegalArgumentException e) {
+            logger.error("[HOUSE - EXPORT] Bad request: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (EntityNotFoundException e) {
+            logger.error("[HOUSE - EXPORT] Error house not found", e);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "House not found", e);
+        } catch (Exception e) {
+            logger.error("[HOUSE - EXPORT] Error exporting records for house {}", id, e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Internal error", e);
+        }
+    }
+
     @PutMapping
     @ApiOperation(value = "Update house", response = House.class)
     public ResponseEntity<House> update(@RequestBody House house, Principal principal) {
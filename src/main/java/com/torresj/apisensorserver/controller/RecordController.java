@@ -2,10 +2,17 @@ package com.torresj.apisensorserver.controller;
 
 import java.security.Principal;
 import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
 
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
+import com.torresj.apisensorserver.models.AggregationBucket;
+import com.torresj.apisensorserver.models.RecordAggregate;
+import com.torresj.apisensorserver.models.RecordExportFormat;
+import com.torresj.apisensorserver.models.RecordSlice;
 import com.torresj.apisensorserver.models.entities.Record;
 import com.torresj.apisensorserver.models.entities.User.Role;
+import com.torresj.apisensorserver.services.RecordExportService;
 import com.torresj.apisensorserver.services.RecordService;
 import com.torresj.apisensorserver.services.SensorService;
 import com.torresj.apisensorserver.services.UserService;
@@ -15,7 +22,9 @@ import org.apache.logging.log4j.Logger;
 import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -23,6 +32,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -42,11 +52,15 @@ public class RecordController {
 
     private SensorService sensorService;
 
+    private RecordExportService exportService;
+
     public RecordController(RecordService recordService,
-            UserService userService, SensorService sensorService) {
+            UserService userService, SensorService sensorService,
+            RecordExportService exportService) {
         this.recordService = recordService;
         this.userService = userService;
         this.sensorService = sensorService;
+        this.exportService = exportService;
     }
 
     @GetMapping
@@ -86,6 +100,143 @@ public class RecordController {
         }
     }
 
+    @GetMapping(value = "/slice")
+    @ApiOperation(value = "Retrieve records by keyset", notes = "Newest first and no totals. Pass the next cursor of a slice to get the following one", response = RecordSlice.class)
+    public ResponseEntity<RecordSlice> getSlice(
+            @RequestParam(value = "sensorId") long sensorId,
+            @RequestParam(value = "variableId") long variableId,
+            @RequestParam(value = "elements") int elements,
+            @RequestParam(value = "from") @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+            @RequestParam(value = "to") @DateTimeFormat(iso = ISO.DATE) LocalDate to,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            Principal principal) {
+        try {
+            logger.info(
+                    "[RECORD - SLICE] Getting records for sensor {} and variable {} with elements {}, from {} to {} by user \"{}\"",
+                    sensorId, variableId, elements, from, to, principal.getName());
+            if (!userService.isUserAllowed(principal.getName(), Role.ADMIN)
+                    && !sensorService.hasUserVisibilitySensor(principal.getName(), sensorId)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                        "User does not have permission for this endpoint");
+            }
+
+            RecordSlice slice = recordService
+                    .getRecordSlice(sensorId, variableId, elements, from, to, cursor);
+
+            logger.info(
+                    "[RECORD - SLICE] Request getting records for sensor {} and variable {} with elements {}, from {} to {}, finished by user \"{}\"",
+                    sensorId, variableId, elements, from, to, principal.getName());
+            return new ResponseEntity<>(slice, HttpStatus.OK);
+        } catch (ResponseStatusException e) {
+            logger.error("[RECORD - SLICE] User does not have permission for this endpoint");
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    e.getReason(), e);
+        } catch (IllegalArgumentException e) {
+            logger.error("[RECORD - SLICE] Bad request: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (EntityNotFoundException e) {
+            logger.error("[RECORD - SLICE] Error sensor not found", e);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "sensor not found", e);
+        } catch (Exception e) {
+            logger.error("[RECORD - SLICE] Error getting records for sensor {} and variable {}",
+                    sensorId, variableId, e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Internal error", e);
+        }
+    }
+
+    @GetMapping(value = "/export")
+    @ApiOperation(value = "Export records", notes = "Streams every record in the range as csv, ndjson or bin (the columnar binary encoding). Without variableId all variables of the sensor are exported")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "sensorId") long sensorId,
+            @RequestParam(value = "variableId", required = false) Long variableId,
+            @RequestParam(value = "from") @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+            @RequestParam(value = "to") @DateTimeFormat(iso = ISO.DATE) LocalDate to,
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            Principal principal) {
+        try {
+            logger.info(
+                    "[RECORD - EXPORT] Exporting {} records for sensor {} and variable {} from {} to {} by user \"{}\"",
+                    format, sensorId, variableId, from, to, principal.getName());
+            RecordExportFormat exportFormat = RecordExportFormat.fromCode(format);
+            if (userService.isUserAllowed(principal.getName(), Role.ADMIN)) {
+                sensorService.getSensor(sensorId);
+            } else if (!sensorService.hasUserVisibilitySensor(principal.getName(), sensorId)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                        "User does not have permission for this endpoint");
+            }
+
+            String name = principal.getName();
+            StreamingResponseBody body = out -> {
+                exportService.export(Collections.singletonList(sensorId), variableId, from, to,
+                        exportFormat, out);
+                logger.info(
+                        "[RECORD - EXPORT] Request exporting records for sensor {} and variable {} from {} to {}, finished by user \"{}\"",
+                        sensorId, variableId, from, to, name);
+            };
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"records-sensor-"
+                            + sensorId + "." + exportFormat.getCode() + "\"")
+                    .body(body);
+        } catch (ResponseStatusException e) {
+            logger.error("[RECORD - EXPORT] User does not have permission for this endpoint");
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    e.getReason(), e);
+        } catch (IllegalArgumentException e) {
+            logger.error("[RECORD - EXPORT] Bad request: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (EntityNotFoundException e) {
+            logger.error("[RECORD - EXPORT] Error sensor not found", e);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "sensor not found", e);
+        } catch (Exception e) {
+            logger.error("[RECORD - EXPORT] Error exporting records for sensor {}", sensorId, e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Internal error", e);
+        }
+    }
+
+    @GetMapping(value = "/aggregate")
+    @ApiOperation(value = "Retrieve min, max, avg, count and last value per time bucket", notes = "Bucket must be one of 1m, 5m, 1h or 1d", response = RecordAggregate.class, responseContainer = "List")
+    public ResponseEntity<List<RecordAggregate>> getAggregates(
+            @RequestParam(value = "sensorId") long sensorId,
+            @RequestParam(value = "variableId") long variableId,
+            @RequestParam(value = "bucket") String bucket,
+            @RequestParam(value = "from") @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+            @RequestParam(value = "to") @DateTimeFormat(iso = ISO.DATE) LocalDate to,
+            Principal principal) {
+        try {
+            logger.info(
+                    "[RECORD - AGGREGATE] Getting {} aggregates for sensor {} and variable {} from {} to {} by user \"{}\"",
+                    bucket, sensorId, variableId, from, to, principal.getName());
+            if (!userService.isUserAllowed(principal.getName(), Role.ADMIN)
+                    && !sensorService.hasUserVisibilitySensor(principal.getName(), sensorId)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                        "User does not have permission for this endpoint");
+            }
+
+            List<RecordAggregate> aggregates = recordService
+                    .getAggregates(sensorId, variableId, AggregationBucket.fromCode(bucket), from, to);
+
+            logger.info(
+                    "[RECORD - AGGREGATE] Request getting {} aggregates for sensor {} and variable {} from {} to {}, finished by user \"{}\"",
+                    bucket, sensorId, variableId, from, to, principal.getName());
+            return new ResponseEntity<>(aggregates, HttpStatus.OK);
+        } catch (ResponseStatusException e) {
+            logger.error("[RECORD - AGGREGATE] User does not have permission for this endpoint");
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    e.getReason(), e);
+        } catch (IllegalArgumentException e) {
+            logger.error("[RECORD - AGGREGATE] Bad request: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (EntityNotFoundException e) {
+            logger.error("[RECORD - AGGREGATE] Error sensor not found", e);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "sensor not found", e);
+        } catch (Exception e) {
+            logger.error("[RECORD - AGGREGATE] Error getting aggregates for sensor {} and variable {}",
+                    sensorId, variableId, e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Internal error", e);
+        }
+    }
+
     @GetMapping(value = "/{id}")
     @ApiOperation(value = "Retrieve a record by id", response = Record.class)
     public ResponseEntity<Record> getSensor(@PathVariable("id") long id, Principal principal) {
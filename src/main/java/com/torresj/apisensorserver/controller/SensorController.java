@@ -6,6 +6,8 @@ import java.util.List;
 import com.torresj.apisensorserver.exceptions.ActionException;
 import com.torresj.apisensorserver.exceptions.EntityAlreadyExistsException;
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
+import com.torresj.apisensorserver.models.ActionDelivery;
+import com.torresj.apisensorserver.models.LatestValue;
 import com.torresj.apisensorserver.models.entities.Sensor;
 import com.torresj.apisensorserver.models.entities.User.Role;
 import com.torresj.apisensorserver.models.entities.Variable;
@@ -188,6 +190,38 @@ public class SensorController {
         }
     }
 
+    @GetMapping(value = "/{id}/latest")
+    @ApiOperation(value = "Retrieve the latest value of every sensor variable", response = LatestValue.class, responseContainer = "List")
+    public ResponseEntity<List<LatestValue>> getLatestValuesSensorByID(@PathVariable("id") long id,
+            Principal principal) {
+        try {
+            logger.info("[SENSOR LATEST - GET] Getting sensor {} latest values by user \"{}\"", id,
+                    principal.getName());
+            if (!userService.isUserAllowed(principal.getName(), Role.ADMIN)
+                    && !sensorService.hasUserVisibilitySensor(principal.getName(), id)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                        "User does not have permission for this endpoint");
+            }
+
+            List<LatestValue> values = sensorService.getLatestValues(id);
+
+            logger.info(
+                    "[SENSOR LATEST - GET] Request for getting sensor {} latest values finished by user \"{}\"",
+                    id, principal.getName());
+            return new ResponseEntity<>(values, HttpStatus.OK);
+        } catch (ResponseStatusException e) {
+            logger.error("[SENSOR LATEST - GET] User does not have permission for this endpoint");
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    e.getReason(), e);
+        } catch (EntityNotFoundException e) {
+            logger.error("[SENSOR LATEST - GET] Sensor not found", e);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Sensor not found", e);
+        } catch (Exception e) {
+            logger.error("[SENSOR LATEST - GET] Error getting sensor {} latest values", id, e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Internal error", e);
+        }
+    }
+
     @PutMapping(value = "/{id}/variables/{variableId}")
     @ApiOperation(value = "Add variable to sensor variables list", response = Variable.class, notes = "Variable must exist")
     public ResponseEntity<Variable> addVariablesSensorByID(@PathVariable("id") long id,
@@ -341,9 +375,41 @@ public class SensorController {
         }
     }
 
+    @GetMapping(value = "/{id}/actions")
+    @ApiOperation(value = "Retrieve the last action deliveries of the sensor", response = ActionDelivery.class, responseContainer = "List")
+    public ResponseEntity<List<ActionDelivery>> getActionDeliveriesSensorByID(
+            @PathVariable("id") long id, Principal principal) {
+        try {
+            logger.info("[SENSOR ACTIONS - GET] Getting sensor {} action deliveries by user \"{}\"",
+                    id, principal.getName());
+            if (!userService.isUserAllowed(principal.getName(), Role.ADMIN)
+                    && !sensorService.hasUserVisibilitySensor(principal.getName(), id)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                        "User does not have permission for this endpoint");
+            }
+
+            List<ActionDelivery> deliveries = sensorService.getActionDeliveries(id);
+
+            logger.info(
+                    "[SENSOR ACTIONS - GET] Request for getting sensor {} action deliveries finished by user \"{}\"",
+                    id, principal.getName());
+            return new ResponseEntity<>(deliveries, HttpStatus.OK);
+        } catch (ResponseStatusException e) {
+            logger.error("[SENSOR ACTIONS - GET] User does not have permission for this endpoint");
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    e.getReason(), e);
+        } catch (EntityNotFoundException e) {
+            logger.error("[SENSOR ACTIONS - GET] Sensor not found", e);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Sensor not found", e);
+        } catch (Exception e) {
+            logger.error("[SENSOR ACTIONS - GET] Error getting sensor {} action deliveries", id, e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Internal error", e);
+        }
+    }
+
     @PostMapping(value = "/{id}/reset")
-    @ApiOperation(value = "Reset sensor by id", response = Void.class)
-    public ResponseEntity<Void> sendResetToSensor(@PathVariable("id") long id,
+    @ApiOperation(value = "Reset sensor by id", response = ActionDelivery.class, notes = "Sent in background, follow it through the sensor actions")
+    public ResponseEntity<ActionDelivery> sendResetToSensor(@PathVariable("id") long id,
             Principal principal) {
         try {
             logger.info(
@@ -355,12 +421,12 @@ public class SensorController {
                         "User does not have permission for this endpoint");
             }
 
-            sensorService.reset(id);
+            ActionDelivery delivery = sensorService.reset(id);
 
             logger.info(
                     "[SENSOR ACTIONS - RESET] Request for sending reset to sensor {} finished by user \"{}\"",
                     id, principal.getName());
-            return new ResponseEntity<>(null, HttpStatus.OK);
+            return new ResponseEntity<>(delivery, HttpStatus.OK);
         } catch (ResponseStatusException e) {
             logger.error("[SENSOR ACTIONS - RESET] User does not have permission for this endpoint");
             throw new ResponseStatusException(HttpStatus.FORBIDDEN,
@@ -375,8 +441,8 @@ public class SensorController {
     }
 
     @PostMapping(value = "/{id}/actions/{action}")
-    @ApiOperation(value = "Send action to sensor by id", response = Void.class)
-    public ResponseEntity<Void> sendActionToSensor(@PathVariable("id") long id,
+    @ApiOperation(value = "Send action to sensor by id", response = ActionDelivery.class, notes = "Sent in background, follow it through the sensor actions")
+    public ResponseEntity<ActionDelivery> sendActionToSensor(@PathVariable("id") long id,
             @PathVariable("action") String action,
             Principal principal) {
         try {
@@ -389,12 +455,12 @@ public class SensorController {
                         "User does not have permission for this endpoint");
             }
 
-            sensorService.sendAction(id, action);
+            ActionDelivery delivery = sensorService.sendAction(id, action);
 
             logger.info(
                     "[SENSOR ACTIONS] Request sending {} action to sensor {} finished by user \"{}\"",
                     action, id, principal.getName());
-            return new ResponseEntity<>(null, HttpStatus.OK);
+            return new ResponseEntity<>(delivery, HttpStatus.OK);
         } catch (ResponseStatusException e) {
             logger.error("[SENSOR ACTIONS] User does not have permission for this endpoint");
             throw new ResponseStatusException(HttpStatus.FORBIDDEN,
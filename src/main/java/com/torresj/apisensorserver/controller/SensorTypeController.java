@@ -3,12 +3,15 @@ package com.torresj.apisensorserver.controller;
 import java.security.Principal;
 import java.util.List;
 
+import com.torresj.apisensorserver.exceptions.ActionException;
 import com.torresj.apisensorserver.exceptions.EntityAlreadyExistsException;
 import com.torresj.apisensorserver.exceptions.EntityHasRelationsException;
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
+import com.torresj.apisensorserver.models.ActionReport;
 import com.torresj.apisensorserver.models.entities.Sensor;
 import com.torresj.apisensorserver.models.entities.SensorType;
 import com.torresj.apisensorserver.models.entities.User.Role;
+import com.torresj.apisensorserver.services.SensorService;
 import com.torresj.apisensorserver.services.SensorTypeService;
 import com.torresj.apisensorserver.services.UserService;
 
@@ -43,10 +46,13 @@ public class SensorTypeController {
 
     private UserService userService;
 
+    private SensorService sensorService;
+
     public SensorTypeController(SensorTypeService service,
-            UserService userService) {
+            UserService userService, SensorService sensorService) {
         this.service = service;
         this.userService = userService;
+        this.sensorService = sensorService;
     }
 
     @GetMapping
@@ -112,6 +118,67 @@ public class SensorTypeController {
         }
     }
 
+    @GetMapping(value = "/{id}/actions/{action}")
+    @ApiOperation(value = "Check if the sensor type supports the action", response = Boolean.class)
+    public ResponseEntity<Boolean> validateAction(@PathVariable("id") long id,
+            @PathVariable("action") String action, Principal principal) {
+        try {
+            logger.info("[SENSOR TYPE - VALIDATE ACTION] Validating {} action of sensor type {} by user \"{}\"",
+                    action, id, principal.getName());
+
+            boolean allowed = service.isActionAllowed(id, action);
+
+            logger.info(
+                    "[SENSOR TYPE - VALIDATE ACTION] Request for validating {} action of sensor type {} finished by user \"{}\"",
+                    action, id, principal.getName());
+            return new ResponseEntity<>(allowed, HttpStatus.OK);
+        } catch (EntityNotFoundException e) {
+            logger.error("[SENSOR TYPE - VALIDATE ACTION] Sensor type not found", e);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Sensor type not found", e);
+        } catch (Exception e) {
+            logger.error("[SENSOR TYPE - VALIDATE ACTION] Error validating {} action of sensor type {}",
+                    action, id, e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Internal error", e);
+        }
+    }
+
+    @PostMapping(value = "/{id}/actions/{action}")
+    @ApiOperation(value = "Send action to every sensor of the sensor type", response = ActionReport.class)
+    public ResponseEntity<ActionReport> sendActionToSensorType(@PathVariable("id") long id,
+            @PathVariable("action") String action, Principal principal) {
+        try {
+            logger.info(
+                    "[SENSOR TYPE - ACTIONS] Sending {} action to sensor type {} sensors by user \"{}\"",
+                    action, id, principal.getName());
+            if (!userService.isUserAllowed(principal.getName(), Role.ADMIN)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                        "User does not have permission for this endpoint");
+            }
+
+            ActionReport report = sensorService.sendSensorTypeAction(id, action);
+
+            logger.info(
+                    "[SENSOR TYPE - ACTIONS] Request sending {} action to sensor type {} sensors finished by user \"{}\"",
+                    action, id, principal.getName());
+            return new ResponseEntity<>(report, HttpStatus.OK);
+        } catch (ResponseStatusException e) {
+            logger.error("[SENSOR TYPE - ACTIONS] User does not have permission for this endpoint");
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    e.getReason(), e);
+        } catch (EntityNotFoundException e) {
+            logger.error("[SENSOR TYPE - ACTIONS] Sensor type not found", e);
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Sensor type not found", e);
+        } catch (ActionException e) {
+            logger.error("[SENSOR TYPE - ACTIONS] Action {} not supported by sensor type {}", action,
+                    id, e);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Action not supported", e);
+        } catch (Exception e) {
+            logger.error("[SENSOR TYPE - ACTIONS] Error sending {} action to sensor type {}", action,
+                    id, e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Internal error", e);
+        }
+    }
+
     @PostMapping()
     @ApiOperation(value = "Save new sensor type", response = SensorType.class)
     public ResponseEntity<SensorType> register(@RequestBody() SensorType type, Principal principal) {
@@ -0,0 +1,39 @@
+package com.torresj.apisensorserver.database;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.ehcache.config.Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Cache manager of the Hibernate second-level cache, built from ehcache.xml. Every application
+ * context gets its own one, so contexts living in the same JVM never share cached entities.
+ */
+@org.springframework.context.annotation.Configuration
+public class HibernateCacheConfiguration {
+
+    private static final String CONFIG = "/ehcache.xml";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() throws URISyntaxException {
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching
+                .getCachingProvider(EhcacheCachingProvider.class.getName());
+        Configuration configuration = new XmlConfiguration(getClass().getResource(CONFIG));
+        return provider.getCacheManager(new URI("urn:hibernate:" + UUID.randomUUID()),
+                configuration);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
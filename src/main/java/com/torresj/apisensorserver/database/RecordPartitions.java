@@ -0,0 +1,180 @@
+package com.torresj.apisensorserver.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Keeps the record table split in monthly MySQL range partitions by date. The first run turns the
+ * plain table into a partitioned one, from the month of the oldest record, and every run adds the
+ * months ahead and drops the months older than the retention as whole partitions. A last MAXVALUE
+ * partition catches records past the months created, it is split when new months are added.
+ *
+ * <p>MySQL needs the partitioning column in every unique key. Partitioning by date keeps the unique
+ * key of (sensorId, variableId, date) as it is, so it still rejects the redeliveries the recent keys
+ * window misses, and only the primary key becomes (id, date). Range reads are bounded by createAt,
+ * which is received right after date but can't be used for pruning, so partitions mainly make the
+ * retention cheap. Disabled, and with no retention at all, on other databases.
+ */
+@Component
+public class RecordPartitions {
+
+    /* Logs */
+    private static final Logger logger = LogManager.getLogger(RecordPartitions.class);
+
+    static final String MAX_PARTITION = "pmax";
+
+    private static final String SELECT_PARTITIONS = "SELECT PARTITION_NAME FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'record' AND PARTITION_NAME IS NOT NULL ORDER BY PARTITION_ORDINAL_POSITION";
+
+    private static final String SELECT_OLDEST = "SELECT MIN(date) FROM record";
+
+    static final String PARTITION_KEY = "ALTER TABLE record DROP PRIMARY KEY, ADD PRIMARY KEY (id, date)";
+
+    private static final String PARTITION_BY = "ALTER TABLE record PARTITION BY RANGE COLUMNS(date) (%s)";
+
+    private static final String ADD_PARTITIONS = "ALTER TABLE record REORGANIZE PARTITION " + MAX_PARTITION + " INTO (%s)";
+
+    private static final String DROP_PARTITIONS = "ALTER TABLE record DROP PARTITION %s";
+
+    private static final DateTimeFormatter NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private JdbcTemplate jdbcTemplate;
+
+    private boolean enabled;
+
+    private int monthsAhead;
+
+    private int retentionMonths;
+
+    private AtomicInteger partitions;
+
+    public RecordPartitions(JdbcTemplate jdbcTemplate,
+            @Value("${records.partitions.enabled}") boolean enabled,
+            @Value("${records.partitions.months-ahead}") int monthsAhead,
+            @Value("${records.retention.months}") int retentionMonths, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.partitions = meterRegistry.gauge("records.partitions", Tags.empty(),
+                new AtomicInteger());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled && !isMySql()) {
+            logger.warn("[RECORD - PARTITIONS] Record partitions need MySQL, disabled");
+            enabled = false;
+        }
+        if (!enabled) {
+            if (retentionMonths > 0) {
+                logger.warn("[RECORD - PARTITIONS] Retention of {} months is not applied without"
+                        + " record partitions", retentionMonths);
+            }
+            return;
+        }
+        maintain();
+    }
+
+    /* Adds the months ahead and drops the expired ones */
+    @Scheduled(cron = "${records.partitions.cron}")
+    public synchronized void maintain() {
+        if (!enabled) {
+            return;
+        }
+        YearMonth now = YearMonth.now();
+        List<YearMonth> months = jdbcTemplate.queryForList(SELECT_PARTITIONS, String.class)
+                .stream().filter(name -> !MAX_PARTITION.equals(name)).map(RecordPartitions::monthOf)
+                .collect(Collectors.toList());
+
+        List<YearMonth> missing;
+        if (months.isEmpty()) {
+            Timestamp oldest = jdbcTemplate.queryForObject(SELECT_OLDEST, Timestamp.class);
+            YearMonth first = oldest != null ? YearMonth.from(oldest.toLocalDateTime()) : now;
+            missing = missing(months, first, now.plusMonths(monthsAhead));
+            logger.info("[RECORD - PARTITIONS] Partitioning records from {}", first);
+            jdbcTemplate.execute(PARTITION_KEY);
+            jdbcTemplate.execute(String.format(PARTITION_BY, definitions(missing)));
+        } else {
+            missing = missing(months, months.get(0), now.plusMonths(monthsAhead));
+            if (!missing.isEmpty()) {
+                jdbcTemplate.execute(String.format(ADD_PARTITIONS, definitions(missing)));
+            }
+        }
+        months.addAll(missing);
+        if (!missing.isEmpty()) {
+            logger.info("[RECORD - PARTITIONS] Added partitions {}", missing);
+        }
+
+        List<YearMonth> expired = expired(months, now, retentionMonths);
+        if (!expired.isEmpty()) {
+            jdbcTemplate.execute(String.format(DROP_PARTITIONS,
+                    expired.stream().map(NAME::format).collect(Collectors.joining(", "))));
+            months.removeAll(expired);
+            logger.info("[RECORD - PARTITIONS] Dropped expired partitions {}", expired);
+        }
+        partitions.set(months.size());
+    }
+
+    /* Months after the last existing one, or from first when there is none, up to last */
+    static List<YearMonth> missing(List<YearMonth> months, YearMonth first, YearMonth last) {
+        YearMonth month = months.isEmpty() ? first : months.get(months.size() - 1).plusMonths(1);
+        List<YearMonth> missing = new ArrayList<>();
+        for (; !month.isAfter(last); month = month.plusMonths(1)) {
+            missing.add(month);
+        }
+        return missing;
+    }
+
+    /* Months older than the retention, which keeps the current month and the previous ones */
+    static List<YearMonth> expired(List<YearMonth> months, YearMonth now, int retentionMonths) {
+        if (retentionMonths <= 0) {
+            return new ArrayList<>();
+        }
+        YearMonth oldest = now.minusMonths(retentionMonths);
+        return months.stream().filter(month -> month.isBefore(oldest))
+                .collect(Collectors.toList());
+    }
+
+    /* Monthly partitions followed by the MAXVALUE one */
+    static String definitions(List<YearMonth> months) {
+        List<String> definitions = new ArrayList<>();
+        for (YearMonth month : months) {
+            definitions.add(String.format("PARTITION %s VALUES LESS THAN ('%s 00:00:00')",
+                    NAME.format(month), month.plusMonths(1).atDay(1)));
+        }
+        definitions.add("PARTITION " + MAX_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+        return String.join(", ", definitions);
+    }
+
+    static YearMonth monthOf(String partition) {
+        return YearMonth.parse(partition, NAME);
+    }
+
+    private boolean isMySql() {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) this::isMySql);
+    }
+
+    private boolean isMySql(Connection connection) throws SQLException {
+        return "MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+    }
+}
@@ -0,0 +1,43 @@
+package com.torresj.apisensorserver.database;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Replaces the auto-configured data source with one routing read-only transactions to the replica,
+ * only when spring.datasource.replica.url is set. The primary keeps the spring.datasource
+ * settings.
+ */
+@Configuration
+@ConditionalOnExpression("!'${spring.datasource.replica.url:}'.isEmpty()")
+public class ReplicaDataSourceConfiguration {
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(DataSourceProperties properties,
+            @Value("${spring.datasource.replica.url}") String url,
+            @Value("${spring.datasource.replica.username}") String username,
+            @Value("${spring.datasource.replica.password}") String password,
+            @Value("${spring.datasource.replica.max-lag-seconds}") long maxLagSeconds,
+            MeterRegistry meterRegistry) {
+        DataSource primary = properties.initializeDataSourceBuilder().build();
+        DataSource replica = DataSourceBuilder.create().url(url).username(username)
+                .password(password).build();
+        return new ReplicaRoutingDataSource(primary, replica, maxLagSeconds, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
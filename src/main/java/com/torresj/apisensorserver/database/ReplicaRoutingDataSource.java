@@ -0,0 +1,144 @@
+package com.torresj.apisensorserver.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Sends the connections of read-only transactions to the replica and every other one to the
+ * primary. The replica is checked periodically and left out while it can't be reached or lags
+ * more than max-lag-seconds behind, so reads fall back to the primary until it catches up. Lag is
+ * the Seconds_Behind_Master of MySQL, other databases are only checked to answer.
+ *
+ * <p>The transaction is known to be read-only only once it has begun, so this has to sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which fetches the
+ * connection on the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    /* Logs */
+    private static final Logger logger = LogManager.getLogger(ReplicaRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+
+    static final String REPLICA = "replica";
+
+    private static final String REPLICA_STATUS = "SHOW SLAVE STATUS";
+
+    private static final int VALID_TIMEOUT_SECONDS = 2;
+
+    private DataSource primary;
+
+    private DataSource replica;
+
+    private long maxLagSeconds;
+
+    /* -1 while the replica can't be reached or isn't replicating */
+    private volatile long lag = -1;
+
+    private Counter primaryConnections;
+
+    private Counter replicaConnections;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, long maxLagSeconds,
+            MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLagSeconds = maxLagSeconds;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        targets.put(REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        primaryConnections = meterRegistry
+                .counter("datasource.connections", Tags.of("target", PRIMARY));
+        replicaConnections = meterRegistry
+                .counter("datasource.connections", Tags.of("target", REPLICA));
+        meterRegistry.gauge("datasource.replica.lag", Tags.empty(), this,
+                ReplicaRoutingDataSource::getLag);
+        meterRegistry.gauge("datasource.replica.available", Tags.empty(), this,
+                source -> source.isReplicaAvailable() ? 1 : 0);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        checkReplica();
+    }
+
+    /* Closes the pools of both targets, they aren't beans of their own */
+    public void close() throws Exception {
+        for (DataSource target : new DataSource[] { primary, replica }) {
+            if (target instanceof AutoCloseable) {
+                ((AutoCloseable) target).close();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && isReplicaAvailable()) {
+            replicaConnections.increment();
+            return REPLICA;
+        }
+        primaryConnections.increment();
+        return PRIMARY;
+    }
+
+    public boolean isReplicaAvailable() {
+        return lag >= 0 && lag <= maxLagSeconds;
+    }
+
+    public long getLag() {
+        return lag;
+    }
+
+    @Scheduled(fixedDelayString = "${spring.datasource.replica.check-ms}")
+    public void checkReplica() {
+        boolean wasAvailable = isReplicaAvailable();
+        try (Connection connection = replica.getConnection()) {
+            lag = lagOf(connection);
+        } catch (SQLException | RuntimeException e) {
+            // Pools may fail to start with unchecked exceptions, Hikari's PoolInitializationException
+            logger.debug("[DATASOURCE - REPLICA] Replica check failed", e);
+            lag = -1;
+        }
+        if (!wasAvailable && isReplicaAvailable()) {
+            logger.info("[DATASOURCE - REPLICA] Replica in use. Lag: {} seconds", lag);
+        } else if (wasAvailable && !isReplicaAvailable()) {
+            logger.warn("[DATASOURCE - REPLICA] Replica left out, reads go to the primary. Lag: {}",
+                    lag);
+        }
+    }
+
+    private long lagOf(Connection connection) throws SQLException {
+        if (!"MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+            return connection.isValid(VALID_TIMEOUT_SECONDS) ? 0 : -1;
+        }
+        try (Statement statement = connection.createStatement();
+                ResultSet status = statement.executeQuery(REPLICA_STATUS)) {
+            if (!status.next()) {
+                // Not a replica at all, nothing to lag behind
+                return 0;
+            }
+            long seconds = status.getLong("Seconds_Behind_Master");
+            return status.wasNull() ? -1 : seconds;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.torresj.apisensorserver.export;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.torresj.apisensorserver.codec.RecordEncoder;
+import com.torresj.apisensorserver.models.entities.Record;
+
+/**
+ * The columnar {@link RecordEncoder} format, for bulk consumers that can read it.
+ */
+public class BinaryRecordWriter implements RecordWriter {
+
+    private RecordEncoder encoder;
+
+    public BinaryRecordWriter(OutputStream out) throws IOException {
+        // The encoder writes varints a byte at a time
+        this.encoder = new RecordEncoder(new BufferedOutputStream(out));
+    }
+
+    @Override
+    public void write(Record record) throws IOException {
+        encoder.write(record);
+    }
+
+    @Override
+    public void finish() throws IOException {
+        encoder.finish();
+    }
+}
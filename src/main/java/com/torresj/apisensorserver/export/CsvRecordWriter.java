@@ -0,0 +1,46 @@
+package com.torresj.apisensorserver.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import com.torresj.apisensorserver.models.entities.Record;
+
+/**
+ * Comma separated rows under a header line, dates in ISO-8601 like the JSON responses.
+ */
+public class CsvRecordWriter implements RecordWriter {
+
+    private static final String HEADER = "id,sensorId,variableId,value,date,createAt\n";
+
+    private Writer writer;
+
+    public CsvRecordWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(HEADER);
+    }
+
+    @Override
+    public void write(Record record) throws IOException {
+        writer.write(String.valueOf(record.getId()));
+        writer.write(',');
+        writer.write(String.valueOf(record.getSensorId()));
+        writer.write(',');
+        writer.write(String.valueOf(record.getVariableId()));
+        writer.write(',');
+        writer.write(String.valueOf(record.getValue()));
+        writer.write(',');
+        writer.write(String.valueOf(record.getDate()));
+        writer.write(',');
+        writer.write(String.valueOf(record.getCreateAt()));
+        writer.write('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+}
@@ -0,0 +1,41 @@
+package com.torresj.apisensorserver.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.torresj.apisensorserver.models.entities.Record;
+
+/**
+ * One JSON document per line, serialized like the rest of the API does with the application
+ * {@link ObjectMapper}.
+ */
+public class NdjsonRecordWriter implements RecordWriter {
+
+    private JsonGenerator generator;
+
+    private ObjectWriter writer;
+
+    public NdjsonRecordWriter(ObjectMapper objectMapper, OutputStream out) throws IOException {
+        this.writer = objectMapper.writerFor(Record.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.generator = objectMapper.getFactory().createGenerator(out);
+        // Lines are ended by hand, and the generator must not close the response stream
+        generator.setRootValueSeparator(null);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public void write(Record record) throws IOException {
+        writer.writeValue(generator, record);
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        generator.flush();
+    }
+}
@@ -0,0 +1,17 @@
+package com.torresj.apisensorserver.export;
+
+import java.io.IOException;
+
+import com.torresj.apisensorserver.models.entities.Record;
+
+/**
+ * Writes records one at a time to an export stream. Nothing is kept between records, so an
+ * export uses the same memory whatever its size.
+ */
+public interface RecordWriter {
+
+    void write(Record record) throws IOException;
+
+    /* Writes whatever the format needs after the last record and flushes */
+    void finish() throws IOException;
+}
@@ -0,0 +1,37 @@
+package com.torresj.apisensorserver.models;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActionDelivery {
+
+    public enum Status {
+        PENDING,
+        DELIVERED,
+        FAILED,
+        REJECTED
+    }
+
+    private String id;
+
+    private long sensorId;
+
+    private String action;
+
+    /* Updated by the dispatcher while callers may be reading it */
+    private volatile Status status;
+
+    private volatile int attempts;
+
+    private volatile String error;
+
+    private LocalDateTime createAt;
+
+    private volatile LocalDateTime updateAt;
+}
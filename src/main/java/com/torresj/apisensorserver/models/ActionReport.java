@@ -0,0 +1,45 @@
+package com.torresj.apisensorserver.models;
+
+import java.util.List;
+
+import com.torresj.apisensorserver.models.ActionDelivery.Status;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActionReport {
+
+    private String action;
+
+    private int delivered;
+
+    private int failed;
+
+    private int rejected;
+
+    /* Still being sent or retried when the report was built */
+    private int pending;
+
+    private List<ActionDelivery> deliveries;
+
+    public static ActionReport of(String action, List<ActionDelivery> deliveries) {
+        ActionReport report = new ActionReport(action, 0, 0, 0, 0, deliveries);
+        for (ActionDelivery delivery : deliveries) {
+            Status status = delivery.getStatus();
+            if (status == Status.DELIVERED) {
+                report.delivered++;
+            } else if (status == Status.FAILED) {
+                report.failed++;
+            } else if (status == Status.REJECTED) {
+                report.rejected++;
+            } else {
+                report.pending++;
+            }
+        }
+        return report;
+    }
+}
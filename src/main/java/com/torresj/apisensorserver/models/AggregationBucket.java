@@ -0,0 +1,44 @@
+package com.torresj.apisensorserver.models;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+public enum AggregationBucket {
+    MINUTE("1m", Duration.ofMinutes(1)),
+    FIVE_MINUTES("5m", Duration.ofMinutes(5)),
+    HOUR("1h", Duration.ofHours(1)),
+    DAY("1d", Duration.ofDays(1));
+
+    private String code;
+
+    private long seconds;
+
+    AggregationBucket(String code, Duration size) {
+        this.code = code;
+        this.seconds = size.getSeconds();
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public long getSeconds() {
+        return seconds;
+    }
+
+    /* Start of the bucket the time falls in */
+    public LocalDateTime floor(LocalDateTime time) {
+        long epoch = time.toEpochSecond(ZoneOffset.UTC);
+        return LocalDateTime.ofEpochSecond(epoch - Math.floorMod(epoch, seconds), 0, ZoneOffset.UTC);
+    }
+
+    public static AggregationBucket fromCode(String code) {
+        for (AggregationBucket bucket : values()) {
+            if (bucket.code.equals(code)) {
+                return bucket;
+            }
+        }
+        throw new IllegalArgumentException("Bucket not supported: " + code);
+    }
+}
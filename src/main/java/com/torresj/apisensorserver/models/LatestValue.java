@@ -0,0 +1,30 @@
+package com.torresj.apisensorserver.models;
+
+import java.time.LocalDateTime;
+
+import com.torresj.apisensorserver.models.entities.Record;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LatestValue {
+
+    private long sensorId;
+
+    private long variableId;
+
+    private double value;
+
+    private LocalDateTime date;
+
+    private LocalDateTime createAt;
+
+    public static LatestValue of(Record record) {
+        return new LatestValue(record.getSensorId(), record.getVariableId(), record.getValue(),
+                record.getDate(), record.getCreateAt());
+    }
+}
@@ -3,6 +3,7 @@ package com.torresj.apisensorserver.models;
 import java.io.Serializable;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.torresj.apisensorserver.models.entities.Record;
 
 import lombok.Data;
 
@@ -18,4 +19,7 @@ public class MqttMessage implements Serializable {
 
     private String msg;
 
+    /* Only set for record messages */
+    private Record record;
+
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.torresj.apisensorserver.models;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Summary of the records of one sensor and variable inside a time bucket. Values are folded in
+ * with {@link #add(double, LocalDateTime)} and partial summaries of the same bucket combined with
+ * {@link #merge(RecordAggregate)}.
+ */
+@Data
+@NoArgsConstructor
+public class RecordAggregate implements Serializable {
+
+    private static final long serialVersionUID = 2862458102318935736L;
+
+    private LocalDateTime bucket;
+
+    private long count;
+
+    private double min;
+
+    private double max;
+
+    private double avg;
+
+    private double last;
+
+    @JsonIgnore
+    private double sum;
+
+    @JsonIgnore
+    private LocalDateTime lastAt;
+
+    public RecordAggregate(LocalDateTime bucket) {
+        this.bucket = bucket;
+        this.min = Double.POSITIVE_INFINITY;
+        this.max = Double.NEGATIVE_INFINITY;
+    }
+
+    public void add(double value, LocalDateTime at) {
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        avg = sum / count;
+        if (lastAt == null || !at.isBefore(lastAt)) {
+            last = value;
+            lastAt = at;
+        }
+    }
+
+    public void merge(RecordAggregate other) {
+        if (other.count == 0) {
+            return;
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        avg = sum / count;
+        if (lastAt == null || !other.lastAt.isBefore(lastAt)) {
+            last = other.last;
+            lastAt = other.lastAt;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.torresj.apisensorserver.models;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.torresj.apisensorserver.models.entities.Record;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Position of a record in (createAt, id) descending order. Clients get it as an opaque token and
+ * send it back to continue right after that record.
+ */
+@Data
+@AllArgsConstructor
+public class RecordCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private LocalDateTime createAt;
+
+    private long id;
+
+    /* Summaries of compacted records have no id, their cursor continues from 0 */
+    public static RecordCursor of(Record record) {
+        return new RecordCursor(record.getCreateAt(), record.getId() != null ? record.getId() : 0);
+    }
+
+    public String encode() {
+        String raw = createAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RecordCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new RecordCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor not valid: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.torresj.apisensorserver.models;
+
+public enum RecordExportFormat {
+    CSV("csv", "text/csv"),
+    NDJSON("ndjson", "application/x-ndjson"),
+    BINARY("bin", "application/octet-stream");
+
+    private String code;
+
+    private String contentType;
+
+    RecordExportFormat(String code, String contentType) {
+        this.code = code;
+        this.contentType = contentType;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static RecordExportFormat fromCode(String code) {
+        for (RecordExportFormat format : values()) {
+            if (format.code.equalsIgnoreCase(code)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown export format: " + code);
+    }
+}
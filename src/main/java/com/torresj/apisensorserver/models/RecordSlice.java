@@ -0,0 +1,22 @@
+package com.torresj.apisensorserver.models;
+
+import java.util.List;
+
+import com.torresj.apisensorserver.models.entities.Record;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RecordSlice {
+
+    private List<Record> content;
+
+    private boolean hasNext;
+
+    /* Cursor of the next slice, null on the last one */
+    private String next;
+}
@@ -8,6 +8,9 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
@@ -18,6 +21,10 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@Table(indexes = @Index(name = "idx_record_sensor_variable_create_at",
+        columnList = "sensorId, variableId, createAt"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_record_sensor_variable_date",
+                columnNames = {"sensorId", "variableId", "date"}))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -0,0 +1,117 @@
+package com.torresj.apisensorserver.models.entities;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import com.torresj.apisensorserver.models.AggregationBucket;
+import com.torresj.apisensorserver.models.RecordAggregate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pre-aggregated records of a sensor and variable for one bucket at minute, hour or day
+ * resolution.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = { "sensorId", "variableId",
+        "resolution", "bucket" }))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RecordRollup implements Serializable {
+
+    private static final long serialVersionUID = -5326742410813478650L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(updatable = false)
+    private Long id;
+
+    @Column(nullable = false)
+    private long sensorId;
+
+    @Column(nullable = false)
+    private long variableId;
+
+    @Column(nullable = false, length = 16)
+    @Enumerated(EnumType.STRING)
+    private AggregationBucket resolution;
+
+    @Column(nullable = false)
+    private LocalDateTime bucket;
+
+    @Column(nullable = false)
+    private long valueCount;
+
+    @Column(nullable = false)
+    private double valueSum;
+
+    @Column(nullable = false)
+    private double valueMin;
+
+    @Column(nullable = false)
+    private double valueMax;
+
+    @Column(nullable = false)
+    private double lastValue;
+
+    @Column(nullable = false)
+    private LocalDateTime lastAt;
+
+    public RecordRollup(long sensorId, long variableId, AggregationBucket resolution,
+            RecordAggregate aggregate) {
+        this.sensorId = sensorId;
+        this.variableId = variableId;
+        this.resolution = resolution;
+        this.bucket = aggregate.getBucket();
+        replace(aggregate);
+    }
+
+    /* Drops the stored values, used when the bucket is rebuilt from the raw records */
+    public void replace(RecordAggregate aggregate) {
+        valueCount = 0;
+        valueSum = 0;
+        valueMin = Double.POSITIVE_INFINITY;
+        valueMax = Double.NEGATIVE_INFINITY;
+        lastValue = 0;
+        lastAt = null;
+        merge(aggregate);
+    }
+
+    public void merge(RecordAggregate aggregate) {
+        RecordAggregate merged = toAggregate();
+        merged.merge(aggregate);
+        valueCount = merged.getCount();
+        valueSum = merged.getSum();
+        valueMin = merged.getMin();
+        valueMax = merged.getMax();
+        lastValue = merged.getLast();
+        lastAt = merged.getLastAt();
+    }
+
+    public RecordAggregate toAggregate() {
+        RecordAggregate aggregate = new RecordAggregate(bucket);
+        if (valueCount > 0) {
+            aggregate.setCount(valueCount);
+            aggregate.setSum(valueSum);
+            aggregate.setMin(valueMin);
+            aggregate.setMax(valueMax);
+            aggregate.setAvg(valueSum / valueCount);
+            aggregate.setLast(lastValue);
+            aggregate.setLastAt(lastAt);
+        }
+        return aggregate;
+    }
+}
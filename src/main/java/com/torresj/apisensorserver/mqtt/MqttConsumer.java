@@ -1,14 +1,13 @@
 package com.torresj.apisensorserver.mqtt;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
 import com.torresj.apisensorserver.models.MqttMessage;
 import com.torresj.apisensorserver.models.entities.Record;
 import com.torresj.apisensorserver.models.entities.Sensor;
-import com.torresj.apisensorserver.services.RecordService;
+import com.torresj.apisensorserver.services.RecordIngestService;
 import com.torresj.apisensorserver.services.SensorService;
 
 import org.apache.logging.log4j.LogManager;
@@ -26,59 +25,61 @@ public class MqttConsumer {
 
     private static final String RECORDTYPE = "record";
 
-    private RecordService recordService;
+    private RecordIngestService recordIngestService;
 
     private SensorService sensorService;
 
-    private ObjectMapper objectMapper;
+    private MqttMessageDecoder decoder;
 
-    public MqttConsumer(RecordService recordService, SensorService sensorService,
-            ObjectMapper objectMapper) {
-        this.recordService = recordService;
-        this.sensorService = sensorService;
-        this.objectMapper = objectMapper;
+    private MqttPartitions partitions;
 
-        objectMapper.registerModule(new JavaTimeModule());
+    public MqttConsumer(RecordIngestService recordIngestService, SensorService sensorService,
+            MqttMessageDecoder decoder, MqttPartitions partitions) {
+        this.recordIngestService = recordIngestService;
+        this.sensorService = sensorService;
+        this.decoder = decoder;
+        this.partitions = partitions;
     }
 
-    public void messageHandler(String message) {
+    /* Runs on the Paho callback thread: only decodes, the sensor's partition processes it */
+    public void messageHandler(byte[] payload) {
         try {
-            logger.info("[MQTT - MESSAGE RECEIVE] Message receive from mqtt server: {}", message);
-
-            MqttMessage mqttMsg = objectMapper.readValue(message, MqttMessage.class);
-            switch (mqttMsg.getType()) {
-            case ERRORTYPE:
-                errorProcessor(mqttMsg);
-                break;
-            case RECORDTYPE:
-                recordProcessor(message);
-                break;
-            default:
-                logger.error("[MQTT - MESSAGE RECEIVE] Type not supported");
-            }
+            logger.debug("[MQTT - MESSAGE RECEIVE] Message receive from mqtt server: {}",
+                    () -> new String(payload, StandardCharsets.UTF_8));
 
-            logger.info("[MQTT - MESSAGE RECEIVE] Message processed: {}", message);
+            MqttMessage mqttMsg = decoder.decode(payload);
+            if (!partitions.execute(mqttMsg.getSensorId(), () -> process(mqttMsg))) {
+                logger.error("[MQTT - MESSAGE RECEIVE] Message not processed. Partitions stopped for message {}",
+                        mqttMsg);
+            }
         } catch (IOException e) {
             logger.error(e);
-            logger.info("[MQTT - MESSAGE RECEIVE] Message not processed: {}", message);
+            logger.info("[MQTT - MESSAGE RECEIVE] Message not processed: {}",
+                    new String(payload, StandardCharsets.UTF_8));
         }
     }
 
-    private void recordProcessor(String message) {
-        try {
-            Record record = objectMapper.readValue(message, Record.class);
-            if (record.getDate() == null) {
-                logger
-                        .error("[MQTT - MESSAGE RECEIVE] Message not processed. Date not valid for message {}",
-                                message);
-            } else {
-                recordService.register(record);
-            }
-        } catch (IOException e) {
-            logger.error(e);
-            logger.info("[MQTT - MESSAGE RECEIVE] Message not processed: {}", message);
-        } catch (EntityNotFoundException e) {
-            logger.error("[MQTT - MESSAGE RECEIVE] Entity not found for message {}", message, e);
+    private void process(MqttMessage message) {
+        switch (message.getType()) {
+        case ERRORTYPE:
+            errorProcessor(message);
+            break;
+        case RECORDTYPE:
+            recordProcessor(message);
+            break;
+        default:
+            logger.error("[MQTT - MESSAGE RECEIVE] Type not supported");
+        }
+    }
+
+    private void recordProcessor(MqttMessage message) {
+        Record record = message.getRecord();
+        if (record.getDate() == null) {
+            logger.error("[MQTT - MESSAGE RECEIVE] Message not processed. Date not valid for message {}",
+                    message);
+        } else if (!recordIngestService.submit(record)) {
+            logger.error("[MQTT - MESSAGE RECEIVE] Message not processed. Ingest queue full for message {}",
+                    message);
         }
     }
 
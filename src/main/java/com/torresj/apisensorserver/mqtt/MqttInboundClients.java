@@ -0,0 +1,153 @@
+package com.torresj.apisensorserver.mqtt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.integration.dsl.IntegrationFlows;
+import org.springframework.integration.dsl.context.IntegrationFlowContext;
+import org.springframework.integration.mqtt.core.MqttPahoClientFactory;
+import org.springframework.integration.mqtt.event.MqttConnectionFailedEvent;
+import org.springframework.integration.mqtt.event.MqttSubscribedEvent;
+import org.springframework.integration.mqtt.inbound.MqttPahoMessageDrivenChannelAdapter;
+import org.springframework.integration.mqtt.support.DefaultPahoMessageConverter;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Opens the configured number of MQTT connections, each one with its own client id, adapter and
+ * metrics. With more than one connection the messages are split between them either by a shared
+ * subscription, when the broker supports {@code $share}, or by shard topics ({@code topic/0},
+ * {@code topic/1}...) spread round robin over the clients. The first client keeps the plain topic
+ * too, so stations that don't publish to a shard are still consumed.
+ *
+ * <p>Client ids are the configured prefix, the instance id and the client index. Brokers drop the
+ * older session of a repeated id, so every instance needs its own; a random one is used when none
+ * is configured.
+ */
+@Component
+public class MqttInboundClients {
+
+    /* Logs */
+    private static final Logger logger = LogManager.getLogger(MqttInboundClients.class);
+
+    private static final String SHARE_PREFIX = "$share/";
+
+    private IntegrationFlowContext flowContext;
+
+    private MqttPahoClientFactory clientFactory;
+
+    private MqttConsumer mqttConsumer;
+
+    private MeterRegistry meterRegistry;
+
+    private String clientId;
+
+    private int clients;
+
+    private List<List<String>> topics = new ArrayList<>();
+
+    private Map<Object, AtomicInteger> connected = new ConcurrentHashMap<>();
+
+    public MqttInboundClients(IntegrationFlowContext flowContext,
+            MqttPahoClientFactory clientFactory, MqttConsumer mqttConsumer,
+            MeterRegistry meterRegistry,
+            @Value("${spring.rabbitmq.mqtt.topic}") String topic,
+            @Value("${mqtt.inbound.client-id}") String clientId,
+            @Value("${mqtt.inbound.instance-id}") String instanceId,
+            @Value("${mqtt.inbound.clients}") int clients,
+            @Value("${mqtt.inbound.shared-group}") String sharedGroup,
+            @Value("${mqtt.inbound.shards}") int shards) {
+        this.flowContext = flowContext;
+        this.clientFactory = clientFactory;
+        this.mqttConsumer = mqttConsumer;
+        this.meterRegistry = meterRegistry;
+        this.clientId = clientId + "-" + (instanceId == null || instanceId.isEmpty()
+                ? UUID.randomUUID().toString().substring(0, 8) : instanceId);
+        this.clients = clients;
+        for (int client = 0; client < clients; client++) {
+            topics.add(topicsFor(client, clients, topic, sharedGroup, shards));
+        }
+    }
+
+    /* Topic filters of the client, every message is consumed by exactly one of them */
+    static List<String> topicsFor(int client, int clients, String topic, String sharedGroup,
+            int shards) {
+        List<String> filters = new ArrayList<>();
+        if (sharedGroup != null && !sharedGroup.isEmpty()) {
+            filters.add(SHARE_PREFIX + sharedGroup + "/" + topic);
+        } else if (shards > 0) {
+            if (shards < clients) {
+                throw new IllegalArgumentException(
+                        "mqtt.inbound.shards can't be lower than mqtt.inbound.clients");
+            }
+            if (client == 0) {
+                filters.add(topic);
+            }
+            for (int shard = client; shard < shards; shard += clients) {
+                filters.add(topic + "/" + shard);
+            }
+        } else if (clients == 1) {
+            filters.add(topic);
+        } else {
+            throw new IllegalArgumentException(
+                    "More than one MQTT client needs mqtt.inbound.shared-group or mqtt.inbound.shards");
+        }
+        return filters;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (int client = 0; client < clients; client++) {
+            String id = clientId + "-" + client;
+            MqttPahoMessageDrivenChannelAdapter adapter = new MqttPahoMessageDrivenChannelAdapter(
+                    id, clientFactory, topics.get(client).toArray(new String[0]));
+            adapter.setCompletionTimeout(5000);
+            DefaultPahoMessageConverter converter = new DefaultPahoMessageConverter();
+            converter.setPayloadAsBytes(true);
+            adapter.setConverter(converter);
+            adapter.setQos(1);
+
+            Tags tags = Tags.of("client", id);
+            Counter messages = meterRegistry.counter("mqtt.inbound.messages", tags);
+            AtomicInteger state = meterRegistry.gauge("mqtt.inbound.connected", tags,
+                    new AtomicInteger());
+            connected.put(adapter, state);
+
+            flowContext.registration(IntegrationFlows.from(adapter)
+                    .handle(byte[].class, (payload, headers) -> {
+                        messages.increment();
+                        mqttConsumer.messageHandler(payload);
+                        return null;
+                    }).get()).id("mqttInFlow-" + client).register();
+            logger.info("[MQTT - CLIENTS] Client {} subscribing to {}", id, topics.get(client));
+        }
+    }
+
+    @EventListener
+    public void onSubscribed(MqttSubscribedEvent event) {
+        AtomicInteger state = connected.get(event.getSource());
+        if (state != null) {
+            state.set(1);
+        }
+    }
+
+    @EventListener
+    public void onConnectionFailed(MqttConnectionFailedEvent event) {
+        AtomicInteger state = connected.get(event.getSource());
+        if (state != null) {
+            state.set(0);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.torresj.apisensorserver.mqtt;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.torresj.apisensorserver.models.MqttMessage;
+import com.torresj.apisensorserver.models.entities.Record;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Decodes station payloads in a single streaming pass. Every known field is read into locals
+ * whatever its position, and the {@code type} discriminator decides at the end whether a
+ * {@link Record} is built. Payload bytes are handed straight to the parser, so no {@code String}
+ * copy of the message is made.
+ */
+@Component
+public class MqttMessageDecoder {
+
+    private static final String RECORDTYPE = "record";
+
+    private JsonFactory jsonFactory;
+
+    public MqttMessageDecoder(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public MqttMessage decode(byte[] payload) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Message must be a JSON object");
+            }
+
+            String type = null;
+            String msg = null;
+            long sensorId = 0;
+            long variableId = 0;
+            double value = 0;
+            LocalDateTime date = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                case "type":
+                    type = parser.getValueAsString();
+                    break;
+                case "sensorId":
+                    sensorId = parser.getValueAsLong();
+                    break;
+                case "variableId":
+                    variableId = parser.getValueAsLong();
+                    break;
+                case "value":
+                    value = parser.getValueAsDouble();
+                    break;
+                case "date":
+                    date = readDate(parser, token);
+                    break;
+                case "msg":
+                    msg = parser.getValueAsString();
+                    break;
+                default:
+                    parser.skipChildren();
+                }
+            }
+
+            if (type == null) {
+                throw new JsonParseException(parser, "Message type is missing");
+            }
+
+            MqttMessage message = new MqttMessage();
+            message.setType(type);
+            message.setSensorId(sensorId);
+            message.setMsg(msg);
+            if (RECORDTYPE.equals(type)) {
+                Record record = new Record();
+                record.setSensorId(sensorId);
+                record.setVariableId(variableId);
+                record.setValue(value);
+                record.setDate(date);
+                message.setRecord(record);
+            }
+            return message;
+        }
+    }
+
+    /* Same shapes jackson-datatype-jsr310 accepts: ISO local date-time, UTC instant or array */
+    private LocalDateTime readDate(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String text = parser.getText().trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+            try {
+                if (text.length() > 10 && text.charAt(10) == 'T' && text.endsWith("Z")) {
+                    return LocalDateTime.ofInstant(Instant.parse(text), ZoneOffset.UTC);
+                }
+                return LocalDateTime.parse(text);
+            } catch (RuntimeException e) {
+                throw new JsonParseException(parser, "Date not valid: " + text, e);
+            }
+        }
+        if (token == JsonToken.START_ARRAY) {
+            int[] parts = new int[7];
+            int i = 0;
+            for (JsonToken next = parser.nextToken(); next != JsonToken.END_ARRAY;
+                    next = parser.nextToken()) {
+                if (next != JsonToken.VALUE_NUMBER_INT) {
+                    throw new JsonParseException(parser, "Date array elements must be integers");
+                }
+                if (i < parts.length) {
+                    parts[i] = parser.getIntValue();
+                }
+                i++;
+            }
+            if (i < 5) {
+                throw new JsonParseException(parser, "Date array must have at least 5 elements");
+            }
+            try {
+                return LocalDateTime
+                        .of(parts[0], parts[1], parts[2], parts[3], parts[4], parts[5], parts[6]);
+            } catch (DateTimeException e) {
+                throw new JsonParseException(parser, "Date not valid: " + e.getMessage(), e);
+            }
+        }
+        throw new JsonParseException(parser, "Date not valid");
+    }
+}
@@ -0,0 +1,132 @@
+package com.torresj.apisensorserver.mqtt;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Moves MQTT message processing off the Paho callback thread onto a fixed set of partitions, each
+ * with its own bounded queue and worker thread. A message goes to the partition picked by its
+ * sensor id, so every station is processed in order by one worker while different stations run in
+ * parallel. When a partition is full the callback waits for room: acknowledgements are held back
+ * and the broker's inflight window throttles the stations instead of messages being dropped.
+ */
+@Component
+public class MqttPartitions {
+
+    /* Logs */
+    private static final Logger logger = LogManager.getLogger(MqttPartitions.class);
+
+    private Partition[] partitions;
+
+    private volatile boolean running;
+
+    public MqttPartitions(MeterRegistry meterRegistry,
+            @Value("${mqtt.partitions.count}") int count,
+            @Value("${mqtt.partitions.queue-depth}") int queueDepth) {
+        partitions = new Partition[count];
+        for (int i = 0; i < count; i++) {
+            partitions[i] = new Partition(i, queueDepth, meterRegistry);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (Partition partition : partitions) {
+            partition.worker.start();
+        }
+        logger.info("[MQTT - PARTITIONS] Workers started. Partitions {}, queue depth {}",
+                partitions.length, partitions[0].queue.remainingCapacity());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        // Wakes the workers if they are waiting on their queues, they still drain what is left
+        for (Partition partition : partitions) {
+            partition.worker.interrupt();
+        }
+        for (Partition partition : partitions) {
+            partition.worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        logger.info("[MQTT - PARTITIONS] Workers stopped");
+    }
+
+    /* Blocks while the partition is full. False if stopped or interrupted while waiting */
+    public boolean execute(long sensorId, Runnable task) {
+        if (!running) {
+            return false;
+        }
+        Partition partition = partitions[Math.floorMod(Long.hashCode(sensorId), partitions.length)];
+        if (!partition.queue.offer(task)) {
+            partition.blocked.increment();
+            try {
+                partition.queue.put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private class Partition {
+
+        private final BlockingQueue<Runnable> queue;
+
+        private final Thread worker;
+
+        private final Counter processed;
+
+        private final Counter failed;
+
+        /* Times the callback found the partition full and had to wait */
+        private final Counter blocked;
+
+        private Partition(int index, int queueDepth, MeterRegistry meterRegistry) {
+            queue = new LinkedBlockingQueue<>(queueDepth);
+            worker = new Thread(this::drain, "mqtt-partition-" + index);
+            worker.setDaemon(true);
+            Tags tags = Tags.of("partition", String.valueOf(index));
+            meterRegistry.gaugeCollectionSize("mqtt.partition.queue.size", tags, queue);
+            processed = meterRegistry.counter("mqtt.partition.processed", tags);
+            failed = meterRegistry.counter("mqtt.partition.failed", tags);
+            blocked = meterRegistry.counter("mqtt.partition.blocked", tags);
+        }
+
+        private void drain() {
+            while (running || !queue.isEmpty()) {
+                Runnable task;
+                try {
+                    task = running ? queue.take() : queue.poll();
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                if (task == null) {
+                    break;
+                }
+                try {
+                    task.run();
+                    processed.increment();
+                } catch (RuntimeException e) {
+                    failed.increment();
+                    logger.error("[MQTT - PARTITIONS] Error processing message in {}",
+                            worker.getName(), e);
+                }
+            }
+        }
+    }
+}
@@ -1,20 +1,27 @@
 package com.torresj.apisensorserver.repositories;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
 import com.torresj.apisensorserver.models.entities.House;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface HouseRepository extends JpaRepository<House, Long> {
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<House> findByName(String name);
 
     Page<House> findByIdIn(List<Long> ids, Pageable pageable);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<House> findByIdIn(List<Long> ids);
 
     Page<House> findByNameContaining(String name, Pageable pageable);
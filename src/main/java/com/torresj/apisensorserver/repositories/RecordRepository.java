@@ -7,14 +7,27 @@ import com.torresj.apisensorserver.models.entities.Record;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface RecordRepository extends JpaRepository<Record, Long> {
+public interface RecordRepository extends JpaRepository<Record, Long>, RecordRepositoryCustom {
 
     Page<Record> findBySensorIdAndVariableIdAndCreateAtBetween(long sensorId, long variableId,
             LocalDateTime from,
             LocalDateTime to, Pageable pageable);
 
+    /* Keyset page: records in [from, createAt) plus the ones at createAt with a lower id */
+    @Query("SELECT r FROM Record r WHERE r.sensorId = :sensorId AND r.variableId = :variableId"
+            + " AND r.createAt >= :from AND (r.createAt < :createAt OR (r.createAt = :createAt AND r.id < :id))"
+            + " ORDER BY r.createAt DESC, r.id DESC")
+    Slice<Record> findSliceBefore(@Param("sensorId") long sensorId,
+            @Param("variableId") long variableId, @Param("from") LocalDateTime from,
+            @Param("createAt") LocalDateTime createAt, @Param("id") long id, Pageable pageable);
+
     Optional<Record> findBySensorIdAndVariableIdAndDate(long sensorId, long variableId,
             LocalDateTime date);
+
+    Optional<Record> findFirstByOrderByCreateAtAsc();
 }
\ No newline at end of file
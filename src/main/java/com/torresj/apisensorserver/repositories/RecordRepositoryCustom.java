@@ -0,0 +1,37 @@
+package com.torresj.apisensorserver.repositories;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.torresj.apisensorserver.models.AggregationBucket;
+import com.torresj.apisensorserver.models.RecordAggregate;
+import com.torresj.apisensorserver.models.entities.Record;
+
+public interface RecordRepositoryCustom {
+
+    int[] saveBatch(List<Record> records);
+
+    /* Buckets over [from, to) by createAt, empty buckets are not returned */
+    List<RecordAggregate> aggregate(long sensorId, long variableId, LocalDateTime from,
+            LocalDateTime to, AggregationBucket bucket);
+
+    /* Streams records of the sensors over [from, to) by createAt, all variables when variableId is null */
+    void forEachInRange(List<Long> sensorIds, Long variableId, LocalDateTime from, LocalDateTime to,
+            Consumer<Record> consumer);
+
+    /* Latest record of every (sensorId, variableId) pair by createAt, ties come more than once */
+    void forEachLatest(Consumer<Record> consumer);
+
+    /* Distinct (sensorId, variableId) pairs with records over [from, to) by createAt */
+    List<long[]> findSeries(LocalDateTime from, LocalDateTime to);
+
+    /* Records of the series per day over [from, to) by createAt, oldest first, days without records are not returned */
+    Map<LocalDate, Long> countPerDay(long sensorId, long variableId, LocalDateTime from,
+            LocalDateTime to);
+
+    /* Deletes up to limit records of the series created before the time, returns how many */
+    int deleteBefore(long sensorId, long variableId, LocalDateTime before, int limit);
+}
@@ -0,0 +1,171 @@
+package com.torresj.apisensorserver.repositories;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import com.torresj.apisensorserver.models.AggregationBucket;
+import com.torresj.apisensorserver.models.RecordAggregate;
+import com.torresj.apisensorserver.models.entities.Record;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Plain JDBC operations over the record table. Hibernate can't batch inserts of IDENTITY keyed
+ * entities, so bulk writes go through {@link JdbcTemplate} instead of {@code saveAll}. A batch is
+ * written in one transaction, so a failing row leaves none of it behind. Aggregates
+ * are reduced while streaming the value column, no entity is built for them.
+ */
+public class RecordRepositoryImpl implements RecordRepositoryCustom {
+
+    private static final String INSERT = "INSERT INTO record (sensor_id, variable_id, value, date, create_at) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String SELECT_VALUES = "SELECT value, create_at FROM record WHERE sensor_id = ? AND variable_id = ? AND create_at >= ? AND create_at < ? ORDER BY create_at";
+
+    private static final String SELECT_RANGE = "SELECT id, sensor_id, variable_id, value, date, create_at FROM record WHERE sensor_id IN (%s)%s AND create_at >= ? AND create_at < ? ORDER BY sensor_id, variable_id, create_at";
+
+    private static final String SELECT_LATEST = "SELECT r.id, r.sensor_id, r.variable_id, r.value, r.date, r.create_at FROM record r JOIN (SELECT sensor_id, variable_id, MAX(create_at) AS create_at FROM record GROUP BY sensor_id, variable_id) l ON r.sensor_id = l.sensor_id AND r.variable_id = l.variable_id AND r.create_at = l.create_at";
+
+    private static final String SELECT_SERIES = "SELECT DISTINCT sensor_id, variable_id FROM record WHERE create_at >= ? AND create_at < ?";
+
+    private static final String COUNT_PER_DAY = "SELECT CAST(create_at AS DATE), COUNT(*) FROM record WHERE sensor_id = ? AND variable_id = ? AND create_at >= ? AND create_at < ? GROUP BY CAST(create_at AS DATE)";
+
+    private static final String DELETE_BEFORE = "DELETE FROM record WHERE sensor_id = ? AND variable_id = ? AND create_at < ? LIMIT ?";
+
+    private static final int FETCH_SIZE = 1000;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    public RecordRepositoryImpl(JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public int[] saveBatch(List<Record> records) {
+        return transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(INSERT,
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Record record = records.get(i);
+                        if (record.getCreateAt() == null) {
+                            record.setCreateAt(LocalDateTime.now());
+                        }
+                        ps.setLong(1, record.getSensorId());
+                        ps.setLong(2, record.getVariableId());
+                        ps.setDouble(3, record.getValue());
+                        ps.setTimestamp(4, Timestamp.valueOf(record.getDate()));
+                        ps.setTimestamp(5, Timestamp.valueOf(record.getCreateAt()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return records.size();
+                    }
+                }));
+    }
+
+    @Override
+    public List<RecordAggregate> aggregate(long sensorId, long variableId, LocalDateTime from,
+            LocalDateTime to, AggregationBucket bucket) {
+        List<RecordAggregate> aggregates = new ArrayList<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_VALUES,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setLong(1, sensorId);
+            ps.setLong(2, variableId);
+            ps.setTimestamp(3, Timestamp.valueOf(from));
+            ps.setTimestamp(4, Timestamp.valueOf(to));
+            return ps;
+        }, (ResultSet rs) -> {
+            // Rows come ordered by time, so a bucket is complete once the next one starts
+            LocalDateTime createAt = rs.getTimestamp(2).toLocalDateTime();
+            LocalDateTime start = bucket.floor(createAt);
+            RecordAggregate current = aggregates.isEmpty() ? null : aggregates.get(aggregates.size() - 1);
+            if (current == null || !current.getBucket().equals(start)) {
+                current = new RecordAggregate(start);
+                aggregates.add(current);
+            }
+            current.add(rs.getDouble(1), createAt);
+        });
+        return aggregates;
+    }
+
+    @Override
+    public void forEachInRange(List<Long> sensorIds, Long variableId, LocalDateTime from,
+            LocalDateTime to, Consumer<Record> consumer) {
+        if (sensorIds.isEmpty()) {
+            return;
+        }
+        String sql = String.format(SELECT_RANGE, String.join(",", Collections.nCopies(sensorIds.size(), "?")),
+                variableId != null ? " AND variable_id = ?" : "");
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            int i = 1;
+            for (Long sensorId : sensorIds) {
+                ps.setLong(i++, sensorId);
+            }
+            if (variableId != null) {
+                ps.setLong(i++, variableId);
+            }
+            ps.setTimestamp(i++, Timestamp.valueOf(from));
+            ps.setTimestamp(i, Timestamp.valueOf(to));
+            return ps;
+        }, (ResultSet rs) -> {
+            consumer.accept(toRecord(rs));
+        });
+    }
+
+    @Override
+    public void forEachLatest(Consumer<Record> consumer) {
+        jdbcTemplate.query(SELECT_LATEST, (ResultSet rs) -> {
+            consumer.accept(toRecord(rs));
+        });
+    }
+
+    @Override
+    public List<long[]> findSeries(LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(SELECT_SERIES,
+                (rs, i) -> new long[] { rs.getLong(1), rs.getLong(2) }, Timestamp.valueOf(from),
+                Timestamp.valueOf(to));
+    }
+
+    @Override
+    public Map<LocalDate, Long> countPerDay(long sensorId, long variableId, LocalDateTime from,
+            LocalDateTime to) {
+        Map<LocalDate, Long> counts = new TreeMap<>();
+        jdbcTemplate.query(COUNT_PER_DAY, (ResultSet rs) -> {
+            counts.put(rs.getDate(1).toLocalDate(), rs.getLong(2));
+        }, sensorId, variableId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        return counts;
+    }
+
+    @Override
+    public int deleteBefore(long sensorId, long variableId, LocalDateTime before, int limit) {
+        return jdbcTemplate.update(DELETE_BEFORE, sensorId, variableId, Timestamp.valueOf(before),
+                limit);
+    }
+
+    private Record toRecord(ResultSet rs) throws SQLException {
+        return new Record(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getDouble(4),
+                rs.getTimestamp(5).toLocalDateTime(), rs.getTimestamp(6).toLocalDateTime());
+    }
+}
@@ -0,0 +1,26 @@
+package com.torresj.apisensorserver.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import com.torresj.apisensorserver.models.AggregationBucket;
+import com.torresj.apisensorserver.models.entities.RecordRollup;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface RecordRollupRepository extends JpaRepository<RecordRollup, Long> {
+
+    Optional<RecordRollup> findBySensorIdAndVariableIdAndResolutionAndBucket(long sensorId,
+            long variableId, AggregationBucket resolution, LocalDateTime bucket);
+
+    List<RecordRollup> findBySensorIdAndVariableIdAndResolutionAndBucketGreaterThanEqualAndBucketLessThanOrderByBucket(
+            long sensorId, long variableId, AggregationBucket resolution, LocalDateTime from,
+            LocalDateTime to);
+
+    Page<RecordRollup> findBySensorIdAndVariableIdAndResolutionAndBucketGreaterThanEqualAndBucketLessThan(
+            long sensorId, long variableId, AggregationBucket resolution, LocalDateTime from,
+            LocalDateTime to, Pageable pageable);
+}
@@ -28,4 +28,6 @@ public interface SensorRepository extends JpaRepository<Sensor, Long> {
     Page<Sensor> findByHouseId(Long houseId, Pageable pageable);
 
     List<Sensor> findByHouseId(Long houseId);
+
+    List<Sensor> findByHouseIdIn(List<Long> houseIds);
 }
\ No newline at end of file
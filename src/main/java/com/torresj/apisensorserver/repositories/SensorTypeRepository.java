@@ -1,15 +1,21 @@
 package com.torresj.apisensorserver.repositories;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
 import com.torresj.apisensorserver.models.entities.SensorType;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface SensorTypeRepository extends JpaRepository<SensorType, Long> {
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<SensorType> findByName(String name);
 
     Page<SensorType> findByName(String name, Pageable pageable);
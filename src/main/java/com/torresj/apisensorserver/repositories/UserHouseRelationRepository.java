@@ -1,17 +1,25 @@
 package com.torresj.apisensorserver.repositories;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
 import com.torresj.apisensorserver.models.entities.UserHouseRelation;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface UserHouseRelationRepository extends JpaRepository<UserHouseRelation, Long> {
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<UserHouseRelation> findByUserId(long userId);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<UserHouseRelation> findByHouseId(long houseId);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<UserHouseRelation> findByUserIdAndHouseId(long userId, long houseId);
 }
@@ -0,0 +1,10 @@
+package com.torresj.apisensorserver.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public interface UserRepositoryCustom {
+
+    /* Last connection by username, unknown usernames are skipped */
+    int[] updateLastConnections(Map<String, LocalDateTime> connections);
+}
@@ -0,0 +1,66 @@
+package com.torresj.apisensorserver.repositories;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManagerFactory;
+
+import com.torresj.apisensorserver.models.entities.User;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Plain JDBC operations over the user table. Last connections are written as one batch of
+ * single-column updates, so they neither load the users nor overwrite concurrent edits. Users are
+ * evicted one by one from the second-level cache afterwards, since Hibernate does not see these
+ * updates.
+ */
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    private static final String UPDATE_LAST_CONNECTION = "UPDATE user SET last_connection = ? WHERE username = ?";
+
+    private static final String SELECT_IDS = "SELECT id FROM user WHERE username IN (:usernames)";
+
+    private JdbcTemplate jdbcTemplate;
+
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    public UserRepositoryImpl(JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public int[] updateLastConnections(Map<String, LocalDateTime> connections) {
+        List<Object[]> args = connections.entrySet().stream()
+                .map(entry -> new Object[] { Timestamp.valueOf(entry.getValue()), entry.getKey() })
+                .collect(Collectors.toList());
+        if (args.isEmpty()) {
+            return new int[0];
+        }
+        List<Long> ids = new ArrayList<>();
+        int[] updated = transactionTemplate.execute(status -> {
+            ids.addAll(namedJdbcTemplate.queryForList(SELECT_IDS,
+                    Collections.singletonMap("usernames", connections.keySet()), Long.class));
+            return jdbcTemplate.batchUpdate(UPDATE_LAST_CONNECTION, args);
+        });
+        ids.forEach(id -> entityManagerFactory.getCache().evict(User.class, id));
+        return updated;
+    }
+}
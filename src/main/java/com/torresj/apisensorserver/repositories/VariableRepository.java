@@ -1,18 +1,25 @@
 package com.torresj.apisensorserver.repositories;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
 import com.torresj.apisensorserver.models.entities.Variable;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface VariableRepository extends JpaRepository<Variable, Long> {
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Variable> findByName(String name);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Variable> findByIdIn(List<Long> ids);
 
     Page<Variable> findByName(String name, Pageable pageable);
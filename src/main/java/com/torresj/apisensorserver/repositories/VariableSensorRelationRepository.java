@@ -1,11 +1,16 @@
 package com.torresj.apisensorserver.repositories;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
 import com.torresj.apisensorserver.models.entities.VariableSensorRelation;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface VariableSensorRelationRepository extends
         JpaRepository<VariableSensorRelation, Long> {
@@ -14,10 +19,16 @@ public interface VariableSensorRelationRepository extends
 
     void deleteBySensorId(Long sensorId);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<VariableSensorRelation> findByVariableId(Long variableId);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<VariableSensorRelation> findBySensorId(Long sensorId);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<VariableSensorRelation> findBySensorIdIn(List<Long> sensorIds);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<VariableSensorRelation> findBySensorIdAndVariableId(long sensorId, long variableId);
 
     void deleteBySensorIdAndVariableId(long sensorId, long variableId);
@@ -1,7 +1,6 @@
 package com.torresj.apisensorserver.security;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 
 import javax.servlet.FilterChain;
@@ -9,8 +8,7 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
-import com.torresj.apisensorserver.models.entities.User;
+import com.torresj.apisensorserver.cache.TokenCache;
 import com.torresj.apisensorserver.services.UserService;
 
 import org.springframework.security.authentication.AuthenticationManager;
@@ -18,11 +16,9 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
-import io.jsonwebtoken.Jwts;
-
 public class JWTAuthorizationFilter extends BasicAuthenticationFilter {
 
-    private String secret;
+    private TokenCache tokenCache;
 
     private String prefix;
 
@@ -30,10 +26,10 @@ public class JWTAuthorizationFilter extends BasicAuthenticationFilter {
 
     private UserService userService;
 
-    public JWTAuthorizationFilter(AuthenticationManager authManager, UserService userService, String secret, String prefix,
-            String header) {
+    public JWTAuthorizationFilter(AuthenticationManager authManager, UserService userService, TokenCache tokenCache,
+            String prefix, String header) {
         super(authManager);
-        this.secret = secret;
+        this.tokenCache = tokenCache;
         this.prefix = prefix;
         this.header = header;
         this.userService = userService;
@@ -54,14 +50,9 @@ public class JWTAuthorizationFilter extends BasicAuthenticationFilter {
 
         String userName = (String) authentication.getPrincipal();
 
+        // Buffered, written in batch by the service so requests don't write to the database
         if (userName != null) {
-            try {
-                User user = userService.getUser(userName);
-                user.setLastConnection(LocalDateTime.now());
-                userService.update(user);
-            } catch (EntityNotFoundException e) {
-                logger.error("[JWTAuthorizationFilter] Error updating number of logins in login request", e);
-            }
+            userService.registerConnection(userName);
         }
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -72,9 +63,7 @@ public class JWTAuthorizationFilter extends BasicAuthenticationFilter {
         String token = request.getHeader(header);
         if (token != null) {
             // parse the token.
-            String user = Jwts.parser().setSigningKey(secret)
-                    .parseClaimsJws(token.replace(prefix, "")).getBody()
-                    .getSubject();
+            String user = tokenCache.getSubject(token.replace(prefix, ""));
 
             if (user != null) {
                 return new UsernamePasswordAuthenticationToken(user, null, new ArrayList<>());
@@ -1,5 +1,6 @@
 package com.torresj.apisensorserver.security;
 
+import com.torresj.apisensorserver.cache.TokenCache;
 import com.torresj.apisensorserver.services.UserService;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -17,6 +18,8 @@ public class WebSecurity extends WebSecurityConfigurerAdapter {
     /* Services */
     private UserService userService;
 
+    private TokenCache tokenCache;
+
     @Value("${jwt.token.secret}")
     private String secret;
 
@@ -32,8 +35,9 @@ public class WebSecurity extends WebSecurityConfigurerAdapter {
     @Value("${jwt.token.issuer.info}")
     public String issuer;
 
-    public WebSecurity(UserService userService) {
+    public WebSecurity(UserService userService, TokenCache tokenCache) {
         this.userService = userService;
+        this.tokenCache = tokenCache;
     }
 
     @Bean
@@ -51,7 +55,7 @@ public class WebSecurity extends WebSecurityConfigurerAdapter {
                 .permitAll().anyRequest().authenticated().and()
                 .addFilter(new JWTAuthenticationFilter(authenticationManager(), userService, secret, expiration, prefix, header,
                         issuer))
-                .addFilter(new JWTAuthorizationFilter(authenticationManager(), userService, secret, prefix, header))
+                .addFilter(new JWTAuthorizationFilter(authenticationManager(), userService, tokenCache, prefix, header))
                 // this disables session creation on Spring Security
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS);
     }
@@ -4,6 +4,7 @@ import java.util.List;
 
 import com.torresj.apisensorserver.exceptions.EntityAlreadyExistsException;
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
+import com.torresj.apisensorserver.models.LatestValue;
 import com.torresj.apisensorserver.models.entities.House;
 import com.torresj.apisensorserver.models.entities.Sensor;
 import com.torresj.apisensorserver.models.entities.User;
@@ -20,6 +21,8 @@ public interface HouseService {
 
     List<Sensor> getSensors(long id) throws EntityNotFoundException;
 
+    List<LatestValue> getLatestValues(long id) throws EntityNotFoundException;
+
     House update(House house) throws EntityNotFoundException;
 
     House register(House house) throws EntityAlreadyExistsException;
@@ -0,0 +1,14 @@
+package com.torresj.apisensorserver.services;
+
+import java.time.LocalDateTime;
+
+public interface RecordCompactionService {
+
+    boolean isEnabled();
+
+    /* Raw records created before this are compacted into their rollups */
+    LocalDateTime compactedBefore();
+
+    /* Deletes the raw records before the boundary, returns how many */
+    long compact();
+}
@@ -0,0 +1,15 @@
+package com.torresj.apisensorserver.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.torresj.apisensorserver.models.RecordExportFormat;
+
+public interface RecordExportService {
+
+    /* Writes every record of the sensors between both days, all variables when variableId is null */
+    void export(List<Long> sensorIds, Long variableId, LocalDate from, LocalDate to,
+            RecordExportFormat format, OutputStream out) throws IOException;
+}
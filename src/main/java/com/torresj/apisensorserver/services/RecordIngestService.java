@@ -0,0 +1,15 @@
+package com.torresj.apisensorserver.services;
+
+import com.torresj.apisensorserver.models.entities.Record;
+
+public interface RecordIngestService {
+
+    enum OverflowPolicy {
+        BLOCK,
+        DROP
+    }
+
+    boolean submit(Record record);
+
+    int pending();
+}
@@ -0,0 +1,38 @@
+package com.torresj.apisensorserver.services;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.torresj.apisensorserver.models.AggregationBucket;
+import com.torresj.apisensorserver.models.RecordAggregate;
+import com.torresj.apisensorserver.models.entities.Record;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface RecordRollupService {
+
+    void add(List<Record> records);
+
+    void flush();
+
+    /* Recomputes the rollups of [from, to) from the raw records, replacing the stored ones */
+    void rebuild(LocalDateTime from, LocalDateTime to);
+
+    List<RecordAggregate> getAggregates(long sensorId, long variableId, AggregationBucket bucket,
+            LocalDateTime from, LocalDateTime to);
+
+    /*
+     * Rebuilds from the raw records the days of [from, to) whose rollups of the series hold fewer
+     * records than the raw table, so no raw record is deleted before it is rolled up. Returns the
+     * days rebuilt
+     */
+    int ensureRolledUp(long sensorId, long variableId, LocalDateTime from, LocalDateTime to);
+
+    /*
+     * Minute rollups of [from, to) as records without id, valued with their average, newest first.
+     * Count, min and max of the same buckets come from getAggregates
+     */
+    Page<Record> getSummaries(long sensorId, long variableId, LocalDateTime from, LocalDateTime to,
+            Pageable pageable);
+}
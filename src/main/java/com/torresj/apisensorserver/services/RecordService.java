@@ -1,8 +1,12 @@
 package com.torresj.apisensorserver.services;
 
 import java.time.LocalDate;
+import java.util.List;
 
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
+import com.torresj.apisensorserver.models.AggregationBucket;
+import com.torresj.apisensorserver.models.RecordAggregate;
+import com.torresj.apisensorserver.models.RecordSlice;
 import com.torresj.apisensorserver.models.entities.Record;
 
 import org.springframework.data.domain.Page;
@@ -11,9 +15,17 @@ public interface RecordService {
 
     Record register(Record record) throws EntityNotFoundException;
 
+    List<Record> registerAll(List<Record> records);
+
     Page<Record> getRecords(long sensorId, long variableId, int pageNumber, int numberOfElements,
             LocalDate from, LocalDate to);
 
+    RecordSlice getRecordSlice(long sensorId, long variableId, int numberOfElements, LocalDate from,
+            LocalDate to, String cursor);
+
+    List<RecordAggregate> getAggregates(long sensorId, long variableId, AggregationBucket bucket,
+            LocalDate from, LocalDate to);
+
     Record getRecord(long id) throws EntityNotFoundException;
 
     boolean hasUserVisibilityRecord(String name, long id) throws EntityNotFoundException;
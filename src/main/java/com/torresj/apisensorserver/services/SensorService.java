@@ -6,6 +6,9 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.torresj.apisensorserver.exceptions.ActionException;
 import com.torresj.apisensorserver.exceptions.EntityAlreadyExistsException;
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
+import com.torresj.apisensorserver.models.ActionDelivery;
+import com.torresj.apisensorserver.models.ActionReport;
+import com.torresj.apisensorserver.models.LatestValue;
 import com.torresj.apisensorserver.models.entities.Sensor;
 import com.torresj.apisensorserver.models.entities.Variable;
 
@@ -29,6 +32,8 @@ public interface SensorService {
 
     List<Variable> getVariables(long id) throws EntityNotFoundException;
 
+    List<LatestValue> getLatestValues(long id) throws EntityNotFoundException;
+
     Variable addVariable(long id, long variableId) throws EntityNotFoundException;
 
     Sensor update(Sensor sensor) throws EntityNotFoundException;
@@ -41,9 +46,17 @@ public interface SensorService {
 
     boolean hasUserVisibilitySensor(String name, long id) throws EntityNotFoundException;
 
-    void reset(long id) throws EntityNotFoundException, JsonProcessingException;
+    ActionDelivery reset(long id) throws EntityNotFoundException, JsonProcessingException;
+
+    ActionDelivery sendAction(long id, String action)
+            throws EntityNotFoundException, JsonProcessingException, ActionException;
+
+    List<ActionDelivery> getActionDeliveries(long id) throws EntityNotFoundException;
+
+    ActionReport sendHouseAction(long houseId, String action)
+            throws EntityNotFoundException, JsonProcessingException;
 
-    void sendAction(long id, String action)
+    ActionReport sendSensorTypeAction(long sensorTypeId, String action)
             throws EntityNotFoundException, JsonProcessingException, ActionException;
 
     List<Sensor> getSensors(long sensorTypeId);
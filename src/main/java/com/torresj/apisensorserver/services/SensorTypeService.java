@@ -19,6 +19,8 @@ public interface SensorTypeService {
 
     SensorType update(SensorType type) throws EntityNotFoundException;
 
+    boolean isActionAllowed(long id, String action) throws EntityNotFoundException;
+
     SensorType remove(long id) throws EntityNotFoundException, EntityHasRelationsException;
 
     Page<SensorType> getSensorTypes(int nPage, int elements, String filter);
@@ -40,4 +40,8 @@ public interface UserService extends UserDetailsService {
     boolean isSameUser(String userName, String userNAme) throws EntityNotFoundException;
 
     User remove(long id) throws EntityNotFoundException;
+
+    void registerConnection(String userName);
+
+    void flushConnections();
 }
@@ -11,6 +11,8 @@ public interface WSService {
 
     WSResponse validateConnection(long stationId, Principal user);
 
+    void openSession(StompHeaderAccessor accessor);
+
     boolean checkSensorAndUserVisibility(StompHeaderAccessor accessor)
             throws EntityNotFoundException;
 }
@@ -5,8 +5,12 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import com.torresj.apisensorserver.cache.ExistenceCache;
+import com.torresj.apisensorserver.cache.LatestValueStore;
+import com.torresj.apisensorserver.cache.VisibilityIndex;
 import com.torresj.apisensorserver.exceptions.EntityAlreadyExistsException;
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
+import com.torresj.apisensorserver.models.LatestValue;
 import com.torresj.apisensorserver.models.entities.House;
 import com.torresj.apisensorserver.models.entities.Sensor;
 import com.torresj.apisensorserver.models.entities.User;
@@ -23,6 +27,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class HouseServiceImpl implements HouseService {
@@ -38,17 +43,30 @@ public class HouseServiceImpl implements HouseService {
 
     private UserHouseRelationRepository userHouseRelationRepository;
 
+    private ExistenceCache existenceCache;
+
+    private VisibilityIndex visibilityIndex;
+
+    private LatestValueStore latestValues;
+
     public HouseServiceImpl(HouseRepository houseRepository,
             SensorRepository sensorRepository,
             UserRepository userRepository,
-            UserHouseRelationRepository userHouseRelationRepository) {
+            UserHouseRelationRepository userHouseRelationRepository,
+            ExistenceCache existenceCache,
+            VisibilityIndex visibilityIndex,
+            LatestValueStore latestValues) {
         this.houseRepository = houseRepository;
         this.sensorRepository = sensorRepository;
         this.userRepository = userRepository;
         this.userHouseRelationRepository = userHouseRelationRepository;
+        this.existenceCache = existenceCache;
+        this.visibilityIndex = visibilityIndex;
+        this.latestValues = latestValues;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<House> getHouses(String filter, int nPage, int elements) {
         logger.debug("[HOUSE - SERVICE] Service for getting house start");
         PageRequest pageRequest = PageRequest.of(nPage, elements, Sort.by("createAt").descending());
@@ -63,6 +81,7 @@ public class HouseServiceImpl implements HouseService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<House> getHouses() {
         logger.debug("[HOUSE - SERVICE] Service for getting house start");
         List<House> houses = houseRepository.findAll();
@@ -79,6 +98,7 @@ public class HouseServiceImpl implements HouseService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Sensor> getSensors(long id) throws EntityNotFoundException {
         logger.debug("[HOUSE - SERVICE] Service for get house {} sensors start", id);
         houseRepository.findById(id).orElseThrow(EntityNotFoundException::new);
@@ -88,6 +108,21 @@ public class HouseServiceImpl implements HouseService {
         return sensors;
     }
 
+    @Override
+    public List<LatestValue> getLatestValues(long id) throws EntityNotFoundException {
+        logger.debug("[HOUSE - SERVICE] Service for get house {} latest values start", id);
+        if (!existenceCache.houseExists(id)) {
+            throw new EntityNotFoundException();
+        }
+        // Only the membership is read, the values come from memory
+        List<Long> sensorIds = sensorRepository.findByHouseId(id).stream().map(Sensor::getId)
+                .collect(Collectors.toList());
+        List<LatestValue> values = latestValues.getBySensors(sensorIds);
+        logger.debug("[HOUSE - SERVICE] Service for get house {} latest values end. Values: {}", id,
+                values);
+        return values;
+    }
+
     @Override
     public House update(House house) throws EntityNotFoundException {
         logger.debug("[HOUSE - SERVICE] Service for update house start. House: ", house);
@@ -95,6 +130,7 @@ public class HouseServiceImpl implements HouseService {
                 .orElseThrow(EntityNotFoundException::new);
         house.setId(entity.getId());
         house = houseRepository.save(house);
+        existenceCache.evictHouse(entity.getId());
         logger.debug("[HOUSE - SERVICE] Service for update house end. House: ", house);
         return house;
     }
@@ -111,6 +147,7 @@ public class HouseServiceImpl implements HouseService {
             throw new EntityAlreadyExistsException();
         }
         house = houseRepository.save(house);
+        existenceCache.evictHouse(house.getId());
         logger.debug("[HOUSE - SERVICE] Service for register house end. House: {}", house);
         return house;
     }
@@ -126,6 +163,8 @@ public class HouseServiceImpl implements HouseService {
         userHouseRelationRepository.findByHouseId(id).stream()
                 .forEach(userHouseRelationRepository::delete);
         houseRepository.delete(house);
+        existenceCache.evictHouse(id);
+        visibilityIndex.houseChanged(id);
         logger.debug("[HOUSE - SERVICE] Service for delete house {} end", id);
         return house;
     }
@@ -134,13 +173,11 @@ public class HouseServiceImpl implements HouseService {
     public boolean hasUserVisibilityHouse(String name, long id) throws EntityNotFoundException {
         logger.debug("[HOUSE - SERVICE] Service for check if user {} has visibility for house {} start",
                 name, id);
-        logger.debug("[HOUSE - SERVICE] Searching user {}", name);
-        User user = userRepository.findByUsername(name).get();
         logger.debug("[HOUSE - SERVICE] Searching house {}", id);
-        houseRepository.findById(id).orElseThrow(EntityNotFoundException::new);
-        boolean hasVisibility = userHouseRelationRepository.findByUserId(user.getId()).stream()
-                .map(userHouseRelation -> houseRepository.findById(userHouseRelation.getHouseId()).get())
-                .anyMatch(house -> house.getId() == id);
+        if (!existenceCache.houseExists(id)) {
+            throw new EntityNotFoundException();
+        }
+        boolean hasVisibility = visibilityIndex.canSeeHouse(name, id);
         logger.debug(
                 "[HOUSE - SERVICE] Service for check if user {} has visibility for house {} end. Result: {}",
                 name, id, hasVisibility);
@@ -148,6 +185,7 @@ public class HouseServiceImpl implements HouseService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<User> getHouseUsers(long id) throws EntityNotFoundException {
         logger.debug("[HOUSE - SERVICE] Service for getting users with visibility for house {} start", id);
         houseRepository.findById(id).orElseThrow(EntityNotFoundException::new);
@@ -178,7 +216,9 @@ public class HouseServiceImpl implements HouseService {
         finalSensors.stream().filter(sensor -> !currentSensors.contains(sensor)).forEach(sensor -> {
             sensor.setHouseId(houseId);
             sensorRepository.save(sensor);
+            visibilityIndex.sensorChanged(sensor.getId(), null);
         });
+        visibilityIndex.houseChanged(houseId);
 
         return finalSensors;
     }
@@ -0,0 +1,134 @@
+package com.torresj.apisensorserver.services.impl;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.torresj.apisensorserver.repositories.RecordRepository;
+import com.torresj.apisensorserver.services.RecordCompactionService;
+import com.torresj.apisensorserver.services.RecordRollupService;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Compacts the raw records older than age-days into the rollups already kept by
+ * {@link RecordRollupService}: once a day has left the raw tier only its minute, hour and day
+ * rollups remain. Raw rows are deleted series by series in chunks of at most chunk rows, each one
+ * in its own statement with a pause between them, so locks stay short and replication keeps up.
+ *
+ * <p>The boundary is a whole day and at least two days old, so the nightly rebuild of the previous
+ * day always runs over complete raw records before they are deleted. Rollups of every series are
+ * still checked against its raw records before the delete, and the days missing any, after a
+ * missed rebuild, are rebuilt first. A series whose rollups can't be checked keeps its raw records.
+ *
+ * <p>Compacted days are read back through the minute rollups: as records valued with their
+ * average, and in full, with count, min and max, as aggregates.
+ */
+@Service
+public class RecordCompactionServiceImpl implements RecordCompactionService {
+
+    /* Logs */
+    private static final Logger logger = LogManager.getLogger(RecordCompactionServiceImpl.class);
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private RecordRepository recordRepository;
+
+    private RecordRollupService rollupService;
+
+    private int ageDays;
+
+    private int chunk;
+
+    private long pauseMs;
+
+    private Counter deleted;
+
+    private Timer compactTimer;
+
+    public RecordCompactionServiceImpl(RecordRepository recordRepository,
+            @Lazy RecordRollupService rollupService,
+            @Value("${records.compaction.age-days}") int ageDays,
+            @Value("${records.compaction.chunk}") int chunk,
+            @Value("${records.compaction.pause-ms}") long pauseMs, MeterRegistry meterRegistry) {
+        if (ageDays == 1) {
+            throw new IllegalArgumentException(
+                    "records.compaction.age-days must be 0 or at least 2, the previous day is still rebuilt");
+        }
+        this.recordRepository = recordRepository;
+        this.rollupService = rollupService;
+        this.ageDays = ageDays;
+        this.chunk = chunk;
+        this.pauseMs = pauseMs;
+        deleted = meterRegistry.counter("records.compaction.deleted");
+        compactTimer = meterRegistry.timer("records.compaction");
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return ageDays > 0;
+    }
+
+    @Override
+    public LocalDateTime compactedBefore() {
+        return LocalDate.now().minusDays(ageDays).atStartOfDay();
+    }
+
+    @Override
+    @Scheduled(cron = "${records.compaction.cron}")
+    public synchronized long compact() {
+        if (!isEnabled()) {
+            return 0;
+        }
+        LocalDateTime before = compactedBefore();
+        logger.info("[RECORD - COMPACTION] Compacting raw records before {}", before);
+        long total = compactTimer.record(() -> {
+            long rows = 0;
+            List<long[]> series = recordRepository.findSeries(EPOCH, before);
+            for (long[] ids : series) {
+                try {
+                    rows += compact(ids[0], ids[1], before);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            return rows;
+        });
+        logger.info("[RECORD - COMPACTION] Deleted {} raw records before {}", total, before);
+        return total;
+    }
+
+    private long compact(long sensorId, long variableId, LocalDateTime before)
+            throws InterruptedException {
+        try {
+            rollupService.ensureRolledUp(sensorId, variableId, EPOCH, before);
+        } catch (Exception e) {
+            logger.error("[RECORD - COMPACTION] Error checking rollups of sensor {} and variable {}. Raw records kept",
+                    sensorId, variableId, e);
+            return 0;
+        }
+        long rows = 0;
+        int count;
+        do {
+            count = recordRepository.deleteBefore(sensorId, variableId, before, chunk);
+            rows += count;
+            deleted.increment(count);
+            if (count == chunk && pauseMs > 0) {
+                Thread.sleep(pauseMs);
+            }
+        } while (count == chunk);
+        logger.debug("[RECORD - COMPACTION] Deleted {} raw records of sensor {} and variable {}",
+                rows, sensorId, variableId);
+        return rows;
+    }
+}
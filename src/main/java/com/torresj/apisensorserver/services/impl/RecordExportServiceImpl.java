@@ -0,0 +1,75 @@
+package com.torresj.apisensorserver.services.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.torresj.apisensorserver.export.BinaryRecordWriter;
+import com.torresj.apisensorserver.export.CsvRecordWriter;
+import com.torresj.apisensorserver.export.NdjsonRecordWriter;
+import com.torresj.apisensorserver.export.RecordWriter;
+import com.torresj.apisensorserver.models.RecordExportFormat;
+import com.torresj.apisensorserver.repositories.RecordRepository;
+import com.torresj.apisensorserver.services.RecordExportService;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Service;
+
+@Service
+public class RecordExportServiceImpl implements RecordExportService {
+
+    /* Logs */
+    private static final Logger logger = LogManager.getLogger(RecordExportServiceImpl.class);
+
+    private RecordRepository recordRepository;
+
+    private ObjectMapper objectMapper;
+
+    public RecordExportServiceImpl(RecordRepository recordRepository, ObjectMapper objectMapper) {
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void export(List<Long> sensorIds, Long variableId, LocalDate from, LocalDate to,
+            RecordExportFormat format, OutputStream out) throws IOException {
+        logger.debug("[RECORD EXPORT - SERVICE] Exporting {} records of sensors {} and variable {} from {} to {}",
+                format.getCode(), sensorIds, variableId, from, to);
+        RecordWriter writer = writer(format, out);
+        long[] count = { 0 };
+        try {
+            // Rows go straight from the cursor to the response, nothing is collected in between
+            recordRepository.forEachInRange(sensorIds, variableId, from.atStartOfDay(),
+                    to.plusDays(1).atStartOfDay(), record -> {
+                        try {
+                            writer.write(record);
+                            count[0]++;
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+        logger.debug("[RECORD EXPORT - SERVICE] Exported {} records of sensors {} and variable {}",
+                count[0], sensorIds, variableId);
+    }
+
+    private RecordWriter writer(RecordExportFormat format, OutputStream out) throws IOException {
+        switch (format) {
+            case CSV:
+                return new CsvRecordWriter(out);
+            case NDJSON:
+                return new NdjsonRecordWriter(objectMapper, out);
+            case BINARY:
+                return new BinaryRecordWriter(out);
+            default:
+                throw new IllegalArgumentException("Unsupported export format " + format.getCode());
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.torresj.apisensorserver.services.impl;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.torresj.apisensorserver.models.entities.Record;
+import com.torresj.apisensorserver.services.RecordIngestService;
+import com.torresj.apisensorserver.services.RecordService;
+import com.torresj.apisensorserver.spool.RecordSpool;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Write-behind ingestion of records. Submitted records wait on a bounded queue and a single
+ * writer thread flushes them through {@link RecordService#registerAll(List)} once a batch is
+ * full or the linger time since its first record has passed.
+ *
+ * <p>With the {@link RecordSpool} enabled, records are appended to the spool instead and the
+ * writer replays it in batches. A batch is only committed once written, so while the database
+ * fails the same batch is retried every retry-ms and nothing is lost, restarts included.
+ */
+@Service
+public class RecordIngestServiceImpl implements RecordIngestService {
+
+    /* Logs */
+    private static final Logger logger = LogManager.getLogger(RecordIngestServiceImpl.class);
+
+    private RecordService recordService;
+
+    private BlockingQueue<Record> queue;
+
+    private int batchSize;
+
+    private long lingerMs;
+
+    private OverflowPolicy overflowPolicy;
+
+    private long offerTimeoutMs;
+
+    private RecordSpool spool;
+
+    private long retryMs;
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    /* Metrics */
+    private Counter accepted;
+
+    private Counter dropped;
+
+    private Counter written;
+
+    private Counter failed;
+
+    private Counter retried;
+
+    private Timer flushTimer;
+
+    public RecordIngestServiceImpl(RecordService recordService, MeterRegistry meterRegistry,
+            @Value("${ingest.batch.size}") int batchSize,
+            @Value("${ingest.batch.linger-ms}") long lingerMs,
+            @Value("${ingest.queue.capacity}") int capacity,
+            @Value("${ingest.queue.overflow}") OverflowPolicy overflowPolicy,
+            @Value("${ingest.queue.offer-timeout-ms}") long offerTimeoutMs,
+            RecordSpool spool,
+            @Value("${ingest.spool.retry-ms}") long retryMs) {
+        this.recordService = recordService;
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        this.overflowPolicy = overflowPolicy;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.spool = spool;
+        this.retryMs = retryMs;
+
+        meterRegistry.gaugeCollectionSize("ingest.queue.size", Tags.empty(), queue);
+        accepted = meterRegistry.counter("ingest.records.accepted");
+        dropped = meterRegistry.counter("ingest.records.dropped");
+        written = meterRegistry.counter("ingest.records.written");
+        failed = meterRegistry.counter("ingest.records.failed");
+        retried = meterRegistry.counter("ingest.batch.retried");
+        flushTimer = meterRegistry.timer("ingest.batch.flush");
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(spool.isEnabled() ? this::replay : this::drain,
+                "record-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("[INGEST - SERVICE] Writer started. Batch size {}, linger {} ms, capacity {}, overflow {}",
+                batchSize, lingerMs, queue.size() + queue.remainingCapacity(), overflowPolicy);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        // Wakes the writer if it is waiting on the queue, it still drains what is left
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        logger.info("[INGEST - SERVICE] Writer stopped. Records left in queue: {}", queue.size());
+    }
+
+    @Override
+    public boolean submit(Record record) {
+        if (record.getCreateAt() == null) {
+            record.setCreateAt(LocalDateTime.now());
+        }
+        boolean queued;
+        if (spool.isEnabled()) {
+            try {
+                queued = spool.append(record);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.error("[INGEST - SERVICE] Error appending record to the spool", e);
+                queued = false;
+            }
+        } else if (overflowPolicy == OverflowPolicy.BLOCK) {
+            try {
+                queued = queue.offer(record, offerTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+        } else {
+            queued = queue.offer(record);
+        }
+
+        if (queued) {
+            accepted.increment();
+        } else {
+            dropped.increment();
+            logger.warn("[INGEST - SERVICE] Queue full. Record dropped: {}", record);
+        }
+        return queued;
+    }
+
+    @Override
+    public int pending() {
+        return spool.isEnabled() ? (int) spool.depth() : queue.size();
+    }
+
+    private void replay() {
+        boolean lingered = false;
+        while (running) {
+            List<Record> batch = spool.read(batchSize);
+            try {
+                if (batch.size() < batchSize && !lingered) {
+                    // A partial batch waits once for the linger time to fill up
+                    lingered = true;
+                    Thread.sleep(lingerMs);
+                } else {
+                    lingered = false;
+                    if (!batch.isEmpty() && !replay(batch)) {
+                        Thread.sleep(retryMs);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Whatever wasn't committed stays in the spool for the next start
+                running = false;
+            }
+        }
+    }
+
+    private boolean replay(List<Record> batch) {
+        // A pending stop must not abort the write, the interrupt is restored once it is done
+        boolean interrupted = Thread.interrupted();
+        try {
+            List<Record> saved = flushTimer.recordCallable(() -> recordService.registerAll(batch));
+            spool.commit(batch.size());
+            written.increment(saved.size());
+            failed.increment(batch.size() - saved.size());
+            return true;
+        } catch (Exception e) {
+            retried.increment();
+            logger.error("[INGEST - SERVICE] Error writing batch of {} spooled records, retrying in {} ms",
+                    batch.size(), retryMs, e);
+            return false;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void drain() {
+        List<Record> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                // Once stopping, whatever is left is written without lingering
+                Record first = running ? queue.poll(lingerMs, TimeUnit.MILLISECONDS) : queue.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    Record next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Stop accepting the wait but still write what was already taken from the queue
+                running = false;
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Record> batch) {
+        // A pending stop must not abort the write, the interrupt is restored once it is done
+        boolean interrupted = Thread.interrupted();
+        try {
+            List<Record> saved = flushTimer.recordCallable(() -> recordService.registerAll(batch));
+            written.increment(saved.size());
+            failed.increment(batch.size() - saved.size());
+        } catch (Exception e) {
+            failed.increment(batch.size());
+            logger.error("[INGEST - SERVICE] Error writing batch of {} records", batch.size(), e);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
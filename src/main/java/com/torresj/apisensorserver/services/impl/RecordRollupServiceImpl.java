@@ -0,0 +1,343 @@
+package com.torresj.apisensorserver.services.impl;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import com.torresj.apisensorserver.models.AggregationBucket;
+import com.torresj.apisensorserver.models.RecordAggregate;
+import com.torresj.apisensorserver.models.entities.Record;
+import com.torresj.apisensorserver.models.entities.RecordRollup;
+import com.torresj.apisensorserver.repositories.RecordRepository;
+import com.torresj.apisensorserver.repositories.RecordRollupRepository;
+import com.torresj.apisensorserver.services.RecordCompactionService;
+import com.torresj.apisensorserver.services.RecordRollupService;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Keeps minute, hour and day rollups of the ingested records. Records are folded into in-memory
+ * accumulators per series and a scheduled flush merges them into the {@link RecordRollup} rows.
+ * Reads combine the stored rows with what is still pending, so results don't wait for the next
+ * flush.
+ *
+ * <p>Pending buckets only live in memory, so a crash loses up to {@code rollup.flush-ms} of them
+ * while the raw records are safe. The nightly rebuild recomputes the previous day from the raw
+ * records, and the first start with an empty rollup table backfills every closed day. Days whose
+ * raw records were compacted are never rebuilt, their rollups are all that is left of them.
+ */
+@Service
+public class RecordRollupServiceImpl implements RecordRollupService {
+
+    /* Logs */
+    private static final Logger logger = LogManager.getLogger(RecordRollupServiceImpl.class);
+
+    /* Stored resolutions, coarsest first */
+    private static final AggregationBucket[] RESOLUTIONS = { AggregationBucket.DAY,
+            AggregationBucket.HOUR, AggregationBucket.MINUTE };
+
+    private RecordRollupRepository rollupRepository;
+
+    private RecordRepository recordRepository;
+
+    /* Pending buckets by series. A series is locked while it is flushed, read or rebuilt */
+    private Map<SeriesKey, Map<BucketKey, RecordAggregate>> pending = new ConcurrentHashMap<>();
+
+    private RecordCompactionService compactionService;
+
+    private AtomicInteger pendingBuckets;
+
+    private Timer flushTimer;
+
+    public RecordRollupServiceImpl(RecordRollupRepository rollupRepository,
+            RecordRepository recordRepository, RecordCompactionService compactionService,
+            MeterRegistry meterRegistry) {
+        this.rollupRepository = rollupRepository;
+        this.recordRepository = recordRepository;
+        this.compactionService = compactionService;
+        pendingBuckets = meterRegistry.gauge("rollup.pending", new AtomicInteger());
+        flushTimer = meterRegistry.timer("rollup.flush");
+    }
+
+    @Override
+    public void add(List<Record> records) {
+        for (Record record : records) {
+            Map<BucketKey, RecordAggregate> buckets = series(record.getSensorId(),
+                    record.getVariableId());
+            synchronized (buckets) {
+                for (AggregationBucket resolution : RESOLUTIONS) {
+                    LocalDateTime bucket = resolution.floor(record.getCreateAt());
+                    buckets.computeIfAbsent(new BucketKey(resolution, bucket), k -> {
+                        pendingBuckets.incrementAndGet();
+                        return new RecordAggregate(bucket);
+                    }).add(record.getValue(), record.getCreateAt());
+                }
+            }
+        }
+    }
+
+    @Override
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${rollup.flush-ms}")
+    public synchronized void flush() {
+        if (pendingBuckets.get() == 0) {
+            return;
+        }
+        flushTimer.record(() -> {
+            int rows = 0;
+            for (Entry<SeriesKey, Map<BucketKey, RecordAggregate>> series : pending.entrySet()) {
+                SeriesKey key = series.getKey();
+                Map<BucketKey, RecordAggregate> buckets = series.getValue();
+                // Buckets leave memory only once their row is saved, so reads never miss them
+                synchronized (buckets) {
+                    Iterator<Entry<BucketKey, RecordAggregate>> it = buckets.entrySet().iterator();
+                    while (it.hasNext()) {
+                        Entry<BucketKey, RecordAggregate> entry = it.next();
+                        BucketKey bucket = entry.getKey();
+                        try {
+                            RecordRollup rollup = rollupRepository
+                                    .findBySensorIdAndVariableIdAndResolutionAndBucket(key.sensorId,
+                                            key.variableId, bucket.resolution, bucket.bucket)
+                                    .orElseGet(() -> new RecordRollup(key.sensorId, key.variableId,
+                                            bucket.resolution, new RecordAggregate(bucket.bucket)));
+                            rollup.merge(entry.getValue());
+                            rollupRepository.save(rollup);
+                            it.remove();
+                            pendingBuckets.decrementAndGet();
+                            rows++;
+                        } catch (Exception e) {
+                            logger.error(
+                                    "[ROLLUP - SERVICE] Error flushing rollups of sensor {} and variable {}. Kept for next flush",
+                                    key.sensorId, key.variableId, e);
+                            break;
+                        }
+                    }
+                }
+            }
+            logger.debug("[ROLLUP - SERVICE] Flushed {} rollups", rows);
+        });
+    }
+
+    @Override
+    public List<RecordAggregate> getAggregates(long sensorId, long variableId,
+            AggregationBucket bucket, LocalDateTime from, LocalDateTime to) {
+        AggregationBucket resolution = resolutionFor(bucket);
+        logger.debug("[ROLLUP - SERVICE] Reading {} buckets from {} rollups of sensor {} and variable {}",
+                bucket.getCode(), resolution.getCode(), sensorId, variableId);
+
+        TreeMap<LocalDateTime, RecordAggregate> aggregates = new TreeMap<>();
+        Map<BucketKey, RecordAggregate> buckets = pending.get(new SeriesKey(sensorId, variableId));
+        if (buckets == null) {
+            readRollups(aggregates, sensorId, variableId, bucket, resolution, from, to);
+        } else {
+            synchronized (buckets) {
+                readRollups(aggregates, sensorId, variableId, bucket, resolution, from, to);
+                buckets.forEach((key, aggregate) -> {
+                    if (inRange(key, resolution, from, to)) {
+                        fold(aggregates, bucket, aggregate);
+                    }
+                });
+            }
+        }
+        return new ArrayList<>(aggregates.values());
+    }
+
+    @Override
+    public Page<Record> getSummaries(long sensorId, long variableId, LocalDateTime from,
+            LocalDateTime to, Pageable pageable) {
+        Pageable newestFirst = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                Sort.by("bucket").descending());
+        return rollupRepository
+                .findBySensorIdAndVariableIdAndResolutionAndBucketGreaterThanEqualAndBucketLessThan(
+                        sensorId, variableId, AggregationBucket.MINUTE, from, to, newestFirst)
+                .map(rollup -> new Record(null, sensorId, variableId, rollup.toAggregate().getAvg(),
+                        rollup.getBucket(), rollup.getBucket()));
+    }
+
+    @Override
+    public synchronized void rebuild(LocalDateTime from, LocalDateTime to) {
+        if (compactionService.isEnabled() && from.isBefore(compactionService.compactedBefore())) {
+            from = compactionService.compactedBefore();
+            if (!from.isBefore(to)) {
+                logger.info("[ROLLUP - SERVICE] Rollups until {} are compacted, not rebuilt", to);
+                return;
+            }
+        }
+        logger.info("[ROLLUP - SERVICE] Rebuilding rollups from {} to {}", from, to);
+        flush();
+        List<long[]> series = recordRepository.findSeries(from, to);
+        for (long[] ids : series) {
+            rebuild(ids[0], ids[1], from, to);
+        }
+        logger.info("[ROLLUP - SERVICE] Rebuilt rollups of {} series from {} to {}", series.size(),
+                from, to);
+    }
+
+    @Override
+    public synchronized int ensureRolledUp(long sensorId, long variableId, LocalDateTime from,
+            LocalDateTime to) {
+        Map<LocalDate, Long> raw = recordRepository.countPerDay(sensorId, variableId, from, to);
+        if (raw.isEmpty()) {
+            return 0;
+        }
+        flush();
+        Map<LocalDateTime, Long> rolledUp = new HashMap<>();
+        rollupRepository
+                .findBySensorIdAndVariableIdAndResolutionAndBucketGreaterThanEqualAndBucketLessThanOrderByBucket(
+                        sensorId, variableId, AggregationBucket.DAY,
+                        raw.keySet().iterator().next().atStartOfDay(), to)
+                .forEach(rollup -> rolledUp.put(rollup.getBucket(), rollup.getValueCount()));
+
+        int rebuilt = 0;
+        for (Entry<LocalDate, Long> day : raw.entrySet()) {
+            LocalDateTime start = day.getKey().atStartOfDay();
+            // Records received late for a compacted day leave more in the rollups than raw
+            if (rolledUp.getOrDefault(start, 0L) < day.getValue()) {
+                logger.warn("[ROLLUP - SERVICE] Rollups of sensor {} and variable {} miss records of {}. Rebuilding",
+                        sensorId, variableId, day.getKey());
+                rebuild(sensorId, variableId, start, start.plusDays(1));
+                rebuilt++;
+            }
+        }
+        return rebuilt;
+    }
+
+    @Scheduled(cron = "${rollup.rebuild-cron}")
+    public void rebuildYesterday() {
+        LocalDate today = LocalDate.now();
+        rebuild(today.minusDays(1).atStartOfDay(), today.atStartOfDay());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (rollupRepository.count() > 0) {
+            return;
+        }
+        recordRepository.findFirstByOrderByCreateAtAsc().ifPresent(first -> {
+            // Today is left to the nightly rebuild, records are still arriving for it
+            LocalDate today = LocalDate.now();
+            for (LocalDate day = first.getCreateAt().toLocalDate(); day.isBefore(today);
+                    day = day.plusDays(1)) {
+                rebuild(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+            }
+        });
+    }
+
+    private void rebuild(long sensorId, long variableId, LocalDateTime from, LocalDateTime to) {
+        Map<BucketKey, RecordAggregate> buckets = series(sensorId, variableId);
+        synchronized (buckets) {
+            List<RecordAggregate> minutes = recordRepository
+                    .aggregate(sensorId, variableId, from, to, AggregationBucket.MINUTE);
+            for (AggregationBucket resolution : RESOLUTIONS) {
+                Map<LocalDateTime, RecordAggregate> computed = new TreeMap<>();
+                minutes.forEach(minute -> fold(computed, resolution, minute));
+
+                List<RecordRollup> rows = rollupRepository
+                        .findBySensorIdAndVariableIdAndResolutionAndBucketGreaterThanEqualAndBucketLessThanOrderByBucket(
+                                sensorId, variableId, resolution, from, to);
+                List<RecordRollup> stale = new ArrayList<>();
+                List<RecordRollup> updated = new ArrayList<>();
+                for (RecordRollup row : rows) {
+                    RecordAggregate aggregate = computed.remove(row.getBucket());
+                    if (aggregate == null) {
+                        stale.add(row);
+                    } else {
+                        row.replace(aggregate);
+                        updated.add(row);
+                    }
+                }
+                computed.values().forEach(aggregate -> updated
+                        .add(new RecordRollup(sensorId, variableId, resolution, aggregate)));
+                rollupRepository.deleteAll(stale);
+                rollupRepository.saveAll(updated);
+
+                // Raw records are saved before they are added here, so the rebuild already holds them
+                buckets.keySet().removeIf(key -> {
+                    boolean covered = inRange(key, resolution, from, to);
+                    if (covered) {
+                        pendingBuckets.decrementAndGet();
+                    }
+                    return covered;
+                });
+            }
+        }
+    }
+
+    private Map<BucketKey, RecordAggregate> series(long sensorId, long variableId) {
+        return pending.computeIfAbsent(new SeriesKey(sensorId, variableId), k -> new HashMap<>());
+    }
+
+    private void readRollups(Map<LocalDateTime, RecordAggregate> aggregates, long sensorId,
+            long variableId, AggregationBucket bucket, AggregationBucket resolution,
+            LocalDateTime from, LocalDateTime to) {
+        rollupRepository
+                .findBySensorIdAndVariableIdAndResolutionAndBucketGreaterThanEqualAndBucketLessThanOrderByBucket(
+                        sensorId, variableId, resolution, from, to)
+                .forEach(rollup -> fold(aggregates, bucket, rollup.toAggregate()));
+    }
+
+    /* Coarsest stored resolution the requested bucket is a multiple of */
+    private AggregationBucket resolutionFor(AggregationBucket bucket) {
+        for (AggregationBucket resolution : RESOLUTIONS) {
+            if (bucket.getSeconds() % resolution.getSeconds() == 0) {
+                return resolution;
+            }
+        }
+        throw new IllegalArgumentException("No rollup for bucket " + bucket.getCode());
+    }
+
+    private boolean inRange(BucketKey key, AggregationBucket resolution, LocalDateTime from,
+            LocalDateTime to) {
+        return key.resolution == resolution && !key.bucket.isBefore(from) && key.bucket.isBefore(to);
+    }
+
+    private void fold(Map<LocalDateTime, RecordAggregate> aggregates, AggregationBucket bucket,
+            RecordAggregate aggregate) {
+        if (aggregate.getCount() > 0) {
+            aggregates.computeIfAbsent(bucket.floor(aggregate.getBucket()), RecordAggregate::new)
+                    .merge(aggregate);
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class SeriesKey {
+
+        private long sensorId;
+
+        private long variableId;
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class BucketKey {
+
+        private AggregationBucket resolution;
+
+        private LocalDateTime bucket;
+    }
+}
@@ -1,25 +1,42 @@
 package com.torresj.apisensorserver.services.impl;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import com.torresj.apisensorserver.cache.ExistenceCache;
+import com.torresj.apisensorserver.cache.LatestValueStore;
+import com.torresj.apisensorserver.cache.RecentRecordKeys;
+import com.torresj.apisensorserver.cache.VisibilityIndex;
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
+import com.torresj.apisensorserver.models.AggregationBucket;
+import com.torresj.apisensorserver.models.RecordAggregate;
+import com.torresj.apisensorserver.models.RecordCursor;
+import com.torresj.apisensorserver.models.RecordSlice;
 import com.torresj.apisensorserver.models.entities.Record;
-import com.torresj.apisensorserver.models.entities.User;
-import com.torresj.apisensorserver.repositories.HouseRepository;
 import com.torresj.apisensorserver.repositories.RecordRepository;
-import com.torresj.apisensorserver.repositories.SensorRepository;
-import com.torresj.apisensorserver.repositories.UserHouseRelationRepository;
-import com.torresj.apisensorserver.repositories.UserRepository;
-import com.torresj.apisensorserver.repositories.VariableRepository;
+import com.torresj.apisensorserver.services.RecordCompactionService;
+import com.torresj.apisensorserver.services.RecordRollupService;
 import com.torresj.apisensorserver.services.RecordService;
+import com.torresj.apisensorserver.websocket.RecordPublisher;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class RecordServiceImpl implements RecordService {
@@ -27,33 +44,44 @@ public class RecordServiceImpl implements RecordService {
     /* Logs */
     private static final Logger logger = LogManager.getLogger(RecordServiceImpl.class);
 
+    /* Upper bound of buckets a single aggregate request may span */
+    public static final long MAX_BUCKETS = 20000;
+
+    /* Upper bound of records a single slice may hold */
+    public static final int MAX_SLICE = 1000;
+
     private RecordRepository recordRespository;
 
-    private VariableRepository variableRepository;
+    private RecordPublisher publisher;
+
+    private ExistenceCache existenceCache;
 
-    private SensorRepository sensorRepository;
+    private VisibilityIndex visibilityIndex;
 
-    private UserRepository userRepository;
+    private RecordRollupService rollupService;
 
-    private UserHouseRelationRepository userHouseRelationRepository;
+    private LatestValueStore latestValues;
 
-    private HouseRepository houseRepository;
+    private RecentRecordKeys recentKeys;
 
-    private SimpMessagingTemplate template;
+    private RecordCompactionService compactionService;
 
     public RecordServiceImpl(RecordRepository recordRespository,
-            VariableRepository variableRepository, SensorRepository sensorRepository,
-            UserRepository userRepository,
-            UserHouseRelationRepository userHouseRelationRepository,
-            HouseRepository houseRepository,
-            SimpMessagingTemplate template) {
+            RecordPublisher publisher,
+            ExistenceCache existenceCache,
+            VisibilityIndex visibilityIndex,
+            RecordRollupService rollupService,
+            LatestValueStore latestValues,
+            RecentRecordKeys recentKeys,
+            RecordCompactionService compactionService) {
         this.recordRespository = recordRespository;
-        this.variableRepository = variableRepository;
-        this.sensorRepository = sensorRepository;
-        this.userRepository = userRepository;
-        this.userHouseRelationRepository = userHouseRelationRepository;
-        this.houseRepository = houseRepository;
-        this.template = template;
+        this.publisher = publisher;
+        this.existenceCache = existenceCache;
+        this.visibilityIndex = visibilityIndex;
+        this.rollupService = rollupService;
+        this.latestValues = latestValues;
+        this.recentKeys = recentKeys;
+        this.compactionService = compactionService;
     }
 
     @Override
@@ -61,22 +89,102 @@ public class RecordServiceImpl implements RecordService {
         logger.debug("[RECORD - SERVICE] Service for save new record start. {} ", record);
         // Try to find variable and sensor
         logger.debug("[RECORD - SERVICE] Searching sensor {} ", record.getSensorId());
-        sensorRepository.findById(record.getSensorId()).orElseThrow(EntityNotFoundException::new);
+        if (!existenceCache.sensorExists(record.getSensorId())) {
+            throw new EntityNotFoundException();
+        }
         logger.debug("[RECORD - SERVICE] Searching variable {} ", record.getVariableId());
-        variableRepository.findById(record.getVariableId()).orElseThrow(EntityNotFoundException::new);
+        if (!existenceCache.variableExists(record.getVariableId())) {
+            throw new EntityNotFoundException();
+        }
+        if (recentKeys.filter(Collections.singletonList(record)).isEmpty()) {
+            logger.debug("[RECORD - SERVICE] Record already stored, skipped. {} ", record);
+            return record;
+        }
 
         Record entity = recordRespository.save(record);
-
-        String destination = "/topic/station/" + record.getSensorId();
-        logger.debug(
-                "[RECORD - SERVICE] Sending data to destination /topic/station/" + record.getSensorId());
-        template.convertAndSend(destination, record);
+        recentKeys.addAll(Collections.singletonList(entity));
+        rollupService.add(Collections.singletonList(entity));
+        latestValues.update(entity);
+        publisher.publish(Collections.singletonList(entity));
 
         logger.debug("[RECORD - SERVICE] Service for save new record end. {} ", record);
         return entity;
     }
 
     @Override
+    public List<Record> registerAll(List<Record> records) {
+        logger.debug("[RECORD - SERVICE] Service for save {} records start", records.size());
+        Set<Long> sensorIds = records.stream().map(Record::getSensorId).collect(Collectors.toSet());
+        Set<Long> variableIds = records.stream().map(Record::getVariableId)
+                .collect(Collectors.toSet());
+        logger.debug("[RECORD - SERVICE] Searching sensors {} and variables {}", sensorIds,
+                variableIds);
+        Set<Long> sensors = sensorIds.stream().filter(existenceCache::sensorExists)
+                .collect(Collectors.toSet());
+        Set<Long> variables = variableIds.stream().filter(existenceCache::variableExists)
+                .collect(Collectors.toSet());
+
+        List<Record> valid = records.stream().filter(record -> {
+            boolean exists = sensors.contains(record.getSensorId()) && variables
+                    .contains(record.getVariableId());
+            if (!exists) {
+                logger.error("[RECORD - SERVICE] Sensor or variable not found for record {}", record);
+            }
+            return exists;
+        }).collect(Collectors.toList());
+
+        // Redeliveries of records stored lately never reach the database
+        List<Record> fresh = recentKeys.filter(valid);
+        if (fresh.size() < valid.size()) {
+            logger.debug("[RECORD - SERVICE] Skipped {} records already stored",
+                    valid.size() - fresh.size());
+        }
+
+        List<Record> saved = saveBatch(fresh);
+        recentKeys.addAll(saved);
+        if (!saved.isEmpty()) {
+            rollupService.add(saved);
+            saved.forEach(latestValues::update);
+            publisher.publish(saved);
+        }
+
+        logger.debug("[RECORD - SERVICE] Service for save {} records end. Saved: {}", records.size(),
+                saved.size());
+        return saved;
+    }
+
+    /* A failed batch is rolled back as a whole, so it is retried row by row to lose only bad rows */
+    private List<Record> saveBatch(List<Record> records) {
+        if (records.isEmpty()) {
+            return records;
+        }
+        try {
+            recordRespository.saveBatch(records);
+            return records;
+        } catch (DuplicateKeyException e) {
+            logger.debug("[RECORD - SERVICE] Batch of {} records holds stored ones. Retrying one by one",
+                    records.size());
+        } catch (DataAccessException e) {
+            logger.error("[RECORD - SERVICE] Error saving batch of {} records. Retrying one by one",
+                    records.size(), e);
+        }
+        List<Record> saved = new ArrayList<>(records.size());
+        for (Record record : records) {
+            try {
+                recordRespository.saveBatch(Collections.singletonList(record));
+                saved.add(record);
+            } catch (DuplicateKeyException e) {
+                logger.debug("[RECORD - SERVICE] Record already stored, skipped. {}", record);
+                recentKeys.duplicate(record);
+            } catch (DataAccessException e) {
+                logger.error("[RECORD - SERVICE] Error saving record {}", record, e);
+            }
+        }
+        return saved;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Page<Record> getRecords(long sensorId, long variableId, int pageNumber,
             int numberOfElements, LocalDate from, LocalDate to) {
 
@@ -87,10 +195,12 @@ public class RecordServiceImpl implements RecordService {
         PageRequest pageRequest = PageRequest
                 .of(pageNumber, numberOfElements, Sort.by("createAt").descending());
 
-        Page<Record> page = recordRespository
-                .findBySensorIdAndVariableIdAndCreateAtBetween(sensorId, variableId, from.atStartOfDay(),
-                        to.atTime(23, 59),
-                        pageRequest);
+        Page<Record> page = isCompacted(from)
+                ? getCompactedRecords(sensorId, variableId, from.atStartOfDay(), to.atTime(23, 59),
+                pageRequest)
+                : recordRespository
+                        .findBySensorIdAndVariableIdAndCreateAtBetween(sensorId, variableId,
+                                from.atStartOfDay(), to.atTime(23, 59), pageRequest);
 
         logger.debug(
                 "[RECORD - SERVICE] Service for get records from sensor {} and variable {} end. Records: ",
@@ -101,6 +211,127 @@ public class RecordServiceImpl implements RecordService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public RecordSlice getRecordSlice(long sensorId, long variableId, int numberOfElements,
+            LocalDate from, LocalDate to, String cursor) {
+        logger.debug(
+                "[RECORD - SERVICE] Service for get record slice from sensor {} and variable {} start",
+                sensorId, variableId);
+        if (numberOfElements <= 0 || numberOfElements > MAX_SLICE) {
+            throw new IllegalArgumentException(
+                    "Elements must be between 1 and " + MAX_SLICE + ", got " + numberOfElements);
+        }
+
+        // No cursor starts right before the end of the range, id 0 excludes the end itself
+        RecordCursor position = cursor != null ? RecordCursor.decode(cursor)
+                : new RecordCursor(to.plusDays(1).atStartOfDay(), 0);
+        Slice<Record> slice = isCompacted(from)
+                ? getCompactedSlice(sensorId, variableId, from.atStartOfDay(), position,
+                numberOfElements)
+                : recordRespository.findSliceBefore(sensorId, variableId, from.atStartOfDay(),
+                        position.getCreateAt(), position.getId(), PageRequest.of(0, numberOfElements));
+
+        List<Record> content = slice.getContent();
+        String next = slice.hasNext() ? RecordCursor.of(content.get(content.size() - 1)).encode()
+                : null;
+
+        logger.debug(
+                "[RECORD - SERVICE] Service for get record slice from sensor {} and variable {} end. Records: {}",
+                sensorId, variableId, content.size());
+        return new RecordSlice(content, slice.hasNext(), next);
+    }
+
+    private boolean isCompacted(LocalDate from) {
+        return compactionService.isEnabled()
+                && from.atStartOfDay().isBefore(compactionService.compactedBefore());
+    }
+
+    /* Raw records from the compaction boundary on, followed by the summaries before it */
+    private Page<Record> getCompactedRecords(long sensorId, long variableId, LocalDateTime from,
+            LocalDateTime to, PageRequest pageRequest) {
+        LocalDateTime boundary = compactionService.compactedBefore();
+        List<Record> content = new ArrayList<>(pageRequest.getPageSize());
+        long rawTotal = 0;
+        if (!to.isBefore(boundary)) {
+            Page<Record> raw = recordRespository
+                    .findBySensorIdAndVariableIdAndCreateAtBetween(sensorId, variableId, boundary,
+                            to, pageRequest);
+            content.addAll(raw.getContent());
+            rawTotal = raw.getTotalElements();
+        }
+
+        // Summaries go on right after the last raw record, which is rarely at a page start
+        LocalDateTime summariesTo = to.isBefore(boundary) ? to.plusNanos(1) : boundary;
+        long offset = Math.max(0, pageRequest.getOffset() + content.size() - rawTotal);
+        int size = pageRequest.getPageSize();
+        Page<Record> summaries = rollupService.getSummaries(sensorId, variableId, from,
+                summariesTo, PageRequest.of((int) (offset / size), size));
+        int skip = (int) (offset % size);
+        List<Record> rows = new ArrayList<>(summaries.getContent());
+        if (summaries.hasNext() && rows.size() - skip < size - content.size()) {
+            rows.addAll(rollupService.getSummaries(sensorId, variableId, from, summariesTo,
+                    summaries.nextPageable()).getContent());
+        }
+        for (int i = skip; i < rows.size() && content.size() < size; i++) {
+            content.add(rows.get(i));
+        }
+        return new PageImpl<>(content, pageRequest, rawTotal + summaries.getTotalElements());
+    }
+
+    /* Keyset slice over the raw records from the compaction boundary on and then the summaries */
+    private Slice<Record> getCompactedSlice(long sensorId, long variableId, LocalDateTime from,
+            RecordCursor position, int numberOfElements) {
+        LocalDateTime boundary = compactionService.compactedBefore();
+        List<Record> content = new ArrayList<>(numberOfElements);
+        if (!position.getCreateAt().isBefore(boundary)) {
+            Slice<Record> raw = recordRespository.findSliceBefore(sensorId, variableId, boundary,
+                    position.getCreateAt(), position.getId(), PageRequest.of(0, numberOfElements));
+            if (raw.hasNext()) {
+                return raw;
+            }
+            content.addAll(raw.getContent());
+        }
+
+        LocalDateTime summariesTo = position.getCreateAt().isBefore(boundary)
+                ? position.getCreateAt() : boundary;
+        int left = numberOfElements - content.size();
+        Page<Record> summaries = rollupService.getSummaries(sensorId, variableId, from,
+                summariesTo, PageRequest.of(0, Math.max(left, 1)));
+        if (left > 0) {
+            content.addAll(summaries.getContent());
+            return new SliceImpl<>(content, PageRequest.of(0, numberOfElements),
+                    summaries.hasNext());
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, numberOfElements),
+                summaries.hasContent());
+    }
+
+    @Override
+    public List<RecordAggregate> getAggregates(long sensorId, long variableId,
+            AggregationBucket bucket, LocalDate from, LocalDate to) {
+        logger.debug(
+                "[RECORD - SERVICE] Service for get {} aggregates from sensor {} and variable {} start",
+                bucket.getCode(), sensorId, variableId);
+
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        long buckets = Duration.between(start, end).getSeconds() / bucket.getSeconds();
+        if (buckets <= 0 || buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException(
+                    "Range must span between 1 and " + MAX_BUCKETS + " buckets, got " + buckets);
+        }
+
+        List<RecordAggregate> aggregates = rollupService
+                .getAggregates(sensorId, variableId, bucket, start, end);
+
+        logger.debug(
+                "[RECORD - SERVICE] Service for get {} aggregates from sensor {} and variable {} end. Buckets: {}",
+                bucket.getCode(), sensorId, variableId, aggregates.size());
+        return aggregates;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Record getRecord(long id) throws EntityNotFoundException {
 
         logger.debug("[RECORD - SERVICE]  Service for get record {} start", id);
@@ -111,18 +342,14 @@ public class RecordServiceImpl implements RecordService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean hasUserVisibilityRecord(String name, long id) throws EntityNotFoundException {
         logger
                 .debug("[RECORD - SERVICE] Service for check if user {} has visibility for record {} start",
                         name, id);
-        logger.debug("[RECORD - SERVICE] Searching user {}", name);
-        User user = userRepository.findByUsername(name).get();
         logger.debug("[RECORD - SERVICE] Searching record {}", id);
         Record record = recordRespository.findById(id).orElseThrow(EntityNotFoundException::new);
-        boolean hasVisibility = userHouseRelationRepository.findByUserId(user.getId()).stream()
-                .map(userHouseRelation -> houseRepository.findById(userHouseRelation.getHouseId()).get())
-                .flatMap(house -> sensorRepository.findByHouseId(house.getId()).stream())
-                .anyMatch(sensor -> sensor.getId() == record.getSensorId());
+        boolean hasVisibility = visibilityIndex.canSeeSensor(name, record.getSensorId());
         logger
                 .debug(
                         "[RECORD - SERVICE] Service for check if user {} has visibility for record {} end. Result: {}",
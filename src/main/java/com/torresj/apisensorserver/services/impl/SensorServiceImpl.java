@@ -1,34 +1,35 @@
 package com.torresj.apisensorserver.services.impl;
 
-import java.io.IOException;
-import java.io.OutputStream;
-import java.io.PrintWriter;
-import java.net.InetAddress;
-import java.net.Socket;
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.torresj.apisensorserver.action.ActionDispatcher;
+import com.torresj.apisensorserver.cache.ExistenceCache;
+import com.torresj.apisensorserver.cache.LatestValueStore;
+import com.torresj.apisensorserver.cache.SensorTypeActions;
+import com.torresj.apisensorserver.cache.VisibilityIndex;
 import com.torresj.apisensorserver.exceptions.ActionException;
 import com.torresj.apisensorserver.exceptions.EntityAlreadyExistsException;
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
-import com.torresj.apisensorserver.models.SocketMessage;
+import com.torresj.apisensorserver.models.ActionDelivery;
+import com.torresj.apisensorserver.models.ActionDelivery.Status;
+import com.torresj.apisensorserver.models.ActionReport;
+import com.torresj.apisensorserver.models.LatestValue;
 import com.torresj.apisensorserver.models.entities.Sensor;
-import com.torresj.apisensorserver.models.entities.SensorType;
-import com.torresj.apisensorserver.models.entities.User;
 import com.torresj.apisensorserver.models.entities.Variable;
 import com.torresj.apisensorserver.models.entities.VariableSensorRelation;
-import com.torresj.apisensorserver.repositories.HouseRepository;
 import com.torresj.apisensorserver.repositories.SensorRepository;
 import com.torresj.apisensorserver.repositories.SensorTypeRepository;
-import com.torresj.apisensorserver.repositories.UserHouseRelationRepository;
-import com.torresj.apisensorserver.repositories.UserRepository;
 import com.torresj.apisensorserver.repositories.VariableRepository;
 import com.torresj.apisensorserver.repositories.VariableSensorRelationRepository;
 import com.torresj.apisensorserver.services.SensorService;
@@ -40,6 +41,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class SensorServiceImpl implements SensorService {
@@ -49,8 +51,9 @@ public class SensorServiceImpl implements SensorService {
 
     private static final String RESET = "reset";
 
-    @Value("${socket.port}")
-    private int socketPort;
+    /* Bulk actions wait up to this for their deliveries before reporting */
+    @Value("${action.bulk.wait-ms}")
+    private long bulkWaitMs;
 
     private SensorRepository sensorRepository;
 
@@ -60,29 +63,38 @@ public class SensorServiceImpl implements SensorService {
 
     private SensorTypeRepository sensorTypeRepository;
 
-    private HouseRepository houseRepository;
+    private ExistenceCache existenceCache;
 
-    private UserRepository userRepository;
+    private VisibilityIndex visibilityIndex;
 
-    private UserHouseRelationRepository userHouseRelationRepository;
+    private LatestValueStore latestValues;
+
+    private ActionDispatcher actionDispatcher;
+
+    private SensorTypeActions sensorTypeActions;
 
     public SensorServiceImpl(SensorRepository sensorRepository,
             VariableRepository variableRepository,
             VariableSensorRelationRepository variableSensorRelationRepository,
             SensorTypeRepository sensorTypeRepository,
-            HouseRepository houseRepository,
-            UserRepository userRepository,
-            UserHouseRelationRepository userHouseRelationRepository) {
+            ExistenceCache existenceCache,
+            VisibilityIndex visibilityIndex,
+            LatestValueStore latestValues,
+            ActionDispatcher actionDispatcher,
+            SensorTypeActions sensorTypeActions) {
         this.sensorRepository = sensorRepository;
         this.variableRepository = variableRepository;
         this.variableSensorRelationRepository = variableSensorRelationRepository;
         this.sensorTypeRepository = sensorTypeRepository;
-        this.houseRepository = houseRepository;
-        this.userRepository = userRepository;
-        this.userHouseRelationRepository = userHouseRelationRepository;
+        this.existenceCache = existenceCache;
+        this.visibilityIndex = visibilityIndex;
+        this.latestValues = latestValues;
+        this.actionDispatcher = actionDispatcher;
+        this.sensorTypeActions = sensorTypeActions;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Sensor> getSensors(int nPage, int elements) {
         logger.debug("[SENSOR - SERVICE] Service for getting sensors start");
         PageRequest pageRequest = PageRequest.of(nPage, elements, Sort.by("createAt").descending());
@@ -93,6 +105,7 @@ public class SensorServiceImpl implements SensorService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Sensor> getSensors(int nPage, int elements, Long sensorTypeId, String filter)
             throws EntityNotFoundException {
         logger.debug(
@@ -107,6 +120,7 @@ public class SensorServiceImpl implements SensorService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Sensor> getSensors(int nPage, int elements, Long sensorTypeId)
             throws EntityNotFoundException {
         logger.debug(
@@ -121,6 +135,7 @@ public class SensorServiceImpl implements SensorService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Sensor> getSensors(int nPage, int elements, String filter) {
         logger.debug(
                 "[SENSOR - SERVICE] Service for getting sensors filtered with {} start",
@@ -134,6 +149,7 @@ public class SensorServiceImpl implements SensorService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Sensor> getSensors() {
         logger.debug("[SENSOR - SERVICE] Service for getting sensors start");
         List<Sensor> sensors = sensorRepository.findAll();
@@ -143,6 +159,7 @@ public class SensorServiceImpl implements SensorService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Sensor> getSensors(long sensorTypeId) {
         logger.debug("[SENSOR - SERVICE] Service for getting sensors by sensor type id {} start", sensorTypeId);
         List<Sensor> sensors = sensorRepository.findBySensorTypeId(sensorTypeId);
@@ -160,6 +177,7 @@ public class SensorServiceImpl implements SensorService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Variable> getVariables(long id)
             throws EntityNotFoundException {
         logger.debug("[SENSOR - SERVICE] Service for getting sensor {} variables start", id);
@@ -174,6 +192,18 @@ public class SensorServiceImpl implements SensorService {
         return variables;
     }
 
+    @Override
+    public List<LatestValue> getLatestValues(long id) throws EntityNotFoundException {
+        logger.debug("[SENSOR - SERVICE] Service for getting sensor {} latest values start", id);
+        if (!existenceCache.sensorExists(id)) {
+            throw new EntityNotFoundException();
+        }
+        List<LatestValue> values = latestValues.getBySensor(id);
+        logger.debug("[SENSOR - SERVICE] Service for getting sensor {} latest values end. Values: {}",
+                id, values);
+        return values;
+    }
+
     @Override
     public Variable addVariable(long sensorId, long variableId) throws EntityNotFoundException {
         logger.debug(
@@ -190,6 +220,7 @@ public class SensorServiceImpl implements SensorService {
             relation.setSensorId(sensorId);
             relation.setVariableId(variableId);
             variableSensorRelationRepository.save(relation);
+            visibilityIndex.variableAdded(sensorId, variableId);
         }
         logger.debug(
                 "[SENSOR - SERVICE] Service for add variable {} to sensor {} end. Variable: {}", variableId,
@@ -209,12 +240,16 @@ public class SensorServiceImpl implements SensorService {
         //check for house id and sensor type id
         if (sensor.getHouseId() != null) {
             logger.debug("[SENSOR - SERVICE] Searching if house {} exists", sensor.getHouseId());
-            houseRepository.findById(sensor.getHouseId()).orElseThrow(EntityNotFoundException::new);
+            if (!existenceCache.houseExists(sensor.getHouseId())) {
+                throw new EntityNotFoundException();
+            }
         }
         logger.debug("[SENSOR - SERVICE] Searching if sensor type {} exists", sensor.getId());
         sensorTypeRepository.findById(sensor.getSensorTypeId())
                 .orElseThrow(EntityNotFoundException::new);
         sensor = sensorRepository.save(sensor);
+        existenceCache.evictSensor(sensor.getId());
+        visibilityIndex.sensorChanged(sensor.getId(), sensor.getHouseId());
 
         logger.debug("[SENSOR - SERVICE] Service for updating sensor end. Sensor: {}", sensor);
         return sensor;
@@ -234,13 +269,17 @@ public class SensorServiceImpl implements SensorService {
             //check for house id and sensor type id
             if (sensor.getHouseId() != null) {
                 logger.debug("[SENSOR - SERVICE] Searching if house {} exists", sensor.getHouseId());
-                houseRepository.findById(sensor.getHouseId()).orElseThrow(EntityNotFoundException::new);
+                if (!existenceCache.houseExists(sensor.getHouseId())) {
+                    throw new EntityNotFoundException();
+                }
             }
             logger.debug("[SENSOR - SERVICE] Searching if sensor type {} exists", sensor.getId());
             sensorTypeRepository.findById(sensor.getSensorTypeId())
                     .orElseThrow(EntityNotFoundException::new);
             sensor.setLastConnection(LocalDateTime.now());
             sensor = sensorRepository.save(sensor);
+            existenceCache.evictSensor(sensor.getId());
+            visibilityIndex.sensorChanged(sensor.getId(), sensor.getHouseId());
 
             logger.debug("[SENSOR - SERVICE] Service for register sensor end. Sensor: {}", sensor);
             return sensor;
@@ -252,6 +291,9 @@ public class SensorServiceImpl implements SensorService {
         logger.debug("[SENSOR - SERVICE] Service for remove sensor {} start", id);
         Sensor sensor = sensorRepository.findById(id).orElseThrow(EntityNotFoundException::new);
         sensorRepository.delete(sensor);
+        existenceCache.evictSensor(id);
+        visibilityIndex.sensorChanged(id, null);
+        latestValues.evictSensor(id);
 
         logger.debug("[SENSOR - SERVICE] Removing relations variable - sensor");
         variableSensorRelationRepository.findBySensorId(id).stream()
@@ -275,6 +317,7 @@ public class SensorServiceImpl implements SensorService {
         variableSensorRelationRepository
                 .delete(variableSensorRelationRepository.findBySensorIdAndVariableId(sensorId, variableId)
                         .orElseThrow(EntityNotFoundException::new));
+        visibilityIndex.sensorChanged(sensorId, null);
         logger.debug(
                 "[SENSOR - SERVICE] Service for remove variable {} from sensor {} end", variableId,
                 sensorId);
@@ -286,14 +329,11 @@ public class SensorServiceImpl implements SensorService {
         logger
                 .debug("[SENSOR - SERVICE] Service for check if user {} has visibility for sensor {} start",
                         name, id);
-        logger.debug("[SENSOR - SERVICE] Searching user {}", name);
-        User user = userRepository.findByUsername(name).get();
         logger.debug("[SENSOR - SERVICE] Searching if sensor {} exists", id);
-        sensorRepository.findById(id).orElseThrow(EntityNotFoundException::new);
-        boolean hasVisibility = userHouseRelationRepository.findByUserId(user.getId()).stream()
-                .map(userHouseRelation -> houseRepository.findById(userHouseRelation.getHouseId()).get())
-                .flatMap(house -> sensorRepository.findByHouseId(house.getId()).stream())
-                .anyMatch(sensor -> sensor.getId() == id);
+        if (!existenceCache.sensorExists(id)) {
+            throw new EntityNotFoundException();
+        }
+        boolean hasVisibility = visibilityIndex.canSeeSensor(name, id);
 
         logger.debug(
                 "[SENSOR - SERVICE] Service for check if user {} has visibility for user {} end. Result: {}",
@@ -302,56 +342,110 @@ public class SensorServiceImpl implements SensorService {
     }
 
     @Override
-    public void reset(long id) throws EntityNotFoundException, JsonProcessingException {
+    public ActionDelivery reset(long id) throws EntityNotFoundException, JsonProcessingException {
         logger.debug("[SENSOR - SERVICE] Service for send reset action to sensor {} start", id);
         Sensor sensor = sensorRepository.findById(id).orElseThrow(() -> new EntityNotFoundException());
-        sendAsyncMessage(sensor, RESET);
-        logger.debug("[SENSOR - SERVICE] Service for send reset action to sensor {} end", id);
+        ActionDelivery delivery = actionDispatcher.dispatch(sensor, RESET);
+        logger.debug("[SENSOR - SERVICE] Service for send reset action to sensor {} end. Delivery: {}",
+                id, delivery.getId());
+        return delivery;
     }
 
     @Override
-    public void sendAction(long id, String action)
+    public ActionDelivery sendAction(long id, String action)
             throws EntityNotFoundException, JsonProcessingException, ActionException {
         logger.debug("[SENSOR - SERVICE] Service for send {} action to sensor {} start", action, id);
         Sensor sensor = sensorRepository.findById(id).orElseThrow(() -> new EntityNotFoundException());
         checkAction(action, sensor.getSensorTypeId());
-        sendAsyncMessage(sensor, action);
-        logger.debug("[SENSOR - SERVICE] Service for send {} action to sensor {} end", action, id);
+        ActionDelivery delivery = actionDispatcher.dispatch(sensor, action);
+        logger.debug("[SENSOR - SERVICE] Service for send {} action to sensor {} end. Delivery: {}",
+                action, id, delivery.getId());
+        return delivery;
+    }
+
+    @Override
+    public List<ActionDelivery> getActionDeliveries(long id) throws EntityNotFoundException {
+        logger.debug("[SENSOR - SERVICE] Service for getting sensor {} action deliveries start", id);
+        if (!existenceCache.sensorExists(id)) {
+            throw new EntityNotFoundException();
+        }
+        List<ActionDelivery> deliveries = actionDispatcher.getDeliveries(id);
+        logger.debug(
+                "[SENSOR - SERVICE] Service for getting sensor {} action deliveries end. Deliveries: {}",
+                id, deliveries);
+        return deliveries;
+    }
+
+    @Override
+    public ActionReport sendHouseAction(long houseId, String action)
+            throws EntityNotFoundException, JsonProcessingException {
+        logger.debug("[SENSOR - SERVICE] Service for send {} action to house {} sensors start", action,
+                houseId);
+        if (!existenceCache.houseExists(houseId)) {
+            throw new EntityNotFoundException();
+        }
+        ActionReport report = sendActions(sensorRepository.findByHouseId(houseId), action);
+        logger.debug("[SENSOR - SERVICE] Service for send {} action to house {} sensors end. Report: {}",
+                action, houseId, report);
+        return report;
+    }
+
+    @Override
+    public ActionReport sendSensorTypeAction(long sensorTypeId, String action)
+            throws EntityNotFoundException, JsonProcessingException, ActionException {
+        logger.debug("[SENSOR - SERVICE] Service for send {} action to sensor type {} sensors start",
+                action, sensorTypeId);
+        Set<String> actions = sensorTypeActions.getActions(sensorTypeId)
+                .orElseThrow(EntityNotFoundException::new);
+        if (!isActionAllowed(action, actions)) {
+            throw new ActionException();
+        }
+        ActionReport report = sendActions(sensorRepository.findBySensorTypeId(sensorTypeId), action);
+        logger.debug(
+                "[SENSOR - SERVICE] Service for send {} action to sensor type {} sensors end. Report: {}",
+                action, sensorTypeId, report);
+        return report;
+    }
+
+    /* The action is checked once per type, sensors of a type without it are rejected */
+    private ActionReport sendActions(List<Sensor> sensors, String action)
+            throws JsonProcessingException {
+        Map<Long, Boolean> allowedByType = new HashMap<>();
+        CountDownLatch pending = new CountDownLatch(sensors.size());
+        List<ActionDelivery> deliveries = new ArrayList<>();
+        for (Sensor sensor : sensors) {
+            Long typeId = sensor.getSensorTypeId();
+            if (action.equals(RESET) || (typeId != null && allowedByType
+                    .computeIfAbsent(typeId, id -> sensorTypeActions.getActions(id)
+                            .map(actions -> isActionAllowed(action, actions)).orElse(false)))) {
+                deliveries.add(actionDispatcher.dispatch(sensor, action, done -> pending.countDown()));
+            } else {
+                LocalDateTime now = LocalDateTime.now();
+                deliveries.add(new ActionDelivery(UUID.randomUUID().toString(), sensor.getId(), action,
+                        Status.REJECTED, 0, "Action not supported by the sensor type", now, now));
+                pending.countDown();
+            }
+        }
+        try {
+            pending.await(bulkWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return ActionReport.of(action, deliveries);
     }
 
     private void checkAction(String action, Long typeId)
             throws EntityNotFoundException, ActionException {
         if (!action.equals(RESET)) {
-            SensorType type = sensorTypeRepository.findById(typeId)
+            Set<String> actions = sensorTypeActions.getActions(typeId)
                     .orElseThrow(EntityNotFoundException::new);
-            List<String> actions = Arrays.asList(type.getActions().split(","));
-            if (!actions.contains(action)) {
+            if (!isActionAllowed(action, actions)) {
                 throw new ActionException();
             }
         }
     }
 
-    private void sendAsyncMessage(Sensor sensor, String action)
-            throws JsonProcessingException {
-        String socketMessage = new ObjectMapper()
-                .writeValueAsString(new SocketMessage(sensor.getPrivateIp(), action));
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        executor.submit(() -> {
-            try {
-                logger
-                        .debug("[SENSOR - SERVICE] Opening socket to {}:{}", sensor.getPublicIp(), socketPort);
-                InetAddress ip = InetAddress.getByName(sensor.getPublicIp());
-                Socket socket = new Socket(ip, socketPort);
-                OutputStream output = socket.getOutputStream();
-                PrintWriter writer = new PrintWriter(output, true);
-                logger.debug("[SENSOR - SERVICE] Sending message: {}", socketMessage);
-                writer.println(socketMessage);
-                socket.close();
-            } catch (IOException e) {
-                logger
-                        .error("[SENSOR - ACTION] error sending action {} to sensor {}", action, sensor.getId(),
-                                e);
-            }
-        });
+    private boolean isActionAllowed(String action, Set<String> actions) {
+        return action.equals(RESET) || actions.contains(action);
     }
 }
@@ -3,6 +3,7 @@ package com.torresj.apisensorserver.services.impl;
 import java.util.List;
 import java.util.Optional;
 
+import com.torresj.apisensorserver.cache.SensorTypeActions;
 import com.torresj.apisensorserver.exceptions.EntityAlreadyExistsException;
 import com.torresj.apisensorserver.exceptions.EntityHasRelationsException;
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
@@ -24,15 +25,21 @@ public class SensorTypeServiceImpl implements SensorTypeService {
     /* Logs */
     private static final Logger logger = LogManager.getLogger(SensorTypeServiceImpl.class);
 
+    /* Every station supports reset, whatever its type says */
+    private static final String RESET = "reset";
+
     /* Respositories */
     private SensorTypeRepository sensorTypeRepository;
 
     private SensorRepository sensorRepository;
 
+    private SensorTypeActions sensorTypeActions;
+
     public SensorTypeServiceImpl(SensorTypeRepository sensorTypeRepository,
-            SensorRepository sensorRepository) {
+            SensorRepository sensorRepository, SensorTypeActions sensorTypeActions) {
         this.sensorTypeRepository = sensorTypeRepository;
         this.sensorRepository = sensorRepository;
+        this.sensorTypeActions = sensorTypeActions;
     }
 
     @Override
@@ -84,6 +91,7 @@ public class SensorTypeServiceImpl implements SensorTypeService {
             throw new EntityAlreadyExistsException();
         } else {
             SensorType typeSaved = sensorTypeRepository.save(type);
+            sensorTypeActions.refresh(typeSaved);
             logger.debug("[SENSOR TYPES - SERVICE] Service for register type end. type: {}", typeSaved);
             return typeSaved;
         }
@@ -96,10 +104,23 @@ public class SensorTypeServiceImpl implements SensorTypeService {
                 .orElseThrow(EntityNotFoundException::new);
         type.setId(sensorTypeEntity.getId());
         SensorType typeSaved = sensorTypeRepository.save(type);
+        sensorTypeActions.refresh(typeSaved);
         logger.debug("[SENSOR TYPES - SERVICE] Service for update type end. type: {}", typeSaved);
         return typeSaved;
     }
 
+    @Override
+    public boolean isActionAllowed(long id, String action) throws EntityNotFoundException {
+        logger.debug("[SENSOR TYPES - SERVICE] Service for validate action {} of type {} start",
+                action, id);
+        boolean allowed = sensorTypeActions.getActions(id).orElseThrow(EntityNotFoundException::new)
+                .contains(action) || action.equals(RESET);
+        logger.debug(
+                "[SENSOR TYPES - SERVICE] Service for validate action {} of type {} end. Result: {}",
+                action, id, allowed);
+        return allowed;
+    }
+
     @Override
     public SensorType remove(long id) throws EntityNotFoundException, EntityHasRelationsException {
         logger.debug("[SENSOR TYPES - SERVICE] Service for delete type {} start", id);
@@ -112,6 +133,7 @@ public class SensorTypeServiceImpl implements SensorTypeService {
             throw new EntityHasRelationsException();
         } else {
             sensorTypeRepository.delete(sensorTypeEntity);
+            sensorTypeActions.evict(id);
         }
         logger.debug("[SENSOR TYPES - SERVICE] Service for delete type {} end", id);
         return sensorTypeEntity;
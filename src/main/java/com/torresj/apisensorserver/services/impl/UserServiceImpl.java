@@ -1,12 +1,19 @@
 package com.torresj.apisensorserver.services.impl;
 
 import java.security.Principal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+import javax.annotation.PreDestroy;
+
+import com.torresj.apisensorserver.cache.VisibilityIndex;
 import com.torresj.apisensorserver.exceptions.EntityAlreadyExistsException;
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
 import com.torresj.apisensorserver.models.entities.House;
@@ -25,10 +32,12 @@ import org.springframework.data.crossstore.ChangeSetPersister;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class UserServiceImpl implements UserService {
@@ -42,15 +51,23 @@ public class UserServiceImpl implements UserService {
 
     private HouseRepository houseRepository;
 
+    private VisibilityIndex visibilityIndex;
+
+    /* Last connection by username, waiting for the next flush */
+    private Map<String, LocalDateTime> connections = new ConcurrentHashMap<>();
+
     public UserServiceImpl(UserRepository userRepository,
             UserHouseRelationRepository userHouseRelationRepository,
-            HouseRepository houseRepository) {
+            HouseRepository houseRepository,
+            VisibilityIndex visibilityIndex) {
         this.userRepository = userRepository;
         this.userHouseRelationRepository = userHouseRelationRepository;
         this.houseRepository = houseRepository;
+        this.visibilityIndex = visibilityIndex;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<User> getUsers(String filter, Role role, int nPage, int elements) {
         logger.debug("[USER - SERVICE] Service for getting users start");
         PageRequest pageRequest = PageRequest.of(nPage, elements, Sort.by("createAt").descending());
@@ -99,6 +116,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<House> getHouses(long id) throws EntityNotFoundException {
         logger.debug("[USER - SERVICES] Service for get user {} houses start", id);
         userRepository.findById(id).orElseThrow(EntityNotFoundException::new);
@@ -123,6 +141,7 @@ public class UserServiceImpl implements UserService {
         relation.setHouseId(houseId);
         if (!userHouseRelationRepository.findByUserIdAndHouseId(userId, houseId).isPresent()) {
             userHouseRelationRepository.save(relation);
+            visibilityIndex.houseAdded(userId, houseId);
         }
         logger.debug(
                 "[USER - SERVICE] Service for adding house {} to user {} end", houseId, userId);
@@ -138,6 +157,7 @@ public class UserServiceImpl implements UserService {
         }
         clearUserHouses(userId);
         List<House> houses = addListHouses(houseIds,userId);
+        visibilityIndex.userChanged(userId);
 
         logger.debug(
                 "[USER - SERVICE] Service for setting houses {} to user {} end", houseIds, userId);
@@ -174,11 +194,42 @@ public class UserServiceImpl implements UserService {
         userHouseRelationRepository.delete(
                 userHouseRelationRepository.findByUserIdAndHouseId(userId, houseId)
                         .orElseThrow(EntityNotFoundException::new));
+        visibilityIndex.userChanged(userId);
         logger.debug(
                 "[USER - SERVICE] Service for remove house {} from user {} end", houseId, userId);
         return house;
     }
 
+    @Override
+    public void registerConnection(String userName) {
+        connections.put(userName, LocalDateTime.now());
+    }
+
+    @Override
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${user.last-connection.flush-ms}")
+    public void flushConnections() {
+        if (connections.isEmpty()) {
+            return;
+        }
+        Map<String, LocalDateTime> batch = new HashMap<>();
+        for (String userName : connections.keySet()) {
+            LocalDateTime connection = connections.remove(userName);
+            if (connection != null) {
+                batch.put(userName, connection);
+            }
+        }
+        try {
+            userRepository.updateLastConnections(batch);
+            logger.debug("[USER - SERVICE] Flushed last connection of {} users", batch.size());
+        } catch (Exception e) {
+            // Keep them for the next flush unless a newer connection arrived meanwhile
+            batch.forEach(connections::putIfAbsent);
+            logger.error("[USER - SERVICE] Error flushing last connection of {} users", batch.size(),
+                    e);
+        }
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         logger.debug(
@@ -233,6 +284,7 @@ public class UserServiceImpl implements UserService {
         userHouseRelationRepository.findByUserId(id).stream()
                 .forEach(userHouseRelationRepository::delete);
         userRepository.delete(entity);
+        visibilityIndex.userChanged(id);
         logger.debug(
                 "[USER - SERVICE] Service for remove user {} end");
         return entity;
@@ -4,16 +4,15 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import com.torresj.apisensorserver.cache.ExistenceCache;
+import com.torresj.apisensorserver.cache.LatestValueStore;
+import com.torresj.apisensorserver.cache.VisibilityIndex;
 import com.torresj.apisensorserver.exceptions.EntityAlreadyExistsException;
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
 import com.torresj.apisensorserver.models.entities.Sensor;
-import com.torresj.apisensorserver.models.entities.User;
 import com.torresj.apisensorserver.models.entities.Variable;
 import com.torresj.apisensorserver.models.entities.VariableSensorRelation;
-import com.torresj.apisensorserver.repositories.HouseRepository;
 import com.torresj.apisensorserver.repositories.SensorRepository;
-import com.torresj.apisensorserver.repositories.UserHouseRelationRepository;
-import com.torresj.apisensorserver.repositories.UserRepository;
 import com.torresj.apisensorserver.repositories.VariableRepository;
 import com.torresj.apisensorserver.repositories.VariableSensorRelationRepository;
 import com.torresj.apisensorserver.services.VariableService;
@@ -24,6 +23,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class VariableServiceImpl implements VariableService {
@@ -35,29 +35,30 @@ public class VariableServiceImpl implements VariableService {
 
     private SensorRepository sensorRepository;
 
-    private UserRepository userRepository;
-
     private VariableSensorRelationRepository variableSensorRelationRepository;
 
-    private HouseRepository houseRepository;
+    private ExistenceCache existenceCache;
+
+    private VisibilityIndex visibilityIndex;
 
-    private UserHouseRelationRepository userHouseRelationRepository;
+    private LatestValueStore latestValues;
 
     public VariableServiceImpl(VariableRepository variableRepository,
             SensorRepository sensorRepository,
-            UserRepository userService,
             VariableSensorRelationRepository variableSensorRelationRepository,
-            HouseRepository houseRepository,
-            UserHouseRelationRepository userHouseRelationRepository) {
+            ExistenceCache existenceCache,
+            VisibilityIndex visibilityIndex,
+            LatestValueStore latestValues) {
         this.variableRepository = variableRepository;
         this.sensorRepository = sensorRepository;
-        this.userRepository = userService;
         this.variableSensorRelationRepository = variableSensorRelationRepository;
-        this.houseRepository = houseRepository;
-        this.userHouseRelationRepository = userHouseRelationRepository;
+        this.existenceCache = existenceCache;
+        this.visibilityIndex = visibilityIndex;
+        this.latestValues = latestValues;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Variable> getVariables(int nPage, int elements) {
         logger.debug("[VARIABLE - SERVICE] Service for getting variables start");
         PageRequest pageRequest = PageRequest.of(nPage, elements, Sort.by("createAt").descending());
@@ -68,6 +69,7 @@ public class VariableServiceImpl implements VariableService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Variable> getVariables(int nPage, int elements, String name) {
         logger.debug("[VARIABLE - SERVICE] Service for getting variables by name {} start", name);
         PageRequest pageRequest = PageRequest.of(nPage, elements, Sort.by("createAt").descending());
@@ -95,6 +97,7 @@ public class VariableServiceImpl implements VariableService {
         logger.debug("[VARIABLE - UPDATE] Variable exists. Updating ...");
         variable.setId(entity.getId());
         Variable variableUpdated = variableRepository.save(variable);
+        existenceCache.evictVariable(entity.getId());
         logger.debug("[VARIABLE - SERVICE] Service for update variable end. Variable: {}",
                 variableUpdated);
         return variableUpdated;
@@ -109,6 +112,7 @@ public class VariableServiceImpl implements VariableService {
             throw new EntityAlreadyExistsException();
         } else {
             Variable variableSaved = variableRepository.save(variable);
+            existenceCache.evictVariable(variableSaved.getId());
             logger.debug("[VARIABLE - SERVICE] Service for register variable end. Variable: {}",
                     variableSaved);
             return variableSaved;
@@ -121,6 +125,9 @@ public class VariableServiceImpl implements VariableService {
 
         Variable variable = variableRepository.findById(id).orElseThrow(EntityNotFoundException::new);
         variableRepository.delete(variable);
+        existenceCache.evictVariable(id);
+        visibilityIndex.variableChanged(id);
+        latestValues.evictVariable(id);
 
         logger.debug("[VARIABLE - SERVICE] Delete sensor - variable relation");
         variableSensorRelationRepository.findByVariableId(id).stream()
@@ -132,6 +139,7 @@ public class VariableServiceImpl implements VariableService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Sensor> getSensors(long id, int nPage, int elements) {
         logger.debug("[VARIABLE - SERVICE] Service for getting variable {} sensors start", id);
         PageRequest pageRequest = PageRequest.of(nPage, elements, Sort.by("createAt").descending());
@@ -150,15 +158,11 @@ public class VariableServiceImpl implements VariableService {
         logger
                 .debug("[USER - SERVICE] Service for check if user {} has visibility for variable {} start",
                         name, id);
-        logger.debug("[USER - SERVICE] Searching user {}", name);
-        User user = userRepository.findByUsername(name).get();
         logger.debug("[USER - SERVICE] Searching variable {}", id);
-        variableRepository.findById(id).orElseThrow(EntityNotFoundException::new);
-        boolean hasVisibility = userHouseRelationRepository.findByUserId(user.getId()).stream()
-                .map(userHouseRelation -> houseRepository.findById(userHouseRelation.getHouseId()).get())
-                .flatMap(house -> sensorRepository.findByHouseId(house.getId()).stream())
-                .flatMap(sensor -> variableSensorRelationRepository.findBySensorId(sensor.getId()).stream())
-                .anyMatch(relation -> relation.getVariableId() == id);
+        if (!existenceCache.variableExists(id)) {
+            throw new EntityNotFoundException();
+        }
+        boolean hasVisibility = visibilityIndex.canSeeVariable(name, id);
         logger.debug(
                 "[USER - SERVICE] Service for check if user {} has visibility for variable {} end. Result: {}",
                 name, id, hasVisibility);
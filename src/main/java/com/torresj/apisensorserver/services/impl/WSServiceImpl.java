@@ -10,6 +10,7 @@ import com.torresj.apisensorserver.models.entities.User.Role;
 import com.torresj.apisensorserver.services.SensorService;
 import com.torresj.apisensorserver.services.UserService;
 import com.torresj.apisensorserver.services.WSService;
+import com.torresj.apisensorserver.websocket.SessionAuthorizations;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -26,10 +27,13 @@ public class WSServiceImpl implements WSService {
 
     private UserService userService;
 
+    private SessionAuthorizations authorizations;
+
     public WSServiceImpl(SensorService sensorService,
-            UserService userService) {
+            UserService userService, SessionAuthorizations authorizations) {
         this.sensorService = sensorService;
         this.userService = userService;
+        this.authorizations = authorizations;
     }
 
     @Override
@@ -59,6 +63,21 @@ public class WSServiceImpl implements WSService {
         return response;
     }
 
+    @Override
+    public void openSession(StompHeaderAccessor accessor) {
+        if (accessor.getUser() == null) {
+            return;
+        }
+        long generation = authorizations.generation();
+        try {
+            authorizations.open(accessor.getSessionId(),
+                    userService.getUser(accessor.getUser().getName()), generation);
+        } catch (EntityNotFoundException e) {
+            logger.debug("[WSService - SERVICE] User {} not found opening session {}",
+                    accessor.getUser().getName(), accessor.getSessionId());
+        }
+    }
+
     @Override
     public boolean checkSensorAndUserVisibility(StompHeaderAccessor accessor)
             throws EntityNotFoundException {
@@ -66,15 +85,30 @@ public class WSServiceImpl implements WSService {
         List<String> headers = accessor.getNativeHeader("destination");
         if (headers != null && !headers.isEmpty()) {
             String destination = headers.get(0);
-            String idStr = destination.substring(destination.lastIndexOf('/') + 1);
+            // Station id is the last segment, after '/' or the '.' brokers like RabbitMQ need
+            String idStr = destination.substring(
+                    Math.max(destination.lastIndexOf('/'), destination.lastIndexOf('.')) + 1);
             long id = Long.parseLong(idStr);
+            String sessionId = accessor.getSessionId();
+            Boolean decided = authorizations.isAllowed(sessionId, id);
+            if (decided != null) {
+                logger.debug("[WSService - SERVICE] Station {} already decided for session {}", id,
+                        sessionId);
+                return decided;
+            }
+            long generation = authorizations.generation();
             sensorService.getSensor(id);
-            User user = userService.getUser(accessor.getUser().getName());
-            if (user != null && user.getRole() == Role.ADMIN) {
+            User user = authorizations.getUser(sessionId);
+            if (user == null) {
+                user = userService.getUser(accessor.getUser().getName());
+                authorizations.open(sessionId, user, generation);
+            }
+            if (user.getRole() == Role.ADMIN) {
                 allowed = true;
             } else {
-                allowed = sensorService.hasUserVisibilitySensor(accessor.getUser().getName(), id);
+                allowed = sensorService.hasUserVisibilitySensor(user.getUsername(), id);
             }
+            authorizations.put(sessionId, id, allowed, generation);
         }
         return allowed;
     }
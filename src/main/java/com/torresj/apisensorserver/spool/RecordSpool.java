@@ -0,0 +1,334 @@
+package com.torresj.apisensorserver.spool;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.torresj.apisensorserver.models.entities.Record;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Append-only write-ahead spool of records kept in memory-mapped segment files. Every record is a
+ * fixed size entry closed by a CRC32, so a torn write marks the end of the spool on recovery.
+ * Entries are read from the checkpoint, and committing moves the checkpoint forward, rewrites the
+ * checkpoint file atomically and deletes the segments fully behind it. Entries live in the page
+ * cache as soon as they are appended, so they survive a crash of the process; segments are forced
+ * to disk when rolled and on every commit.
+ *
+ * <p>Disabled, and no file is touched, while the directory is empty.
+ */
+@Component
+public class RecordSpool {
+
+    /* Logs */
+    private static final Logger logger = LogManager.getLogger(RecordSpool.class);
+
+    /* sensorId, variableId, value, date and createAt as epoch second and nano, CRC32 */
+    static final int ENTRY_BYTES = 8 + 8 + 8 + 12 + 12 + 4;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".spool";
+
+    private static final String CHECKPOINT = "checkpoint";
+
+    private Path dir;
+
+    private int capacity;
+
+    private int maxSegments;
+
+    private TreeMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+
+    private long writeSegment;
+
+    private int writeIndex;
+
+    private long readSegment;
+
+    private int readIndex;
+
+    private long depth;
+
+    private ByteBuffer entry = ByteBuffer.allocate(ENTRY_BYTES);
+
+    private CRC32 crc = new CRC32();
+
+    public RecordSpool(@Value("${ingest.spool.dir}") String dir,
+            @Value("${ingest.spool.segment-bytes}") int segmentBytes,
+            @Value("${ingest.spool.max-segments}") int maxSegments, MeterRegistry meterRegistry) {
+        this.dir = dir == null || dir.isEmpty() ? null : Paths.get(dir);
+        this.capacity = segmentBytes / ENTRY_BYTES;
+        this.maxSegments = maxSegments;
+        if (this.dir != null) {
+            meterRegistry.gauge("ingest.spool.depth", Tags.empty(), this, RecordSpool::depth);
+            meterRegistry.gauge("ingest.spool.lag", Tags.empty(), this, RecordSpool::lagSeconds);
+            meterRegistry.gauge("ingest.spool.segments", Tags.empty(), this, RecordSpool::segments);
+        }
+    }
+
+    public boolean isEnabled() {
+        return dir != null;
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        Files.createDirectories(dir);
+        readCheckpoint();
+        try (DirectoryStream<Path> files = Files
+                .newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                long segment = segmentOf(file);
+                if (segment < readSegment) {
+                    Files.delete(file);
+                } else {
+                    segments.put(segment, map(file, false));
+                }
+            }
+        }
+
+        if (segments.isEmpty()) {
+            readIndex = 0;
+            segments.put(readSegment, map(segmentFile(readSegment), true));
+        }
+        if (segments.firstKey() > readSegment) {
+            readSegment = segments.firstKey();
+            readIndex = 0;
+        }
+        writeSegment = segments.lastKey();
+        depth = -readIndex;
+        for (Map.Entry<Long, MappedByteBuffer> segment : segments.entrySet()) {
+            int entries = countEntries(segment.getValue());
+            depth += entries;
+            if (segment.getKey() == writeSegment) {
+                writeIndex = entries;
+            }
+        }
+        dropReadSegments();
+        logger.info("[INGEST - SPOOL] Spool opened in {}. Segments {}, records to replay {}", dir,
+                segments.size(), depth);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        segments.values().forEach(MappedByteBuffer::force);
+        writeCheckpoint();
+        logger.info("[INGEST - SPOOL] Spool closed. Records left to replay {}", depth);
+    }
+
+    /* False when every segment is in use and the head one is full */
+    public synchronized boolean append(Record record) throws IOException {
+        if (record.getDate() == null || record.getCreateAt() == null) {
+            throw new IllegalArgumentException("Spooled records need date and createAt");
+        }
+        if (writeIndex == capacity) {
+            if (segments.size() >= maxSegments) {
+                return false;
+            }
+            segments.get(writeSegment).force();
+            writeSegment++;
+            writeIndex = 0;
+            segments.put(writeSegment, map(segmentFile(writeSegment), true));
+            dropReadSegments();
+        }
+
+        entry.clear();
+        entry.putLong(record.getSensorId());
+        entry.putLong(record.getVariableId());
+        entry.putDouble(record.getValue());
+        putDate(record.getDate());
+        putDate(record.getCreateAt());
+        crc.reset();
+        crc.update(entry.array(), 0, ENTRY_BYTES - 4);
+        entry.putInt((int) crc.getValue());
+
+        ByteBuffer segment = segments.get(writeSegment).duplicate();
+        segment.position(writeIndex * ENTRY_BYTES);
+        segment.put(entry.array());
+        writeIndex++;
+        depth++;
+        return true;
+    }
+
+    /* Up to max records from the checkpoint, in order. Nothing moves until they are committed */
+    public synchronized List<Record> read(int max) {
+        List<Record> records = new ArrayList<>();
+        long segment = readSegment;
+        int index = readIndex;
+        while (records.size() < max && (segment < writeSegment || index < writeIndex)) {
+            if (index == capacity) {
+                segment++;
+                index = 0;
+                continue;
+            }
+            records.add(readEntry(segments.get(segment), index));
+            index++;
+        }
+        return records;
+    }
+
+    /* Moves the checkpoint past the first count records */
+    public synchronized void commit(int count) throws IOException {
+        long position = readSegment * capacity + readIndex + count;
+        readSegment = position / capacity;
+        readIndex = (int) (position % capacity);
+        if (readSegment > writeSegment) {
+            // Everything in the full head segment was read, it stays until the next roll
+            readSegment = writeSegment;
+            readIndex = capacity;
+        }
+        depth -= count;
+        dropReadSegments();
+        segments.get(writeSegment).force();
+        writeCheckpoint();
+    }
+
+    public synchronized long depth() {
+        return depth;
+    }
+
+    /* Seconds since the oldest record waiting in the spool was received */
+    public synchronized double lagSeconds() {
+        if (depth == 0) {
+            return 0;
+        }
+        LocalDateTime oldest = readEntry(segments.get(readSegment), readIndex).getCreateAt();
+        return Duration.between(oldest, LocalDateTime.now()).toMillis() / 1000.0;
+    }
+
+    public synchronized int segments() {
+        return segments.size();
+    }
+
+    /* Deletes the segments the checkpoint has left behind, the head one stays */
+    private void dropReadSegments() throws IOException {
+        if (readIndex == capacity && readSegment < writeSegment) {
+            readSegment++;
+            readIndex = 0;
+        }
+        while (segments.firstKey() < readSegment) {
+            Files.deleteIfExists(segmentFile(segments.pollFirstEntry().getKey()));
+        }
+    }
+
+    private void putDate(LocalDateTime date) {
+        entry.putLong(date.toEpochSecond(ZoneOffset.UTC));
+        entry.putInt(date.getNano());
+    }
+
+    private Record readEntry(ByteBuffer segment, int index) {
+        ByteBuffer buffer = segment.duplicate();
+        buffer.position(index * ENTRY_BYTES);
+        Record record = new Record();
+        record.setSensorId(buffer.getLong());
+        record.setVariableId(buffer.getLong());
+        record.setValue(buffer.getDouble());
+        record.setDate(getDate(buffer));
+        record.setCreateAt(getDate(buffer));
+        return record;
+    }
+
+    private static LocalDateTime getDate(ByteBuffer buffer) {
+        long seconds = buffer.getLong();
+        return LocalDateTime.ofEpochSecond(seconds, buffer.getInt(), ZoneOffset.UTC);
+    }
+
+    /* Valid entries from the start of the segment, the first bad CRC ends it */
+    private int countEntries(ByteBuffer segment) {
+        byte[] bytes = new byte[ENTRY_BYTES];
+        int entries = 0;
+        while (entries < capacity) {
+            ByteBuffer buffer = segment.duplicate();
+            buffer.position(entries * ENTRY_BYTES);
+            buffer.get(bytes);
+            crc.reset();
+            crc.update(bytes, 0, ENTRY_BYTES - 4);
+            if ((int) crc.getValue() != ByteBuffer.wrap(bytes, ENTRY_BYTES - 4, 4).getInt()) {
+                break;
+            }
+            entries++;
+        }
+        return entries;
+    }
+
+    private MappedByteBuffer map(Path file, boolean create) throws IOException {
+        try (FileChannel channel = create
+                ? FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping outlives the channel
+            return channel.map(MapMode.READ_WRITE, 0, (long) capacity * ENTRY_BYTES);
+        }
+    }
+
+    private void readCheckpoint() throws IOException {
+        Path file = dir.resolve(CHECKPOINT);
+        if (!Files.exists(file)) {
+            readSegment = 0;
+            readIndex = 0;
+            return;
+        }
+        try (InputStream in = Files.newInputStream(file);
+                DataInputStream data = new DataInputStream(in)) {
+            readSegment = data.readLong();
+            readIndex = data.readInt();
+        }
+    }
+
+    private void writeCheckpoint() throws IOException {
+        Path tmp = dir.resolve(CHECKPOINT + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp);
+                DataOutputStream data = new DataOutputStream(out)) {
+            data.writeLong(readSegment);
+            data.writeInt(readIndex);
+        }
+        Files.move(tmp, dir.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path segmentFile(long segment) {
+        return dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private static long segmentOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(
+                name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
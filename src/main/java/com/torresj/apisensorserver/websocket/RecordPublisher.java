@@ -0,0 +1,150 @@
+package com.torresj.apisensorserver.websocket;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import com.torresj.apisensorserver.models.entities.Record;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Fan-out of saved records to {@code websocket.station-prefix} + sensorId, off the ingest path. Records are
+ * coalesced by station and a publisher thread sends each station's records as one frame, a JSON
+ * array oldest first, at most {@code websocket.publish.max-rate} frames a second per station. A
+ * frame is serialized once whatever the number of subscribers. A frame keeps only the newest
+ * {@code websocket.publish.max-frame} records. With the simple broker, stations nobody subscribes
+ * to are skipped. Through a broker relay subscribers may sit on other instances, so every station
+ * is published.
+ */
+@Component
+public class RecordPublisher {
+
+    /* Logs */
+    private static final Logger logger = LogManager.getLogger(RecordPublisher.class);
+
+    private SimpMessagingTemplate template;
+
+    private StationSubscriptions subscriptions;
+
+    private String stationPrefix;
+
+    private boolean localSubscribersOnly;
+
+    private long intervalMs;
+
+    private int maxFrame;
+
+    private Map<Long, Deque<Record>> pending = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService executor;
+
+    /* Metrics */
+    private Counter skipped;
+
+    private Counter overflowed;
+
+    private Counter frames;
+
+    public RecordPublisher(SimpMessagingTemplate template, StationSubscriptions subscriptions,
+            MeterRegistry meterRegistry,
+            @Value("${websocket.station-prefix}") String stationPrefix,
+            @Value("${websocket.broker.relay.enabled}") boolean relayEnabled,
+            @Value("${websocket.publish.max-rate}") int maxRate,
+            @Value("${websocket.publish.max-frame}") int maxFrame) {
+        if (maxRate <= 0 || maxFrame <= 0) {
+            throw new IllegalArgumentException("Publish rate and frame size must be positive");
+        }
+        this.template = template;
+        this.subscriptions = subscriptions;
+        this.stationPrefix = stationPrefix;
+        this.localSubscribersOnly = !relayEnabled;
+        this.intervalMs = Math.max(1, 1000 / maxRate);
+        this.maxFrame = maxFrame;
+
+        skipped = meterRegistry.counter("websocket.records.skipped");
+        overflowed = meterRegistry.counter("websocket.records.overflowed");
+        frames = meterRegistry.counter("websocket.frames.sent");
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "record-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flush, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        logger.info("[WebSocket publisher] Started. Interval {} ms, max frame {}", intervalMs,
+                maxFrame);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /* Never blocks on the broker, records wait for the next frame of their station */
+    public void publish(Collection<Record> records) {
+        for (Record record : records) {
+            if (!hasSubscribers(stationPrefix + record.getSensorId())) {
+                skipped.increment();
+                continue;
+            }
+            pending.compute(record.getSensorId(), (k, frame) -> {
+                Deque<Record> current = frame != null ? frame : new ArrayDeque<>();
+                if (current.size() == maxFrame) {
+                    current.pollFirst();
+                    overflowed.increment();
+                }
+                current.addLast(record);
+                return current;
+            });
+        }
+    }
+
+    public void flush() {
+        for (Long sensorId : pending.keySet()) {
+            Deque<Record> frame = pending.remove(sensorId);
+            if (frame == null) {
+                continue;
+            }
+            String destination = stationPrefix + sensorId;
+            if (!hasSubscribers(destination)) {
+                skipped.increment(frame.size());
+                continue;
+            }
+            try {
+                template.convertAndSend(destination, new ArrayList<>(frame));
+                frames.increment();
+            } catch (Exception e) {
+                logger.error("[WebSocket publisher] Error sending {} records to {}", frame.size(),
+                        destination, e);
+            }
+        }
+    }
+
+    private boolean hasSubscribers(String destination) {
+        return !localSubscribersOnly || subscriptions.hasSubscribers(destination);
+    }
+}
@@ -0,0 +1,102 @@
+package com.torresj.apisensorserver.websocket;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.torresj.apisensorserver.cache.VisibilityIndex;
+import com.torresj.apisensorserver.models.entities.User;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+/**
+ * User and subscription decisions of every STOMP session, so a reconnect storm doesn't repeat the
+ * sensor, user and visibility lookups on each SUBSCRIBE. The user is resolved once at CONNECT and
+ * a session is dropped when it disconnects, or as soon as {@link VisibilityIndex} records any
+ * house, sensor or user change, as that may grant or take away the stations already decided.
+ */
+@Component
+public class SessionAuthorizations {
+
+    /* Logs */
+    private static final Logger logger = LogManager.getLogger(SessionAuthorizations.class);
+
+    private VisibilityIndex visibilityIndex;
+
+    private Map<String, SessionAuthorization> sessions = new ConcurrentHashMap<>();
+
+    public SessionAuthorizations(VisibilityIndex visibilityIndex) {
+        this.visibilityIndex = visibilityIndex;
+    }
+
+    /* Read before the lookups and handed back when storing their result */
+    public long generation() {
+        return visibilityIndex.getGeneration();
+    }
+
+    public void open(String sessionId, User user, long generation) {
+        if (sessionId != null && generation == generation()) {
+            sessions.put(sessionId, new SessionAuthorization(user, generation));
+        }
+    }
+
+    public User getUser(String sessionId) {
+        SessionAuthorization session = current(sessionId);
+        return session == null ? null : session.user;
+    }
+
+    /* Null when the station wasn't decided for this session yet */
+    public Boolean isAllowed(String sessionId, long stationId) {
+        SessionAuthorization session = current(sessionId);
+        return session == null ? null : session.decisions.get(stationId);
+    }
+
+    public void put(String sessionId, long stationId, boolean allowed, long generation) {
+        SessionAuthorization session = current(sessionId);
+        if (session != null && session.generation == generation) {
+            session.decisions.put(stationId, allowed);
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        if (event.getSessionId() != null) {
+            sessions.remove(event.getSessionId());
+        }
+    }
+
+    private SessionAuthorization current(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        SessionAuthorization session = sessions.get(sessionId);
+        if (session != null && session.generation != generation()) {
+            logger.debug("[WebSocket authorizations] Visibility changed, dropping session {}",
+                    sessionId);
+            sessions.remove(sessionId, session);
+            return null;
+        }
+        return session;
+    }
+
+    private static class SessionAuthorization {
+
+        private final User user;
+
+        private final long generation;
+
+        private final Map<Long, Boolean> decisions = new ConcurrentHashMap<>();
+
+        private SessionAuthorization(User user, long generation) {
+            this.user = user;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.torresj.apisensorserver.websocket;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+/**
+ * Live subscription count by destination, so publishers can skip destinations nobody listens to
+ * without walking every session. Subscriptions rejected by {@link WebSocketInChannelInterceptor}
+ * never raise an event, so they are not counted.
+ */
+@Component
+public class StationSubscriptions {
+
+    /* Logs */
+    private static final Logger logger = LogManager.getLogger(StationSubscriptions.class);
+
+    /* Destination of every subscription, by session and subscription id */
+    private Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+
+    private Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+    public boolean hasSubscribers(String destination) {
+        AtomicInteger count = counts.get(destination);
+        return count != null && count.get() > 0;
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (accessor.getSessionId() == null || accessor.getSubscriptionId() == null
+                || destination == null) {
+            return;
+        }
+        String previous = sessions.computeIfAbsent(accessor.getSessionId(),
+                k -> new ConcurrentHashMap<>()).put(accessor.getSubscriptionId(), destination);
+        if (previous != null) {
+            decrement(previous);
+        }
+        counts.computeIfAbsent(destination, k -> new AtomicInteger()).incrementAndGet();
+        logger.debug("[WebSocket subscriptions] Session {} subscribed to {}", accessor.getSessionId(),
+                destination);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = sessions.get(accessor.getSessionId());
+        if (subscriptions != null && accessor.getSubscriptionId() != null) {
+            String destination = subscriptions.remove(accessor.getSubscriptionId());
+            if (destination != null) {
+                decrement(destination);
+            }
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::decrement);
+        }
+    }
+
+    private void decrement(String destination) {
+        counts.computeIfPresent(destination,
+                (k, count) -> count.decrementAndGet() <= 0 ? null : count);
+    }
+}
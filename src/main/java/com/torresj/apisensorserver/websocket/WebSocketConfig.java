@@ -1,5 +1,8 @@
 package com.torresj.apisensorserver.websocket;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
@@ -11,6 +14,27 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    /* Logs */
+    private static final Logger logger = LogManager.getLogger(WebSocketConfig.class);
+
+    @Value("${websocket.broker.relay.enabled}")
+    private boolean relayEnabled;
+
+    @Value("${websocket.broker.relay.host}")
+    private String relayHost;
+
+    @Value("${websocket.broker.relay.port}")
+    private int relayPort;
+
+    @Value("${websocket.broker.relay.login}")
+    private String relayLogin;
+
+    @Value("${websocket.broker.relay.passcode}")
+    private String relayPasscode;
+
+    @Value("${websocket.broker.relay.virtual-host}")
+    private String relayVirtualHost;
+
     private WebSocketInChannelInterceptor webSocketInChannelInterceptor;
 
     public WebSocketConfig(
@@ -20,7 +44,21 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        if (relayEnabled) {
+            // Any instance publishes through the broker and any instance serves its subscribers
+            logger.info("[WebSocket config] Relaying /topic to STOMP broker {}:{}", relayHost,
+                    relayPort);
+            config.enableStompBrokerRelay("/topic")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setVirtualHost(relayVirtualHost);
+        } else {
+            config.enableSimpleBroker("/topic");
+        }
         config.setApplicationDestinationPrefixes("/app");
     }
 
@@ -3,6 +3,7 @@ package com.torresj.apisensorserver.websocket;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.torresj.apisensorserver.cache.TokenCache;
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
 import com.torresj.apisensorserver.exceptions.WSConnectionException;
 import com.torresj.apisensorserver.services.WSService;
@@ -19,25 +20,23 @@ import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.stereotype.Component;
 
-import io.jsonwebtoken.Jwts;
-
 @Component
 public class WebSocketInChannelInterceptor implements ChannelInterceptor {
 
     /* Logs */
     private static final Logger logger = LogManager.getLogger(WebSocketInChannelInterceptor.class);
 
-    @Value("${jwt.token.secret}")
-    private String secret;
-
     @Value("${jwt.token.prefix}")
     private String prefix;
 
     private WSService wsService;
 
+    private TokenCache tokenCache;
+
     public WebSocketInChannelInterceptor(
-            WSService wsService) {
+            WSService wsService, TokenCache tokenCache) {
         this.wsService = wsService;
+        this.tokenCache = tokenCache;
     }
 
     @Override
@@ -46,6 +45,7 @@ public class WebSocketInChannelInterceptor implements ChannelInterceptor {
                 .getAccessor(message, StompHeaderAccessor.class);
         if (StompCommand.CONNECT.equals(accessor.getCommand())) {
             setUserToken(accessor);
+            wsService.openSession(accessor);
         } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
             try {
                 if (!wsService.checkSensorAndUserVisibility(accessor)) {
@@ -64,9 +64,7 @@ public class WebSocketInChannelInterceptor implements ChannelInterceptor {
         List<String> headers = accessor.getNativeHeader("Authorization");
         if (headers != null && !headers.isEmpty()) {
             String token = headers.get(0);
-            String user = Jwts.parser().setSigningKey(secret)
-                    .parseClaimsJws(token.replace(prefix, "")).getBody()
-                    .getSubject();
+            String user = tokenCache.getSubject(token.replace(prefix, ""));
             if (user != null) {
                 UsernamePasswordAuthenticationToken userToken = new UsernamePasswordAuthenticationToken(
                         user, null, new ArrayList<>());
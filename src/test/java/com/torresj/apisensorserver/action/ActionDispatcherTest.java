@@ -0,0 +1,137 @@
+package com.torresj.apisensorserver.action;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.torresj.apisensorserver.models.ActionDelivery;
+import com.torresj.apisensorserver.models.ActionDelivery.Status;
+import com.torresj.apisensorserver.models.entities.Sensor;
+import com.torresj.apisensorserver.utils.TestUtils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ActionDispatcherTest {
+
+    private ActionDispatcher dispatcher;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    public void deliversInOrderByStation() throws Exception {
+        //Given
+        List<String> received = new CopyOnWriteArrayList<>();
+        try (ServerSocket station = new ServerSocket(0)) {
+            Thread server = new Thread(() -> accept(station, received));
+            server.setDaemon(true);
+            server.start();
+            dispatcher = dispatcher(station.getLocalPort(), 3, 10, 20);
+            Sensor sensor = sensor(1);
+
+            //When
+            List<ActionDelivery> deliveries = Arrays.asList(dispatcher.dispatch(sensor, "reset"),
+                    dispatcher.dispatch(sensor, "open"), dispatcher.dispatch(sensor, "close"));
+            awaitDone(deliveries);
+            long deadline = System.currentTimeMillis() + 10000;
+            while (received.size() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            //Then
+            deliveries.forEach(delivery -> assertEquals(Status.DELIVERED, delivery.getStatus()));
+            assertEquals(3, received.size());
+            assertTrue(received.get(0).contains("\"action\":\"reset\""));
+            assertTrue(received.get(1).contains("\"action\":\"open\""));
+            assertTrue(received.get(2).contains("\"action\":\"close\""));
+        }
+    }
+
+    @Test
+    public void retriesAndFailsUnreachableStation() throws Exception {
+        //Given
+        dispatcher = dispatcher(closedPort(), 2, 10, 20);
+
+        //When
+        ActionDelivery delivery = dispatcher.dispatch(sensor(1), "reset");
+        awaitDone(Arrays.asList(delivery));
+
+        //Then
+        assertEquals(Status.FAILED, delivery.getStatus());
+        assertEquals(2, delivery.getAttempts());
+        assertTrue(delivery.getError() != null);
+    }
+
+    @Test
+    public void keepsLastDeliveriesByStation() throws Exception {
+        //Given
+        dispatcher = dispatcher(closedPort(), 1, 10, 2);
+
+        //When
+        ActionDelivery first = dispatcher.dispatch(sensor(1), "reset");
+        ActionDelivery second = dispatcher.dispatch(sensor(1), "open");
+        ActionDelivery third = dispatcher.dispatch(sensor(1), "close");
+        ActionDelivery other = dispatcher.dispatch(sensor(2), "reset");
+        awaitDone(Arrays.asList(first, second, third, other));
+
+        //Then
+        assertEquals(Arrays.asList(third, second), dispatcher.getDeliveries(1));
+        assertEquals(Arrays.asList(other), dispatcher.getDeliveries(2));
+        assertTrue(dispatcher.getDeliveries(3).isEmpty());
+    }
+
+    private ActionDispatcher dispatcher(int port, int maxAttempts, long backoffMs, int history) {
+        return new ActionDispatcher(new ObjectMapper(), new SimpleMeterRegistry(), port, 2, 100,
+                1000, 1000, maxAttempts, backoffMs, history);
+    }
+
+    private Sensor sensor(long id) {
+        Sensor sensor = TestUtils.getExampleSensor(id, 1, 1);
+        sensor.setPublicIp("localhost");
+        return sensor;
+    }
+
+    private static int closedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void accept(ServerSocket station, List<String> received) {
+        try {
+            while (true) {
+                try (Socket socket = station.accept(); BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                    received.add(reader.readLine());
+                }
+            }
+        } catch (IOException e) {
+            // Station closed
+        }
+    }
+
+    private static void awaitDone(List<ActionDelivery> deliveries) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (deliveries.stream().anyMatch(delivery -> delivery.getStatus() == Status.PENDING)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.torresj.apisensorserver.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.torresj.apisensorserver.models.MqttMessage;
+import com.torresj.apisensorserver.models.entities.Record;
+import com.torresj.apisensorserver.mqtt.MqttMessageDecoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the old two pass decoding (String payload, MqttMessage then Record) against the
+ * streaming {@link MqttMessageDecoder}, over the payload shapes stations actually send. Run {@link #main(String[])} from the IDE, or
+ * {@code org.openjdk.jmh.Main MqttDecodeBenchmark} with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MqttDecodeBenchmark {
+
+    private static final Map<String, String> PAYLOADS = new HashMap<>();
+
+    static {
+        PAYLOADS.put("record",
+                "{\"type\":\"record\",\"sensorId\":12,\"variableId\":3,\"value\":23.4,\"date\":\"2019-11-02T10:15:30\"}");
+        PAYLOADS.put("recordTypeLast",
+                "{\"sensorId\":12,\"variableId\":3,\"value\":23.4,\"date\":\"2019-11-02T10:15:30\",\"type\":\"record\"}");
+        PAYLOADS.put("recordArrayDate",
+                "{\"type\":\"record\",\"sensorId\":12,\"variableId\":3,\"value\":23.4,\"date\":[2019,11,2,10,15,30]}");
+        PAYLOADS.put("recordExtraFields",
+                "{\"type\":\"record\",\"sensorId\":12,\"variableId\":3,\"value\":23.4,\"date\":\"2019-11-02T10:15:30Z\",\"rssi\":-67,\"firmware\":\"1.4.2\",\"meta\":{\"battery\":3.71,\"tags\":[\"garden\",\"north\"]}}");
+        PAYLOADS.put("error",
+                "{\"type\":\"error\",\"sensorId\":12,\"msg\":\"DHT22 read timeout after 3 retries\"}");
+    }
+
+    @Param({ "record", "recordTypeLast", "recordArrayDate", "recordExtraFields", "error" })
+    private String shape;
+
+    private byte[] payload;
+
+    private ObjectMapper objectMapper;
+
+    private MqttMessageDecoder decoder;
+
+    @Setup
+    public void setup() {
+        payload = PAYLOADS.get(shape).getBytes(StandardCharsets.UTF_8);
+        // Same settings as the Spring Boot mapper the consumer used to get
+        objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        decoder = new MqttMessageDecoder(objectMapper);
+    }
+
+    @Benchmark
+    public Object doubleParse() throws IOException {
+        String message = new String(payload, StandardCharsets.UTF_8);
+        MqttMessage mqttMessage = objectMapper.readValue(message, MqttMessage.class);
+        return "record".equals(mqttMessage.getType()) ? objectMapper.readValue(message, Record.class)
+                : mqttMessage;
+    }
+
+    @Benchmark
+    public Object singleParse() throws IOException {
+        MqttMessage mqttMessage = decoder.decode(payload);
+        return mqttMessage.getRecord() != null ? mqttMessage.getRecord() : mqttMessage;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MqttDecodeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,135 @@
+package com.torresj.apisensorserver.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.torresj.apisensorserver.codec.RecordDecoder;
+import com.torresj.apisensorserver.codec.RecordEncoder;
+import com.torresj.apisensorserver.export.NdjsonRecordWriter;
+import com.torresj.apisensorserver.models.entities.Record;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the columnar {@link RecordEncoder} against the NDJSON export, writing and reading a
+ * range of per-minute readings of 4 series. Encoded sizes are printed on setup. Run
+ * {@link #main(String[])} from the IDE, or {@code org.openjdk.jmh.Main RecordCodecBenchmark}
+ * with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordCodecBenchmark {
+
+    private static final int RECORDS_PER_SERIES = 25000;
+
+    private List<Record> records;
+
+    private ObjectMapper objectMapper;
+
+    private ObjectReader jsonReader;
+
+    private byte[] json;
+
+    private byte[] binary;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(1);
+        LocalDateTime time = LocalDateTime.of(2019, Month.NOVEMBER, 2, 0, 0);
+        records = new ArrayList<>();
+        long id = 1;
+        for (long sensorId = 1; sensorId <= 2; sensorId++) {
+            for (long variableId = 1; variableId <= 2; variableId++) {
+                double value = 20;
+                for (int i = 0; i < RECORDS_PER_SERIES; i++) {
+                    value = Math.round((value + random.nextGaussian() * 0.2) * 10) / 10.0;
+                    LocalDateTime date = time.plusMinutes(i).plusSeconds(random.nextInt(3));
+                    records.add(new Record(id++, sensorId, variableId, value, date,
+                            date.plusNanos(random.nextInt(1000) * 1000L)));
+                }
+            }
+        }
+        // Same settings as the Spring Boot mapper
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        jsonReader = objectMapper.readerFor(Record.class);
+        json = encodeJson();
+        binary = encodeBinary();
+        System.out.println("\nNDJSON " + json.length + " bytes, binary " + binary.length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NdjsonRecordWriter writer = new NdjsonRecordWriter(objectMapper, out);
+        for (Record record : records) {
+            writer.write(record);
+        }
+        writer.finish();
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RecordEncoder encoder = new RecordEncoder(out);
+        for (Record record : records) {
+            encoder.write(record);
+        }
+        encoder.finish();
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public double decodeJson() throws IOException {
+        double sum = 0;
+        try (MappingIterator<Record> it = jsonReader.readValues(json)) {
+            while (it.hasNext()) {
+                sum += it.next().getValue();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double decodeBinary() throws IOException {
+        double sum = 0;
+        RecordDecoder decoder = new RecordDecoder(new ByteArrayInputStream(binary));
+        for (Record record = decoder.read(); record != null; record = decoder.read()) {
+            sum += record.getValue();
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RecordCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
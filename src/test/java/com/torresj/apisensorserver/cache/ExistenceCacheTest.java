@@ -0,0 +1,97 @@
+package com.torresj.apisensorserver.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.torresj.apisensorserver.repositories.HouseRepository;
+import com.torresj.apisensorserver.repositories.SensorRepository;
+import com.torresj.apisensorserver.repositories.VariableRepository;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ExistenceCacheTest {
+
+    @Mock
+    private SensorRepository sensorRepository;
+
+    @Mock
+    private VariableRepository variableRepository;
+
+    @Mock
+    private HouseRepository houseRepository;
+
+    private MeterRegistry meterRegistry;
+
+    private ExistenceCache existenceCache;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        existenceCache = new ExistenceCache(sensorRepository, variableRepository, houseRepository,
+                meterRegistry);
+    }
+
+    @Test
+    public void readThrough() {
+        //Given
+        when(sensorRepository.existsById(1L)).thenReturn(true);
+
+        //When
+        boolean first = existenceCache.sensorExists(1);
+        boolean second = existenceCache.sensorExists(1);
+
+        //Then
+        assertTrue(first);
+        assertTrue(second);
+        verify(sensorRepository, times(1)).existsById(1L);
+        assertEquals(1, gets("existence.sensors", "hit"), 0);
+        assertEquals(1, gets("existence.sensors", "miss"), 0);
+    }
+
+    @Test
+    public void missingIdIsNotCached() {
+        //Given
+        when(variableRepository.existsById(2L)).thenReturn(false, true);
+
+        //When
+        boolean first = existenceCache.variableExists(2);
+        boolean second = existenceCache.variableExists(2);
+
+        //Then
+        assertFalse(first);
+        assertTrue(second);
+        verify(variableRepository, times(2)).existsById(2L);
+    }
+
+    @Test
+    public void evict() {
+        //Given
+        when(houseRepository.existsById(3L)).thenReturn(true, false);
+        existenceCache.houseExists(3);
+
+        //When
+        existenceCache.evictHouse(3);
+        boolean exists = existenceCache.houseExists(3);
+
+        //Then
+        assertFalse(exists);
+        verify(houseRepository, times(2)).existsById(3L);
+    }
+
+    private double gets(String cache, String result) {
+        return meterRegistry.get("cache.gets").tag("cache", cache).tag("result", result).counter()
+                .count();
+    }
+}
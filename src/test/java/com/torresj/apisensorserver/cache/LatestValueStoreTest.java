@@ -0,0 +1,97 @@
+package com.torresj.apisensorserver.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.torresj.apisensorserver.models.LatestValue;
+import com.torresj.apisensorserver.models.entities.Record;
+import com.torresj.apisensorserver.repositories.RecordRepository;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LatestValueStoreTest {
+
+    @Mock
+    private RecordRepository recordRepository;
+
+    private LatestValueStore store;
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2018, Month.JANUARY, 1, 10, 0);
+
+    @Before
+    public void setUp() {
+        store = new LatestValueStore(recordRepository, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void keepsNewestValue() {
+        //Given
+        store.update(record(1, 1, 2.0, TIME.plusMinutes(1)));
+
+        //When
+        store.update(record(1, 1, 1.0, TIME));
+        store.update(record(1, 2, 5.0, TIME));
+
+        //Then
+        List<LatestValue> values = store.getBySensor(1);
+        assertEquals(2, values.size());
+        assertEquals(2.0, values.get(0).getValue(), 0);
+        assertEquals(TIME.plusMinutes(1), values.get(0).getCreateAt());
+        assertEquals(5.0, values.get(1).getValue(), 0);
+    }
+
+    @Test
+    public void warmFromRepository() {
+        //Given
+        doAnswer(invocation -> {
+            Consumer<Record> consumer = invocation.getArgument(0);
+            consumer.accept(record(2, 1, 3.0, TIME));
+            consumer.accept(record(1, 1, 4.0, TIME));
+            return null;
+        }).when(recordRepository).forEachLatest(any());
+
+        //When
+        store.warm();
+
+        //Then
+        List<LatestValue> values = store.getBySensors(Arrays.asList(1L, 2L, 3L));
+        assertEquals(2, values.size());
+        assertEquals(1, values.get(0).getSensorId());
+        assertEquals(2, values.get(1).getSensorId());
+    }
+
+    @Test
+    public void evict() {
+        //Given
+        store.update(record(1, 1, 1.0, TIME));
+        store.update(record(1, 2, 1.0, TIME));
+        store.update(record(2, 2, 1.0, TIME));
+
+        //When
+        store.evictSensor(1);
+        store.evictVariable(2);
+
+        //Then
+        assertTrue(store.getBySensor(1).isEmpty());
+        assertTrue(store.getBySensor(2).isEmpty());
+    }
+
+    private Record record(long sensorId, long variableId, double value, LocalDateTime createAt) {
+        return new Record(null, sensorId, variableId, value, createAt, createAt);
+    }
+}
@@ -0,0 +1,60 @@
+package com.torresj.apisensorserver.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class LongHashSetTest {
+
+    @Test
+    public void addContainsRemove() {
+        //Given
+        LongHashSet set = new LongHashSet(4);
+
+        //When
+        boolean added = set.add(7);
+        boolean addedAgain = set.add(7);
+        set.add(0);
+
+        //Then
+        assertTrue(added);
+        assertFalse(addedAgain);
+        assertTrue(set.contains(7));
+        assertTrue(set.contains(0));
+        assertEquals(2, set.size());
+        assertTrue(set.remove(0));
+        assertTrue(set.remove(7));
+        assertFalse(set.contains(7));
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    public void matchesJavaSetUnderRandomOperations() {
+        //Given
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(42);
+
+        //When
+        for (int i = 0; i < 100000; i++) {
+            long key = random.nextInt(2000);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(key), set.add(key));
+            } else {
+                assertEquals(expected.remove(key), set.remove(key));
+            }
+        }
+
+        //Then
+        assertEquals(expected.size(), set.size());
+        for (long key = 0; key < 2000; key++) {
+            assertEquals(expected.contains(key), set.contains(key));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.torresj.apisensorserver.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.torresj.apisensorserver.models.entities.Record;
+import com.torresj.apisensorserver.utils.TestUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RecentRecordKeysTest {
+
+    private static final LocalDateTime DATE = LocalDateTime.of(2019, Month.MARCH, 1, 10, 0);
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RecentRecordKeys recentKeys;
+
+    private long now;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        recentKeys = new RecentRecordKeys(1000, 4, meterRegistry);
+        now = System.currentTimeMillis();
+    }
+
+    @Test
+    public void dropsStoredAndRepeatedKeys() {
+        //Given
+        Record stored = record(1, 1, DATE);
+        recentKeys.addAll(Collections.singletonList(stored), now);
+        Record fresh = record(1, 2, DATE);
+
+        //When
+        List<Record> records = recentKeys.filter(
+                Arrays.asList(record(1, 1, DATE), fresh, record(1, 2, DATE),
+                        record(1, 1, DATE.plusNanos(1))), now);
+
+        //Then
+        assertEquals(2, records.size());
+        assertTrue(records.get(0) == fresh);
+        assertEquals(DATE.plusNanos(1), records.get(1).getDate());
+        assertEquals(2, meterRegistry.get("ingest.records.duplicates").tag("source", "window")
+                .counter().count(), 0);
+    }
+
+    @Test
+    public void forgetsKeysOutOfWindow() {
+        //Given
+        recentKeys.addAll(Collections.singletonList(record(1, 1, DATE)), now);
+
+        //When
+        int inWindow = recentKeys.filter(Collections.singletonList(record(1, 1, DATE)), now + 500)
+                .size();
+        int outOfWindow = recentKeys
+                .filter(Collections.singletonList(record(1, 1, DATE)), now + 1000).size();
+
+        //Then
+        assertEquals(0, inWindow);
+        assertEquals(1, outOfWindow);
+        assertEquals(0, recentKeys.size());
+    }
+
+    @Test
+    public void recordsWithoutDateAreKept() {
+        //Given
+        Record record = TestUtils.getExampleRecord(1, 1);
+        recentKeys.addAll(Collections.singletonList(record), now);
+
+        //When
+        List<Record> records = recentKeys.filter(Arrays.asList(record, record), now);
+
+        //Then
+        assertEquals(2, records.size());
+        assertEquals(0, recentKeys.size());
+    }
+
+    @Test
+    public void duplicateFromIndexIsRemembered() {
+        //When
+        recentKeys.duplicate(record(1, 1, DATE));
+
+        //Then
+        assertTrue(recentKeys.filter(Collections.singletonList(record(1, 1, DATE))).isEmpty());
+        assertEquals(1, meterRegistry.get("ingest.records.duplicates").tag("source", "index")
+                .counter().count(), 0);
+        assertEquals(1, meterRegistry.get("cache.size").tag("cache", "record.keys").gauge()
+                .value(), 0);
+    }
+
+    private static Record record(long sensorId, long variableId, LocalDateTime date) {
+        Record record = TestUtils.getExampleRecord(sensorId, variableId);
+        record.setDate(date);
+        return record;
+    }
+}
@@ -0,0 +1,104 @@
+package com.torresj.apisensorserver.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import com.torresj.apisensorserver.models.entities.SensorType;
+import com.torresj.apisensorserver.repositories.SensorTypeRepository;
+import com.torresj.apisensorserver.utils.TestUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SensorTypeActionsTest {
+
+    @Mock
+    private SensorTypeRepository sensorTypeRepository;
+
+    private SensorTypeActions sensorTypeActions;
+
+    @Before
+    public void setUp() {
+        sensorTypeActions = new SensorTypeActions(sensorTypeRepository, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void readThrough() {
+        //Given
+        SensorType type = TestUtils.getExampleSensorType(1);
+        type.setActions("open,close");
+
+        //When
+        when(sensorTypeRepository.findById(1L)).thenReturn(Optional.of(type));
+        Set<String> first = sensorTypeActions.getActions(1).get();
+        Set<String> second = sensorTypeActions.getActions(1).get();
+
+        //Then
+        assertEquals(new HashSet<>(Arrays.asList("open", "close")), first);
+        assertEquals(first, second);
+        verify(sensorTypeRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    public void refreshReplacesActions() {
+        //Given
+        SensorType type = TestUtils.getExampleSensorType(1);
+        type.setActions("open,close");
+        SensorType updated = TestUtils.getExampleSensorType(1);
+        updated.setActions("reboot");
+
+        //When
+        sensorTypeActions.refresh(type);
+        sensorTypeActions.refresh(updated);
+        Set<String> actions = sensorTypeActions.getActions(1).get();
+
+        //Then
+        assertEquals(new HashSet<>(Arrays.asList("reboot")), actions);
+        verify(sensorTypeRepository, times(0)).findById(1L);
+    }
+
+    @Test
+    public void unknownTypesAreNotCached() {
+        //When
+        when(sensorTypeRepository.findById(1L)).thenReturn(Optional.empty());
+        boolean first = sensorTypeActions.getActions(1).isPresent();
+        boolean second = sensorTypeActions.getActions(1).isPresent();
+
+        //Then
+        assertFalse(first);
+        assertFalse(second);
+        verify(sensorTypeRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    public void evictReloadsActions() {
+        //Given
+        SensorType type = TestUtils.getExampleSensorType(1);
+        type.setActions(null);
+
+        //When
+        when(sensorTypeRepository.findById(1L)).thenReturn(Optional.of(type));
+        sensorTypeActions.getActions(1);
+        sensorTypeActions.evict(1);
+        Set<String> actions = sensorTypeActions.getActions(1).get();
+
+        //Then
+        assertTrue(actions.isEmpty());
+        verify(sensorTypeRepository, times(2)).findById(1L);
+    }
+}
@@ -0,0 +1,78 @@
+package com.torresj.apisensorserver.cache;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class TokenCacheTest {
+
+    private static final String SECRET = "secret";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TokenCache tokenCache;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tokenCache = new TokenCache(SECRET, 2, meterRegistry);
+    }
+
+    @Test
+    public void verifiesTokenOnce() {
+        //Given
+        String token = token("user", SECRET, 60000);
+
+        //When
+        String first = tokenCache.getSubject(token);
+        String second = tokenCache.getSubject(token);
+
+        //Then
+        assertEquals("user", first);
+        assertEquals("user", second);
+        assertEquals(1, meterRegistry.get("cache.misses").counter().count(), 0);
+        assertEquals(1, meterRegistry.get("cache.hits").counter().count(), 0);
+    }
+
+    @Test(expected = SignatureException.class)
+    public void rejectsTokenSignedWithOtherSecret() {
+        tokenCache.getSubject(token("user", "other", 60000));
+    }
+
+    @Test(expected = ExpiredJwtException.class)
+    public void rejectsExpiredToken() {
+        tokenCache.getSubject(token("user", SECRET, -1000));
+    }
+
+    @Test
+    public void staysWithinMaxSize() {
+        //Given
+        String[] tokens = { token("a", SECRET, 60000), token("b", SECRET, 60000),
+                token("c", SECRET, 60000) };
+
+        //When
+        for (String token : tokens) {
+            tokenCache.getSubject(token);
+        }
+        tokenCache.getSubject(tokens[2]);
+
+        //Then
+        assertEquals(2, meterRegistry.get("cache.size").gauge().value(), 0);
+        assertEquals(4, meterRegistry.get("cache.misses").counter().count(), 0);
+    }
+
+    private static String token(String subject, String secret, long expiresIn) {
+        return Jwts.builder().setSubject(subject)
+                .setExpiration(new Date(System.currentTimeMillis() + expiresIn))
+                .signWith(SignatureAlgorithm.HS512, secret).compact();
+    }
+}
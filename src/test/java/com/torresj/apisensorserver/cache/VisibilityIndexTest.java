@@ -0,0 +1,144 @@
+package com.torresj.apisensorserver.cache;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
+import com.torresj.apisensorserver.models.entities.User;
+import com.torresj.apisensorserver.models.entities.UserHouseRelation;
+import com.torresj.apisensorserver.models.entities.VariableSensorRelation;
+import com.torresj.apisensorserver.repositories.SensorRepository;
+import com.torresj.apisensorserver.repositories.UserHouseRelationRepository;
+import com.torresj.apisensorserver.repositories.UserRepository;
+import com.torresj.apisensorserver.repositories.VariableSensorRelationRepository;
+import com.torresj.apisensorserver.utils.TestUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class VisibilityIndexTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserHouseRelationRepository userHouseRelationRepository;
+
+    @Mock
+    private SensorRepository sensorRepository;
+
+    @Mock
+    private VariableSensorRelationRepository variableSensorRelationRepository;
+
+    private VisibilityIndex visibilityIndex;
+
+    @Before
+    public void setUp() {
+        visibilityIndex = new VisibilityIndex(userRepository, userHouseRelationRepository,
+                sensorRepository, variableSensorRelationRepository, 60000);
+
+        User user = TestUtils.getExampleUser("user", "test", User.Role.USER);
+        user.setId(1L);
+        when(userRepository.findByUsername("user")).thenReturn(Optional.of(user));
+        when(userHouseRelationRepository.findByUserId(1L))
+                .thenReturn(Collections.singletonList(new UserHouseRelation(null, 1L, 10L)));
+        when(sensorRepository.findByHouseIdIn(Collections.singletonList(10L)))
+                .thenReturn(Arrays.asList(TestUtils.getExampleSensor(100, 10, 1)));
+        when(variableSensorRelationRepository.findBySensorIdIn(Collections.singletonList(100L)))
+                .thenReturn(Collections.singletonList(new VariableSensorRelation(null, 100L, 1000L)));
+    }
+
+    @Test
+    public void visibilityLoadedOnce() throws EntityNotFoundException {
+        //When
+        boolean house = visibilityIndex.canSeeHouse("user", 10);
+        boolean sensor = visibilityIndex.canSeeSensor("user", 100);
+        boolean variable = visibilityIndex.canSeeVariable("user", 1000);
+        boolean otherSensor = visibilityIndex.canSeeSensor("user", 101);
+
+        //Then
+        assertTrue(house);
+        assertTrue(sensor);
+        assertTrue(variable);
+        assertFalse(otherSensor);
+        verify(userRepository, times(1)).findByUsername("user");
+        verify(sensorRepository, times(1)).findByHouseIdIn(anyList());
+    }
+
+    @Test
+    public void expiredViewIsReloaded() throws EntityNotFoundException {
+        //Given
+        visibilityIndex = new VisibilityIndex(userRepository, userHouseRelationRepository,
+                sensorRepository, variableSensorRelationRepository, 0);
+
+        //When
+        visibilityIndex.canSeeHouse("user", 10);
+        visibilityIndex.canSeeHouse("user", 10);
+
+        //Then
+        verify(userRepository, times(2)).findByUsername("user");
+        verify(userHouseRelationRepository, times(2)).findByUserId(1L);
+    }
+
+    @Test
+    public void userChangedDropsView() throws EntityNotFoundException {
+        //Given
+        visibilityIndex.canSeeHouse("user", 10);
+        when(userHouseRelationRepository.findByUserId(1L)).thenReturn(Collections.emptyList());
+
+        //When
+        visibilityIndex.userChanged(1);
+
+        //Then
+        assertFalse(visibilityIndex.canSeeHouse("user", 10));
+    }
+
+    @Test
+    public void houseAddedIsAppliedInPlace() throws EntityNotFoundException {
+        //Given
+        visibilityIndex.canSeeHouse("user", 10);
+        when(sensorRepository.findByHouseId(11L))
+                .thenReturn(Collections.singletonList(TestUtils.getExampleSensor(101, 11, 1)));
+        when(variableSensorRelationRepository.findBySensorIdIn(Collections.singletonList(101L)))
+                .thenReturn(Collections.emptyList());
+
+        //When
+        visibilityIndex.houseAdded(1, 11);
+
+        //Then
+        assertTrue(visibilityIndex.canSeeHouse("user", 11));
+        assertTrue(visibilityIndex.canSeeSensor("user", 101));
+        verify(userHouseRelationRepository, times(1)).findByUserId(1L);
+    }
+
+    @Test
+    public void houseChangedReloadsAffectedUsers() throws EntityNotFoundException {
+        //Given
+        visibilityIndex.canSeeHouse("user", 10);
+        when(userHouseRelationRepository.findByUserId(1L)).thenReturn(Collections.emptyList());
+
+        //When
+        visibilityIndex.houseChanged(10);
+
+        //Then
+        assertFalse(visibilityIndex.canSeeHouse("user", 10));
+        assertFalse(visibilityIndex.canSeeSensor("user", 100));
+    }
+
+    @Test(expected = EntityNotFoundException.class)
+    public void unknownUser() throws EntityNotFoundException {
+        visibilityIndex.canSeeHouse("nobody", 10);
+    }
+}
@@ -0,0 +1,175 @@
+package com.torresj.apisensorserver.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.torresj.apisensorserver.models.entities.Record;
+
+import org.junit.Test;
+
+public class RecordCodecTest {
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2018, Month.JANUARY, 1, 10, 0);
+
+    @Test
+    public void roundTripSeries() throws IOException {
+        //Given
+        List<Record> records = series(5000, 7);
+
+        //When
+        List<Record> decoded = decode(encode(records, RecordEncoder.DEFAULT_BLOCK_SIZE));
+
+        //Then
+        assertEquals(records, decoded);
+    }
+
+    @Test
+    public void roundTripAcrossBlockBoundaries() throws IOException {
+        //Given
+        List<Record> records = series(10, 11);
+
+        //When
+        for (int blockSize = 1; blockSize <= 11; blockSize++) {
+            //Then
+            assertEquals(records, decode(encode(records, blockSize)));
+        }
+    }
+
+    @Test
+    public void roundTripEdgeValues() throws IOException {
+        //Given
+        List<Record> records = new ArrayList<>();
+        double[] values = { 0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.MIN_VALUE, Double.MAX_VALUE, -1.5, 1.5, 0.1,
+                Double.longBitsToDouble(0x7ff8dead00000001L) };
+        LocalDateTime[] dates = { TIME, LocalDateTime.of(1970, Month.JANUARY, 1, 0, 0),
+                LocalDateTime.of(1900, Month.JUNE, 1, 12, 0, 0, 999_999_999),
+                LocalDateTime.of(2200, Month.DECEMBER, 31, 23, 59, 59, 1), TIME };
+        long[] ids = { 1, Long.MAX_VALUE, 0, Long.MIN_VALUE, -1 };
+        for (int i = 0; i < values.length; i++) {
+            records.add(new Record(ids[i % ids.length], ids[(i + 1) % ids.length],
+                    ids[(i + 2) % ids.length], values[i], dates[i % dates.length],
+                    dates[(i + 3) % dates.length]));
+        }
+
+        //When
+        List<Record> decoded = decode(encode(records, 4));
+
+        //Then
+        assertEquals(records.size(), decoded.size());
+        for (int i = 0; i < records.size(); i++) {
+            Record expected = records.get(i);
+            Record actual = decoded.get(i);
+            assertEquals(Double.doubleToRawLongBits(expected.getValue()),
+                    Double.doubleToRawLongBits(actual.getValue()));
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getSensorId(), actual.getSensorId());
+            assertEquals(expected.getVariableId(), actual.getVariableId());
+            assertEquals(expected.getDate(), actual.getDate());
+            assertEquals(expected.getCreateAt(), actual.getCreateAt());
+        }
+    }
+
+    @Test
+    public void roundTripEmpty() throws IOException {
+        //Given
+        byte[] encoded = encode(new ArrayList<>(), RecordEncoder.DEFAULT_BLOCK_SIZE);
+
+        //When
+        RecordDecoder decoder = new RecordDecoder(new ByteArrayInputStream(encoded));
+
+        //Then
+        assertNull(decoder.read());
+        assertNull(decoder.read());
+    }
+
+    @Test
+    public void smallerThanJson() throws IOException {
+        //Given
+        List<Record> records = series(5000, 7);
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        //When
+        int json = objectMapper.writeValueAsBytes(records).length;
+        int binary = encode(records, RecordEncoder.DEFAULT_BLOCK_SIZE).length;
+
+        //Then
+        assertTrue("binary " + binary + " bytes against json " + json, binary * 5 < json);
+    }
+
+    @Test(expected = IOException.class)
+    public void decodeWrongHeader() throws IOException {
+        //Given
+        byte[] encoded = "{\"id\":1}".getBytes();
+
+        //When
+        new RecordDecoder(new ByteArrayInputStream(encoded));
+    }
+
+    @Test(expected = EOFException.class)
+    public void decodeTruncated() throws IOException {
+        //Given
+        byte[] encoded = encode(series(100, 1), RecordEncoder.DEFAULT_BLOCK_SIZE);
+        RecordDecoder decoder = new RecordDecoder(
+                new ByteArrayInputStream(Arrays.copyOf(encoded, encoded.length / 2)));
+
+        //When
+        while (decoder.read() != null) {
+        }
+    }
+
+    /* Per-minute readings with a little jitter, ordered by sensor and variable like an export */
+    private List<Record> series(int perSeries, int seed) {
+        Random random = new Random(seed);
+        List<Record> records = new ArrayList<>();
+        long id = 1000;
+        for (long sensorId = 1; sensorId <= 2; sensorId++) {
+            for (long variableId = 3; variableId <= 4; variableId++) {
+                double value = 20;
+                for (int i = 0; i < perSeries; i++) {
+                    value = Math.round((value + random.nextGaussian() * 0.2) * 10) / 10.0;
+                    LocalDateTime date = TIME.plusMinutes(i).plusSeconds(random.nextInt(3));
+                    records.add(new Record(id, sensorId, variableId, value, date,
+                            date.plusNanos(random.nextInt(1000) * 1000L)));
+                    id += 1 + random.nextInt(4);
+                }
+            }
+        }
+        return records;
+    }
+
+    private byte[] encode(List<Record> records, int blockSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RecordEncoder encoder = new RecordEncoder(out, blockSize);
+        for (Record record : records) {
+            encoder.write(record);
+        }
+        encoder.finish();
+        return out.toByteArray();
+    }
+
+    private List<Record> decode(byte[] encoded) throws IOException {
+        RecordDecoder decoder = new RecordDecoder(new ByteArrayInputStream(encoded));
+        List<Record> records = new ArrayList<>();
+        for (Record record = decoder.read(); record != null; record = decoder.read()) {
+            records.add(record);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,141 @@
+package com.torresj.apisensorserver.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RecordPartitionsTest {
+
+    /* MySQL database the migration test runs on, it is skipped when not set */
+    private static final String MYSQL_URL = System.getProperty("records.partitions.test-url");
+
+    private static final String CREATE_RECORD = "CREATE TABLE record (id BIGINT NOT NULL AUTO_INCREMENT, create_at DATETIME(6) NOT NULL, date DATETIME(6) NOT NULL, sensor_id BIGINT NOT NULL, value DOUBLE NOT NULL, variable_id BIGINT NOT NULL, PRIMARY KEY (id), UNIQUE KEY uk_record_sensor_variable_date (sensor_id, variable_id, date), KEY idx_record_sensor_variable_create_at (sensor_id, variable_id, create_at))";
+
+    private static final String INSERT_RECORD = "INSERT INTO record (sensor_id, variable_id, value, date, create_at) VALUES (1, 1, 2.0, ?, ?)";
+
+    @Test
+    public void firstRunPartitionsByDate() {
+        //Given
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(startsWith("SELECT PARTITION_NAME"), eq(String.class)))
+                .thenReturn(new ArrayList<>());
+        when(jdbcTemplate.queryForObject("SELECT MIN(date) FROM record", Timestamp.class))
+                .thenReturn(Timestamp.valueOf(LocalDateTime.now().minusMonths(1)));
+
+        //When
+        new RecordPartitions(jdbcTemplate, true, 1, 0, new SimpleMeterRegistry()).maintain();
+
+        //Then
+        verify(jdbcTemplate).execute(RecordPartitions.PARTITION_KEY);
+        verify(jdbcTemplate).execute(
+                startsWith("ALTER TABLE record PARTITION BY RANGE COLUMNS(date) (PARTITION p"
+                        + YearMonth.now().minusMonths(1).toString().replace("-", "")));
+    }
+
+    @Test
+    public void partitionedTableRejectsRedeliveries() {
+        Assume.assumeTrue(MYSQL_URL != null);
+
+        //Given
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(MYSQL_URL));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS record");
+        jdbcTemplate.execute(CREATE_RECORD);
+        Timestamp date = Timestamp.valueOf(LocalDateTime.now().minusMonths(2).withNano(0));
+        jdbcTemplate.update(INSERT_RECORD, date, date);
+
+        //When
+        RecordPartitions partitions = new RecordPartitions(jdbcTemplate, true, 1, 0,
+                new SimpleMeterRegistry());
+        partitions.start();
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'record' AND PARTITION_NAME IS NOT NULL",
+                String.class);
+
+        //Then
+        assertEquals(5, names.size());
+        try {
+            jdbcTemplate.update(INSERT_RECORD, date, Timestamp.valueOf(LocalDateTime.now()));
+            fail("Redelivery with a later createAt was stored");
+        } catch (DuplicateKeyException e) {
+            // Rejected by uk_record_sensor_variable_date
+        } finally {
+            jdbcTemplate.execute("DROP TABLE record");
+        }
+    }
+
+    @Test
+    public void missingFromOldestRecordWhenNotPartitioned() {
+        //When
+        List<YearMonth> missing = RecordPartitions.missing(new ArrayList<>(),
+                YearMonth.of(2018, 11), YearMonth.of(2019, 2));
+
+        //Then
+        assertEquals(Arrays.asList(YearMonth.of(2018, 11), YearMonth.of(2018, 12),
+                YearMonth.of(2019, 1), YearMonth.of(2019, 2)), missing);
+    }
+
+    @Test
+    public void missingAfterLastPartition() {
+        //Given
+        List<YearMonth> months = Arrays.asList(YearMonth.of(2019, 1), YearMonth.of(2019, 2));
+
+        //When
+        List<YearMonth> missing = RecordPartitions.missing(months, months.get(0),
+                YearMonth.of(2019, 3));
+        List<YearMonth> none = RecordPartitions.missing(months, months.get(0),
+                YearMonth.of(2019, 2));
+
+        //Then
+        assertEquals(Collections.singletonList(YearMonth.of(2019, 3)), missing);
+        assertTrue(none.isEmpty());
+    }
+
+    @Test
+    public void expiredKeepsCurrentAndRetainedMonths() {
+        //Given
+        List<YearMonth> months = Arrays.asList(YearMonth.of(2018, 12), YearMonth.of(2019, 1),
+                YearMonth.of(2019, 2), YearMonth.of(2019, 3), YearMonth.of(2019, 4));
+
+        //When
+        List<YearMonth> expired = RecordPartitions.expired(months, YearMonth.of(2019, 3), 1);
+        List<YearMonth> kept = RecordPartitions.expired(months, YearMonth.of(2019, 3), 0);
+
+        //Then
+        assertEquals(Arrays.asList(YearMonth.of(2018, 12), YearMonth.of(2019, 1)), expired);
+        assertTrue(kept.isEmpty());
+    }
+
+    @Test
+    public void definitionsEndWithMaxValue() {
+        //When
+        String definitions = RecordPartitions
+                .definitions(Arrays.asList(YearMonth.of(2018, 12), YearMonth.of(2019, 1)));
+
+        //Then
+        assertEquals("PARTITION p201812 VALUES LESS THAN ('2019-01-01 00:00:00'), "
+                + "PARTITION p201901 VALUES LESS THAN ('2019-02-01 00:00:00'), "
+                + "PARTITION pmax VALUES LESS THAN (MAXVALUE)", definitions);
+        assertEquals(YearMonth.of(2018, 12), RecordPartitions.monthOf("p201812"));
+    }
+}
@@ -0,0 +1,131 @@
+package com.torresj.apisensorserver.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DataSource primary;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        primary = database("primary");
+    }
+
+    @Test
+    public void readOnlyTransactionsGoToReplica() {
+        //Given
+        ReplicaRoutingDataSource routing = routing(database("replica"));
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        //When
+        String readOnly = transaction(dataSource, true)
+                .execute(status -> marker(jdbcTemplate));
+        String readWrite = transaction(dataSource, false)
+                .execute(status -> marker(jdbcTemplate));
+        String noTransaction = marker(jdbcTemplate);
+
+        //Then
+        assertTrue(routing.isReplicaAvailable());
+        assertEquals("replica", readOnly);
+        assertEquals("primary", readWrite);
+        assertEquals("primary", noTransaction);
+        assertEquals(1, meterRegistry.get("datasource.connections").tag("target", "replica")
+                .counter().count(), 0);
+    }
+
+    @Test
+    public void unreachableReplicaFallsBackToPrimary() {
+        //Given
+        ReplicaRoutingDataSource routing = routing(
+                new DriverManagerDataSource("jdbc:h2:./target/missing-replica;IFEXISTS=TRUE"));
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        //When
+        String readOnly = transaction(dataSource, true)
+                .execute(status -> marker(jdbcTemplate));
+
+        //Then
+        assertFalse(routing.isReplicaAvailable());
+        assertEquals(-1, routing.getLag());
+        assertEquals("primary", readOnly);
+        assertEquals(0, meterRegistry.get("datasource.replica.available").gauge().value(), 0);
+    }
+
+    @Test
+    public void pooledReplicaDownAtStartFallsBackToPrimary() throws Exception {
+        assertPooledReplicaLeftOut(DataSourceBuilder.create()
+                .url("jdbc:h2:./target/missing-replica;IFEXISTS=TRUE").build());
+    }
+
+    @Test
+    public void replicaPoolFailingUncheckedFallsBackToPrimary() throws Exception {
+        // Hikari fails to start this pool with a RuntimeException, not a SQLException
+        assertPooledReplicaLeftOut(DataSourceBuilder.create().driverClassName("org.h2.Driver")
+                .url("jdbc:mysql://127.0.0.1:1/replica").build());
+    }
+
+    private void assertPooledReplicaLeftOut(DataSource replica) throws Exception {
+        //When
+        ReplicaRoutingDataSource routing = routing(replica);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        String readOnly = transaction(dataSource, true)
+                .execute(status -> marker(jdbcTemplate));
+        routing.close();
+
+        //Then
+        assertTrue(replica instanceof HikariDataSource);
+        assertFalse(routing.isReplicaAvailable());
+        assertEquals("primary", readOnly);
+    }
+
+    private ReplicaRoutingDataSource routing(DataSource replica) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, 5,
+                meterRegistry);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    private static TransactionTemplate transaction(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(
+                new DataSourceTransactionManager(dataSource));
+        template.setReadOnly(readOnly);
+        return template;
+    }
+
+    private static String marker(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS marker (name VARCHAR(16))");
+        jdbcTemplate.update("DELETE FROM marker");
+        jdbcTemplate.update("INSERT INTO marker VALUES (?)", name);
+        return dataSource;
+    }
+}
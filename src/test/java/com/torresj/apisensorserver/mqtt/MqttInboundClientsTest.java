@@ -0,0 +1,43 @@
+package com.torresj.apisensorserver.mqtt;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class MqttInboundClientsTest {
+
+    @Test
+    public void singleClientUsesTopic() {
+        assertEquals(Collections.singletonList("mqtt/topic"),
+                MqttInboundClients.topicsFor(0, 1, "mqtt/topic", "", 0));
+    }
+
+    @Test
+    public void sharedGroupForEveryClient() {
+        assertEquals(Collections.singletonList("$share/ingest/mqtt/topic"),
+                MqttInboundClients.topicsFor(0, 3, "mqtt/topic", "ingest", 0));
+        assertEquals(Collections.singletonList("$share/ingest/mqtt/topic"),
+                MqttInboundClients.topicsFor(2, 3, "mqtt/topic", "ingest", 0));
+    }
+
+    @Test
+    public void shardsSpreadRoundRobin() {
+        assertEquals(Arrays.asList("mqtt/topic", "mqtt/topic/0", "mqtt/topic/2", "mqtt/topic/4"),
+                MqttInboundClients.topicsFor(0, 2, "mqtt/topic", null, 5));
+        assertEquals(Arrays.asList("mqtt/topic/1", "mqtt/topic/3"),
+                MqttInboundClients.topicsFor(1, 2, "mqtt/topic", null, 5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void manyClientsNeedGroupOrShards() {
+        MqttInboundClients.topicsFor(1, 2, "mqtt/topic", "", 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void everyClientNeedsAShard() {
+        MqttInboundClients.topicsFor(0, 3, "mqtt/topic", null, 2);
+    }
+}
@@ -0,0 +1,108 @@
+package com.torresj.apisensorserver.mqtt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.torresj.apisensorserver.models.MqttMessage;
+import com.torresj.apisensorserver.models.entities.Record;
+
+import org.junit.Test;
+
+public class MqttMessageDecoderTest {
+
+    private MqttMessageDecoder decoder = new MqttMessageDecoder(new ObjectMapper());
+
+    @Test
+    public void decodeRecord() throws IOException {
+        //Given
+        byte[] payload = bytes(
+                "{\"type\":\"record\",\"sensorId\":12,\"variableId\":3,\"value\":23.4,\"date\":\"2019-11-02T10:15:30\"}");
+
+        //When
+        MqttMessage message = decoder.decode(payload);
+
+        //Then
+        Record record = message.getRecord();
+        assertEquals("record", message.getType());
+        assertEquals(12, record.getSensorId());
+        assertEquals(3, record.getVariableId());
+        assertEquals(23.4, record.getValue(), 0);
+        assertEquals(LocalDateTime.of(2019, 11, 2, 10, 15, 30), record.getDate());
+        assertNull(record.getId());
+        assertNull(record.getCreateAt());
+    }
+
+    @Test
+    public void decodeRecordWithTypeLastAndUnknownFields() throws IOException {
+        //Given
+        byte[] payload = bytes(
+                "{\"date\":[2019,11,2,10,15],\"extra\":{\"a\":[1,2]},\"value\":\"7.5\",\"sensorId\":\"4\",\"variableId\":1,\"type\":\"record\"}");
+
+        //When
+        MqttMessage message = decoder.decode(payload);
+
+        //Then
+        Record record = message.getRecord();
+        assertEquals(4, record.getSensorId());
+        assertEquals(7.5, record.getValue(), 0);
+        assertEquals(LocalDateTime.of(2019, 11, 2, 10, 15), record.getDate());
+    }
+
+    @Test
+    public void decodeUtcDate() throws IOException {
+        //Given
+        byte[] payload = bytes("{\"type\":\"record\",\"sensorId\":1,\"date\":\"2019-11-02T10:15:30Z\"}");
+
+        //When
+        MqttMessage message = decoder.decode(payload);
+
+        //Then
+        assertEquals(LocalDateTime.of(2019, 11, 2, 10, 15, 30), message.getRecord().getDate());
+    }
+
+    @Test
+    public void decodeError() throws IOException {
+        //Given
+        byte[] payload = bytes("{\"type\":\"error\",\"sensorId\":5,\"msg\":\"Sensor failure\"}");
+
+        //When
+        MqttMessage message = decoder.decode(payload);
+
+        //Then
+        assertEquals("error", message.getType());
+        assertEquals(5, message.getSensorId());
+        assertEquals("Sensor failure", message.getMsg());
+        assertNull(message.getRecord());
+    }
+
+    @Test(expected = IOException.class)
+    public void decodeWithoutType() throws IOException {
+        decoder.decode(bytes("{\"sensorId\":5}"));
+    }
+
+    @Test(expected = IOException.class)
+    public void decodeInvalidDate() throws IOException {
+        decoder.decode(bytes("{\"type\":\"record\",\"sensorId\":1,\"date\":\"yesterday\"}"));
+    }
+
+    @Test(expected = IOException.class)
+    public void decodeDateArrayWithNonNumericElement() throws IOException {
+        decoder.decode(bytes(
+                "{\"type\":\"record\",\"date\":[2019,11,\"02\",10,15],\"sensorId\":1,\"value\":2.0}"));
+    }
+
+    @Test(expected = IOException.class)
+    public void decodeDateArrayOutOfRange() throws IOException {
+        decoder.decode(bytes(
+                "{\"type\":\"record\",\"date\":[2019,13,2,10,15],\"sensorId\":1,\"value\":2.0}"));
+    }
+
+    private byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,119 @@
+package com.torresj.apisensorserver.mqtt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class MqttPartitionsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private MqttPartitions partitions;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        partitions = new MqttPartitions(meterRegistry, 4, 2);
+        partitions.start();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        partitions.stop();
+    }
+
+    @Test
+    public void keepsOrderBySensor() throws InterruptedException {
+        //Given
+        Map<Long, List<Integer>> processed = new ConcurrentHashMap<>();
+        Map<Long, String> threads = new ConcurrentHashMap<>();
+
+        //When
+        for (int i = 0; i < 100; i++) {
+            for (long sensorId = 1; sensorId <= 8; sensorId++) {
+                long id = sensorId;
+                int sequence = i;
+                assertTrue(partitions.execute(id, () -> {
+                    processed.computeIfAbsent(id, key -> new ArrayList<>()).add(sequence);
+                    threads.put(id, Thread.currentThread().getName());
+                }));
+            }
+        }
+        partitions.stop();
+
+        //Then
+        for (long sensorId = 1; sensorId <= 8; sensorId++) {
+            List<Integer> sequences = processed.get(sensorId);
+            assertEquals(100, sequences.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, sequences.get(i).intValue());
+            }
+        }
+        assertEquals(threads.get(1L), threads.get(5L));
+        assertNotEquals(threads.get(1L), threads.get(2L));
+        assertEquals(800, meterRegistry.get("mqtt.partition.processed").counters().stream()
+                .mapToDouble(counter -> counter.count()).sum(), 0);
+    }
+
+    @Test
+    public void slowSensorDoesNotStallOthers() throws InterruptedException {
+        //Given
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch other = new CountDownLatch(1);
+
+        //When
+        partitions.execute(1, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        partitions.execute(2, other::countDown);
+
+        //Then
+        assertTrue(other.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    public void failedTaskKeepsPartitionRunning() throws InterruptedException {
+        //Given
+        CountDownLatch next = new CountDownLatch(1);
+
+        //When
+        partitions.execute(1, () -> {
+            throw new IllegalStateException("Test");
+        });
+        partitions.execute(1, next::countDown);
+
+        //Then
+        assertTrue(next.await(5, TimeUnit.SECONDS));
+        assertEquals(1, meterRegistry.get("mqtt.partition.failed").tag("partition", "1").counter()
+                .count(), 0);
+    }
+
+    @Test
+    public void rejectsOnceStopped() throws InterruptedException {
+        //When
+        partitions.stop();
+
+        //Then
+        assertFalse(partitions.execute(1, () -> {
+        }));
+    }
+}
@@ -0,0 +1,94 @@
+package com.torresj.apisensorserver.repositories;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+
+import com.torresj.apisensorserver.models.entities.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserRepositoryImplTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private Cache cache;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private UserRepositoryImpl userRepository;
+
+    @Before
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:users;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(
+                "CREATE TABLE user (id BIGINT PRIMARY KEY, username VARCHAR(255), last_connection TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO user (id, username) VALUES (1, 'one'), (2, 'two'), (3, 'three')");
+        userRepository = new UserRepositoryImpl(jdbcTemplate,
+                new DataSourceTransactionManager(dataSource), entityManagerFactory);
+    }
+
+    @After
+    public void tearDown() {
+        jdbcTemplate.execute("DROP TABLE user");
+    }
+
+    @Test
+    public void updateEvictsOnlyFlushedUsers() {
+        //Given
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        Map<String, LocalDateTime> connections = new LinkedHashMap<>();
+        connections.put("one", now);
+        connections.put("three", now);
+
+        //When
+        int[] updated = userRepository.updateLastConnections(connections);
+
+        //Then
+        assertArrayEquals(new int[] { 1, 1 }, updated);
+        assertEquals(Timestamp.valueOf(now), jdbcTemplate.queryForObject(
+                "SELECT last_connection FROM user WHERE id = 3", Timestamp.class));
+        verify(cache, times(1)).evict(User.class, 1L);
+        verify(cache, times(1)).evict(User.class, 3L);
+        verify(cache, never()).evict(User.class, 2L);
+        verify(cache, never()).evict(User.class);
+    }
+
+    @Test
+    public void emptyBatchDoesNothing() {
+        //When
+        int[] updated = userRepository.updateLastConnections(Collections.emptyMap());
+
+        //Then
+        assertEquals(0, updated.length);
+        verify(cache, never()).evict(eq(User.class), anyLong());
+    }
+}
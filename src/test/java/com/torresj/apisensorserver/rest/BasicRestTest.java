@@ -11,6 +11,7 @@ import java.util.Random;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.torresj.apisensorserver.ApiSensorApplication;
+import com.torresj.apisensorserver.cache.VisibilityIndex;
 import com.torresj.apisensorserver.models.entities.GPSPosition;
 import com.torresj.apisensorserver.models.entities.House;
 import com.torresj.apisensorserver.models.entities.Record;
@@ -87,6 +88,9 @@ public class BasicRestTest {
     @Autowired
     protected RecordRepository recordRepository;
 
+    @Autowired
+    protected VisibilityIndex visibilityIndex;
+
     @Autowired
     protected BCryptPasswordEncoder bCryptPasswordEncoder;
 
@@ -249,7 +253,7 @@ public class BasicRestTest {
                     LocalDateTime.now(), LocalDateTime.now());
             Record record6 = new Record(null, sensor2.getId(), variable2.getId(),
                     new Random().nextDouble(),
-                    LocalDateTime.now(), LocalDateTime.now());
+                    LocalDateTime.now().minusSeconds(1), LocalDateTime.now());
             Record record7 = new Record(null, sensor3.getId(), variable3.getId(),
                     new Random().nextDouble(),
                     LocalDateTime.now(), LocalDateTime.now());
@@ -260,7 +264,8 @@ public class BasicRestTest {
                     new Random().nextDouble(),
                     LocalDateTime.now(), LocalDateTime.now());
             Record record10 = new Record(null, sensor1.getId(), variable2.getId(),
-                    new Random().nextDouble(), LocalDateTime.now(), LocalDateTime.now());
+                    new Random().nextDouble(), LocalDateTime.now().minusSeconds(1),
+                    LocalDateTime.now());
 
             recordRepository.save(record1);
             recordRepository.save(record2);
@@ -287,6 +292,7 @@ public class BasicRestTest {
         variableSensorRelationRepository.deleteAll();
         userHouseRelationRepository.deleteAll();
         recordRepository.deleteAll();
+        visibilityIndex.clear();
     }
 
     @Test
@@ -4,14 +4,21 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import java.io.IOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.torresj.apisensorserver.cache.LatestValueStore;
 import com.torresj.apisensorserver.jackson.RestPage;
+import com.torresj.apisensorserver.models.ActionReport;
+import com.torresj.apisensorserver.models.LatestValue;
 import com.torresj.apisensorserver.models.entities.GPSPosition;
 import com.torresj.apisensorserver.models.entities.House;
+import com.torresj.apisensorserver.models.entities.Record;
 import com.torresj.apisensorserver.models.entities.Sensor;
 import com.torresj.apisensorserver.models.entities.User;
 
@@ -26,6 +33,7 @@ import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
 import org.junit.AfterClass;
 import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 
 public class HouseTest extends BasicRestTest {
@@ -33,6 +41,9 @@ public class HouseTest extends BasicRestTest {
     //Record Controller
     private final String HOUSES = "v1/houses";
 
+    @Autowired
+    private LatestValueStore latestValueStore;
+
     @AfterClass
     public static void ChangeSetUp() {
         SetUpFalse();
@@ -249,6 +260,130 @@ public class HouseTest extends BasicRestTest {
         client.close();
     }
 
+    @Test
+    public void sendResetToHouseAsAdmin() throws IOException {
+        if (authorizationAdmin == null) {
+            getAdminAuthorization();
+        }
+
+        House house = houseRepository.findByName("House2").get();
+
+        CloseableHttpClient client = HttpClients.createDefault();
+        HttpPost httpPost = new HttpPost(
+                BASE_URL + port + PATH + HOUSES + "/" + house.getId() + "/actions/reset");
+
+        httpPost.setHeader("Content-type", "application/json");
+        httpPost.setHeader("Authorization", authorizationAdmin);
+
+        CloseableHttpResponse response = client.execute(httpPost);
+
+        ActionReport report = objectMapper
+                .readValue(EntityUtils.toString(response.getEntity()), ActionReport.class);
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(200));
+        assertThat(report.getAction(), equalTo("reset"));
+        assertThat(report.getDeliveries().size(), equalTo(2));
+        assertThat(report.getRejected(), equalTo(0));
+
+        client.close();
+    }
+
+    @Test
+    public void sendResetToHouseAsUserToNotAllowedHouse() throws IOException {
+        if (authorizationUser == null) {
+            getUserAuthorization();
+        }
+
+        House house = houseRepository.findByName("House1").get();
+
+        CloseableHttpClient client = HttpClients.createDefault();
+        HttpPost httpPost = new HttpPost(
+                BASE_URL + port + PATH + HOUSES + "/" + house.getId() + "/actions/reset");
+
+        httpPost.setHeader("Content-type", "application/json");
+        httpPost.setHeader("Authorization", authorizationUser);
+
+        CloseableHttpResponse response = client.execute(httpPost);
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(403));
+
+        client.close();
+    }
+
+    @Test
+    public void getLatestValuesByHouseIdAsAdmin() throws IOException {
+        if (authorizationAdmin == null) {
+            getAdminAuthorization();
+        }
+
+        House house = houseRepository.findByName("House2").get();
+        List<Long> sensorIds = sensorRepository.findByHouseId(house.getId()).stream()
+                .map(Sensor::getId).collect(Collectors.toList());
+        // Records are seeded behind the services, so the store is warmed again like on startup
+        latestValueStore.warm();
+        long series = recordRepository.findAll().stream()
+                .filter(record -> sensorIds.contains(record.getSensorId()))
+                .map(record -> record.getSensorId() + "-" + record.getVariableId()).distinct()
+                .count();
+
+        CloseableHttpClient client = HttpClients.createDefault();
+        HttpGet httpGet = new HttpGet(
+                BASE_URL + port + PATH + HOUSES + "/" + house.getId() + "/latest");
+
+        httpGet.setHeader("Content-type", "application/json");
+        httpGet.setHeader("Authorization", authorizationAdmin);
+
+        CloseableHttpResponse response = client.execute(httpGet);
+
+        String jsonFromResponse = EntityUtils.toString(response.getEntity());
+
+        List<LatestValue> values = objectMapper
+                .readValue(jsonFromResponse, new TypeReference<List<LatestValue>>() {
+                });
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(200));
+        assertThat((long) values.size(), equalTo(series));
+        for (LatestValue value : values) {
+            assertThat(sensorIds.contains(value.getSensorId()), equalTo(true));
+        }
+
+        client.close();
+    }
+
+    @Test
+    public void exportHouseRecordsAsNdjson() throws IOException {
+        if (authorizationAdmin == null) {
+            getAdminAuthorization();
+        }
+
+        House house = houseRepository.findByName("House2").get();
+        List<Long> sensorIds = sensorRepository.findByHouseId(house.getId()).stream()
+                .map(Sensor::getId).collect(Collectors.toList());
+        long expected = recordRepository.findAll().stream()
+                .filter(record -> sensorIds.contains(record.getSensorId())).count();
+        String date = LocalDate.now().format(DateTimeFormatter.ISO_DATE);
+
+        CloseableHttpClient client = HttpClients.createDefault();
+        HttpGet httpGet = new HttpGet(
+                BASE_URL + port + PATH + HOUSES + "/" + house.getId() + "/records/export?from="
+                        + date + "&to=" + date + "&format=ndjson");
+
+        httpGet.setHeader("Authorization", authorizationAdmin);
+
+        CloseableHttpResponse response = client.execute(httpGet);
+
+        String[] lines = EntityUtils.toString(response.getEntity()).split("\n");
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(200));
+        assertThat((long) lines.length, equalTo(expected));
+        for (String line : lines) {
+            Record record = objectMapper.readValue(line, Record.class);
+            assertThat(sensorIds.contains(record.getSensorId()), equalTo(true));
+        }
+
+        client.close();
+    }
+
     @Test
     public void getSensorsByHouseIdAsUser() throws IOException {
         if (authorizationUser == null) {
@@ -1,18 +1,25 @@
 package com.torresj.apisensorserver.rest;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.startsWith;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.torresj.apisensorserver.jackson.RestPage;
+import com.torresj.apisensorserver.models.RecordAggregate;
+import com.torresj.apisensorserver.models.RecordSlice;
 import com.torresj.apisensorserver.models.entities.Record;
 import com.torresj.apisensorserver.models.entities.Sensor;
 import com.torresj.apisensorserver.models.entities.Variable;
+import com.torresj.apisensorserver.services.RecordRollupService;
+import com.torresj.apisensorserver.services.RecordService;
 
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
@@ -21,6 +28,7 @@ import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
 import org.junit.AfterClass;
 import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 
@@ -29,6 +37,12 @@ public class RecordTest extends BasicRestTest {
     //Record Controller
     private final String RECORDS = "v1/records";
 
+    @Autowired
+    private RecordService recordService;
+
+    @Autowired
+    private RecordRollupService rollupService;
+
     @AfterClass
     public static void ChangeSetUp() {
         SetUpFalse();
@@ -129,6 +143,257 @@ public class RecordTest extends BasicRestTest {
         client.close();
     }
 
+    @Test
+    public void getRecordSlicesAsAdmin() throws IOException {
+        if (authorizationAdmin == null) {
+            getAdminAuthorization();
+        }
+
+        Sensor sensor = sensorRepository.findByMac("MAC1").get();
+        Variable variable = variableRepository.findByName("Variable2").get();
+
+        String from = LocalDate.now().minusDays(1).format(DateTimeFormatter.ISO_DATE);
+        String to = LocalDate.now().format(DateTimeFormatter.ISO_DATE);
+        String url = BASE_URL + port + PATH + RECORDS + "/slice?sensorId=" + sensor.getId()
+                + "&variableId=" + variable.getId() + "&elements=1&from=" + from + "&to=" + to;
+
+        CloseableHttpClient client = HttpClients.createDefault();
+        HttpGet httpGet = new HttpGet(url);
+        httpGet.setHeader("Content-type", "application/json");
+        httpGet.setHeader("Authorization", authorizationAdmin);
+
+        CloseableHttpResponse response = client.execute(httpGet);
+        RecordSlice first = objectMapper
+                .readValue(EntityUtils.toString(response.getEntity()), RecordSlice.class);
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(200));
+        assertThat(first.getContent().size(), equalTo(1));
+        assertThat(first.isHasNext(), equalTo(true));
+
+        httpGet = new HttpGet(url + "&cursor=" + first.getNext());
+        httpGet.setHeader("Content-type", "application/json");
+        httpGet.setHeader("Authorization", authorizationAdmin);
+
+        response = client.execute(httpGet);
+        RecordSlice second = objectMapper
+                .readValue(EntityUtils.toString(response.getEntity()), RecordSlice.class);
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(200));
+        assertThat(second.getContent().size(), equalTo(1));
+        assertThat(second.isHasNext(), equalTo(false));
+        assertThat(second.getNext(), equalTo(null));
+        assertThat(second.getContent().get(0).equals(first.getContent().get(0)), equalTo(false));
+
+        client.close();
+    }
+
+    @Test
+    public void getRecordSliceWithInvalidCursor() throws IOException {
+        if (authorizationAdmin == null) {
+            getAdminAuthorization();
+        }
+
+        Sensor sensor = sensorRepository.findByMac("MAC1").get();
+        Variable variable = variableRepository.findByName("Variable2").get();
+        String date = LocalDate.now().format(DateTimeFormatter.ISO_DATE);
+
+        CloseableHttpClient client = HttpClients.createDefault();
+        HttpGet httpGet = new HttpGet(
+                BASE_URL + port + PATH + RECORDS + "/slice?sensorId=" + sensor.getId() + "&variableId="
+                        + variable.getId() + "&elements=1&from=" + date + "&to=" + date
+                        + "&cursor=broken");
+
+        httpGet.setHeader("Content-type", "application/json");
+        httpGet.setHeader("Authorization", authorizationAdmin);
+
+        CloseableHttpResponse response = client.execute(httpGet);
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(400));
+
+        client.close();
+    }
+
+    @Test
+    public void exportRecordsAsCsv() throws IOException {
+        if (authorizationAdmin == null) {
+            getAdminAuthorization();
+        }
+
+        Sensor sensor = sensorRepository.findByMac("MAC1").get();
+        Variable variable = variableRepository.findByName("Variable2").get();
+        String date = LocalDate.now().format(DateTimeFormatter.ISO_DATE);
+
+        CloseableHttpClient client = HttpClients.createDefault();
+        HttpGet httpGet = new HttpGet(
+                BASE_URL + port + PATH + RECORDS + "/export?sensorId=" + sensor.getId()
+                        + "&variableId=" + variable.getId() + "&from=" + date + "&to=" + date
+                        + "&format=csv");
+
+        httpGet.setHeader("Authorization", authorizationAdmin);
+
+        CloseableHttpResponse response = client.execute(httpGet);
+
+        String[] lines = EntityUtils.toString(response.getEntity()).split("\n");
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(200));
+        assertThat(response.getFirstHeader("Content-Type").getValue(), startsWith("text/csv"));
+        assertThat(lines.length, equalTo(3));
+        assertThat(lines[0], equalTo("id,sensorId,variableId,value,date,createAt"));
+        for (int i = 1; i < lines.length; i++) {
+            String[] columns = lines[i].split(",");
+            assertThat(Long.valueOf(columns[1]), equalTo(sensor.getId()));
+            assertThat(Long.valueOf(columns[2]), equalTo(variable.getId()));
+        }
+
+        client.close();
+    }
+
+    @Test
+    public void exportRecordsWithUnknownFormat() throws IOException {
+        if (authorizationAdmin == null) {
+            getAdminAuthorization();
+        }
+
+        Sensor sensor = sensorRepository.findByMac("MAC1").get();
+        String date = LocalDate.now().format(DateTimeFormatter.ISO_DATE);
+
+        CloseableHttpClient client = HttpClients.createDefault();
+        HttpGet httpGet = new HttpGet(
+                BASE_URL + port + PATH + RECORDS + "/export?sensorId=" + sensor.getId() + "&from="
+                        + date + "&to=" + date + "&format=xml");
+
+        httpGet.setHeader("Authorization", authorizationAdmin);
+
+        CloseableHttpResponse response = client.execute(httpGet);
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(400));
+
+        client.close();
+    }
+
+    @Test
+    public void exportRecordsAsUserToSensorNotAllowed() throws IOException {
+        if (authorizationUser == null) {
+            getUserAuthorization();
+        }
+
+        Sensor sensor = sensorRepository.findByMac("MAC1").get();
+        String date = LocalDate.now().format(DateTimeFormatter.ISO_DATE);
+
+        CloseableHttpClient client = HttpClients.createDefault();
+        HttpGet httpGet = new HttpGet(
+                BASE_URL + port + PATH + RECORDS + "/export?sensorId=" + sensor.getId() + "&from="
+                        + date + "&to=" + date);
+
+        httpGet.setHeader("Authorization", authorizationUser);
+
+        CloseableHttpResponse response = client.execute(httpGet);
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(403));
+
+        client.close();
+    }
+
+    @Test
+    public void getAggregatesAsAdmin() throws IOException {
+        if (authorizationAdmin == null) {
+            getAdminAuthorization();
+        }
+
+        Sensor sensor = sensorRepository.findByMac("MAC1").get();
+        Variable variable = variableRepository.findByName("Variable3").get();
+        LocalDate day = LocalDate.now().minusDays(3);
+        recordService.registerAll(Arrays.asList(
+                new Record(null, sensor.getId(), variable.getId(), 2.0, day.atTime(10, 0, 10),
+                        day.atTime(10, 0, 10)),
+                new Record(null, sensor.getId(), variable.getId(), 4.0, day.atTime(10, 0, 50),
+                        day.atTime(10, 0, 50)),
+                new Record(null, sensor.getId(), variable.getId(), 9.0, day.atTime(10, 1, 30),
+                        day.atTime(10, 1, 30))));
+        rollupService.flush();
+
+        String date = day.format(DateTimeFormatter.ISO_DATE);
+
+        CloseableHttpClient client = HttpClients.createDefault();
+        HttpGet httpGet = new HttpGet(
+                BASE_URL + port + PATH + RECORDS + "/aggregate?sensorId=" + sensor.getId()
+                        + "&variableId=" + variable.getId() + "&bucket=1m&from=" + date + "&to=" + date);
+
+        httpGet.setHeader("Content-type", "application/json");
+        httpGet.setHeader("Authorization", authorizationAdmin);
+
+        CloseableHttpResponse response = client.execute(httpGet);
+
+        String jsonFromResponse = EntityUtils.toString(response.getEntity());
+
+        List<RecordAggregate> aggregates = objectMapper
+                .readValue(jsonFromResponse, new TypeReference<List<RecordAggregate>>() {
+                });
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(200));
+        assertThat(aggregates.size(), equalTo(2));
+        assertThat(aggregates.get(0).getBucket(), equalTo(day.atTime(10, 0)));
+        assertThat(aggregates.get(0).getCount(), equalTo(2L));
+        assertThat(aggregates.get(0).getMin(), equalTo(2.0));
+        assertThat(aggregates.get(0).getMax(), equalTo(4.0));
+        assertThat(aggregates.get(0).getAvg(), equalTo(3.0));
+        assertThat(aggregates.get(0).getLast(), equalTo(4.0));
+        assertThat(aggregates.get(1).getBucket(), equalTo(day.atTime(10, 1)));
+        assertThat(aggregates.get(1).getCount(), equalTo(1L));
+
+        client.close();
+    }
+
+    @Test
+    public void getAggregatesAsUserToSensorNotAllowed() throws IOException {
+        if (authorizationUser == null) {
+            getUserAuthorization();
+        }
+
+        Sensor sensor = sensorRepository.findByMac("MAC1").get();
+        Variable variable = variableRepository.findByName("Variable1").get();
+        String date = LocalDate.now().format(DateTimeFormatter.ISO_DATE);
+
+        CloseableHttpClient client = HttpClients.createDefault();
+        HttpGet httpGet = new HttpGet(
+                BASE_URL + port + PATH + RECORDS + "/aggregate?sensorId=" + sensor.getId()
+                        + "&variableId=" + variable.getId() + "&bucket=1h&from=" + date + "&to=" + date);
+
+        httpGet.setHeader("Content-type", "application/json");
+        httpGet.setHeader("Authorization", authorizationUser);
+
+        CloseableHttpResponse response = client.execute(httpGet);
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(403));
+
+        client.close();
+    }
+
+    @Test
+    public void getAggregatesWithUnknownBucket() throws IOException {
+        if (authorizationAdmin == null) {
+            getAdminAuthorization();
+        }
+
+        Sensor sensor = sensorRepository.findByMac("MAC1").get();
+        Variable variable = variableRepository.findByName("Variable1").get();
+        String date = LocalDate.now().format(DateTimeFormatter.ISO_DATE);
+
+        CloseableHttpClient client = HttpClients.createDefault();
+        HttpGet httpGet = new HttpGet(
+                BASE_URL + port + PATH + RECORDS + "/aggregate?sensorId=" + sensor.getId()
+                        + "&variableId=" + variable.getId() + "&bucket=2m&from=" + date + "&to=" + date);
+
+        httpGet.setHeader("Content-type", "application/json");
+        httpGet.setHeader("Authorization", authorizationAdmin);
+
+        CloseableHttpResponse response = client.execute(httpGet);
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(400));
+
+        client.close();
+    }
+
     @Test
     public void getRecordsByIdAsAdmin() throws IOException {
         if (authorizationAdmin == null) {
@@ -8,8 +8,12 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.torresj.apisensorserver.cache.LatestValueStore;
 import com.torresj.apisensorserver.jackson.RestPage;
+import com.torresj.apisensorserver.models.ActionDelivery;
+import com.torresj.apisensorserver.models.LatestValue;
 import com.torresj.apisensorserver.models.entities.House;
+import com.torresj.apisensorserver.models.entities.Record;
 import com.torresj.apisensorserver.models.entities.Sensor;
 import com.torresj.apisensorserver.models.entities.SensorType;
 import com.torresj.apisensorserver.models.entities.Variable;
@@ -25,6 +29,7 @@ import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
 import org.junit.AfterClass;
 import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 
 public class SensorTest extends BasicRestTest {
@@ -32,6 +37,9 @@ public class SensorTest extends BasicRestTest {
     //SensorType Controller
     private final String SENSORS = "v1/sensors";
 
+    @Autowired
+    private LatestValueStore latestValueStore;
+
     @AfterClass
     public static void ChangeSetUp() {
         SetUpFalse();
@@ -333,6 +341,104 @@ public class SensorTest extends BasicRestTest {
         client.close();
     }
 
+    @Test
+    public void getLatestValuesFromSensorAsAdminById() throws IOException {
+        if (authorizationAdmin == null) {
+            getAdminAuthorization();
+        }
+
+        Sensor sensor = sensorRepository.findByMac("MAC1").get();
+        // Records are seeded behind the services, so the store is warmed again like on startup
+        latestValueStore.warm();
+        long series = recordRepository.findAll().stream()
+                .filter(record -> record.getSensorId() == sensor.getId())
+                .map(Record::getVariableId).distinct().count();
+
+        CloseableHttpClient client = HttpClients.createDefault();
+        HttpGet httpGet = new HttpGet(
+                BASE_URL + port + PATH + SENSORS + "/" + sensor.getId() + "/latest");
+
+        httpGet.setHeader("Content-type", "application/json");
+        httpGet.setHeader("Authorization", authorizationAdmin);
+
+        CloseableHttpResponse response = client.execute(httpGet);
+
+        String jsonFromResponse = EntityUtils.toString(response.getEntity());
+
+        List<LatestValue> values = objectMapper
+                .readValue(jsonFromResponse, new TypeReference<List<LatestValue>>() {
+                });
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(200));
+        assertThat((long) values.size(), equalTo(series));
+        for (LatestValue value : values) {
+            assertThat(value.getSensorId(), equalTo(sensor.getId()));
+        }
+
+        client.close();
+    }
+
+    @Test
+    public void resetSensorAsAdminIsTracked() throws IOException {
+        if (authorizationAdmin == null) {
+            getAdminAuthorization();
+        }
+
+        Sensor sensor = sensorRepository.findByMac("MAC1").get();
+
+        CloseableHttpClient client = HttpClients.createDefault();
+        HttpPost httpPost = new HttpPost(
+                BASE_URL + port + PATH + SENSORS + "/" + sensor.getId() + "/reset");
+        httpPost.setHeader("Content-type", "application/json");
+        httpPost.setHeader("Authorization", authorizationAdmin);
+
+        CloseableHttpResponse response = client.execute(httpPost);
+        ActionDelivery delivery = objectMapper
+                .readValue(EntityUtils.toString(response.getEntity()), ActionDelivery.class);
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(200));
+        assertThat(delivery.getSensorId(), equalTo(sensor.getId()));
+        assertThat(delivery.getAction(), equalTo("reset"));
+
+        HttpGet httpGet = new HttpGet(
+                BASE_URL + port + PATH + SENSORS + "/" + sensor.getId() + "/actions");
+        httpGet.setHeader("Content-type", "application/json");
+        httpGet.setHeader("Authorization", authorizationAdmin);
+
+        response = client.execute(httpGet);
+        List<ActionDelivery> deliveries = objectMapper
+                .readValue(EntityUtils.toString(response.getEntity()),
+                        new TypeReference<List<ActionDelivery>>() {
+                        });
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(200));
+        assertThat(deliveries.get(0).getId(), equalTo(delivery.getId()));
+
+        client.close();
+    }
+
+    @Test
+    public void getLatestValuesFromSensorAsUserByIdToSensorNotAllowed() throws IOException {
+        if (authorizationUser == null) {
+            getUserAuthorization();
+        }
+
+        Sensor sensor = sensorRepository.findByMac("MAC1").get();
+
+        CloseableHttpClient client = HttpClients.createDefault();
+        HttpGet httpGet = new HttpGet(
+                BASE_URL + port + PATH + SENSORS + "/" + sensor.getId() + "/latest");
+
+        httpGet.setHeader("Content-type", "application/json");
+        httpGet.setHeader("Authorization", authorizationUser);
+
+        CloseableHttpResponse response = client.execute(httpGet);
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(403));
+
+        client.close();
+    }
+
     @Test
     public void getAllVariablesFromSensorAsUserByIdToSensorAllowed() throws IOException {
         if (authorizationUser == null) {
@@ -144,6 +144,40 @@ public class SensorTypeTest extends BasicRestTest {
         client.close();
     }
 
+    @Test
+    public void validateSensorTypeActionAsUser() throws IOException {
+        if (authorizationUser == null) {
+            getUserAuthorization();
+        }
+
+        SensorType type = sensorTypeRepository.findByName("type1").get();
+
+        CloseableHttpClient client = HttpClients.createDefault();
+        HttpGet httpGet = new HttpGet(
+                BASE_URL + port + PATH + TYPE + "/" + type.getId() + "/actions/ACTION3");
+
+        httpGet.setHeader("Content-type", "application/json");
+        httpGet.setHeader("Authorization", authorizationUser);
+
+        CloseableHttpResponse response = client.execute(httpGet);
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(200));
+        assertThat(EntityUtils.toString(response.getEntity()), equalTo("true"));
+
+        httpGet = new HttpGet(
+                BASE_URL + port + PATH + TYPE + "/" + type.getId() + "/actions/ACTION9");
+
+        httpGet.setHeader("Content-type", "application/json");
+        httpGet.setHeader("Authorization", authorizationUser);
+
+        response = client.execute(httpGet);
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(200));
+        assertThat(EntityUtils.toString(response.getEntity()), equalTo("false"));
+
+        client.close();
+    }
+
     @Test
     public void getSensorTypeByIdAsUser() throws IOException {
         if (authorizationUser == null) {
@@ -4,6 +4,7 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -14,6 +15,7 @@ import com.torresj.apisensorserver.jackson.RestPage;
 import com.torresj.apisensorserver.models.entities.House;
 import com.torresj.apisensorserver.models.entities.User;
 import com.torresj.apisensorserver.models.entities.User.Role;
+import com.torresj.apisensorserver.services.UserService;
 
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpDelete;
@@ -26,6 +28,7 @@ import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
 import org.junit.AfterClass;
 import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 
 public class UserTest extends BasicRestTest {
@@ -33,6 +36,9 @@ public class UserTest extends BasicRestTest {
     //User Controller
     private final String USERS = "v1/users";
 
+    @Autowired
+    private UserService userService;
+
     @AfterClass
     public static void ChangeSetUp() {
         SetUpFalse();
@@ -48,6 +54,31 @@ public class UserTest extends BasicRestTest {
         getUserAuthorization();
     }
 
+    @Test
+    public void lastConnectionIsWrittenOnFlush() throws IOException {
+        if (authorizationAdmin == null) {
+            getAdminAuthorization();
+        }
+        LocalDateTime old = LocalDateTime.now().minusDays(1);
+        User admin = userRepository.findByUsername("Admin").get();
+        admin.setLastConnection(old);
+        userRepository.save(admin);
+
+        CloseableHttpClient client = HttpClients.createDefault();
+        HttpGet httpGet = new HttpGet(
+                BASE_URL + port + PATH + USERS + "?page=" + nPage + "&elements=" + elements);
+        httpGet.setHeader("Content-type", "application/json");
+        httpGet.setHeader("Authorization", authorizationAdmin);
+
+        CloseableHttpResponse response = client.execute(httpGet);
+
+        assertThat(response.getStatusLine().getStatusCode(), equalTo(200));
+        userService.flushConnections();
+        assertThat(userRepository.findByUsername("Admin").get().getLastConnection().isAfter(old),
+                equalTo(true));
+        client.close();
+    }
+
     @Test
     public void createNewUserAsAdmin() throws IOException {
         if (authorizationAdmin == null) {
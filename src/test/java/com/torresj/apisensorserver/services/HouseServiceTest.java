@@ -8,11 +8,16 @@ import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import com.torresj.apisensorserver.cache.ExistenceCache;
+import com.torresj.apisensorserver.cache.LatestValueStore;
+import com.torresj.apisensorserver.cache.VisibilityIndex;
 import com.torresj.apisensorserver.exceptions.EntityAlreadyExistsException;
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
+import com.torresj.apisensorserver.models.LatestValue;
 import com.torresj.apisensorserver.models.entities.House;
 import com.torresj.apisensorserver.models.entities.Sensor;
 import com.torresj.apisensorserver.repositories.HouseRepository;
@@ -53,9 +58,19 @@ public class HouseServiceTest {
     @Mock
     private UserHouseRelationRepository userHouseRelationRepository;
 
+    @Mock
+    private ExistenceCache existenceCache;
+
+    @Mock
+    private VisibilityIndex visibilityIndex;
+
+    @Mock
+    private LatestValueStore latestValues;
+
     @InjectMocks
     private HouseService houseService = new HouseServiceImpl(houseRepository, sensorRepository,
-            userRepository, userHouseRelationRepository);
+            userRepository, userHouseRelationRepository, existenceCache, visibilityIndex,
+            latestValues);
 
     @Test
     public void getHouses() {
@@ -118,6 +133,32 @@ public class HouseServiceTest {
         assertEquals(sensors, sensorsactual);
     }
 
+    @Test
+    public void getLatestValues() throws EntityNotFoundException {
+        //Given
+        List<Sensor> sensors = new ArrayList<>();
+        sensors.add(TestUtils.getExampleSensor(1, 1, 1));
+        sensors.add(TestUtils.getExampleSensor(2, 1, 1));
+        List<Long> ids = Arrays.asList(sensors.get(0).getId(), sensors.get(1).getId());
+        List<LatestValue> values = Collections.singletonList(
+                LatestValue.of(TestUtils.getExampleRecord(ids.get(0), 1)));
+
+        //When
+        when(existenceCache.houseExists(1L)).thenReturn(true);
+        when(sensorRepository.findByHouseId(1L)).thenReturn(sensors);
+        when(latestValues.getBySensors(ids)).thenReturn(values);
+        List<LatestValue> valuesActual = houseService.getLatestValues(1);
+
+        //Then
+        assertEquals(values, valuesActual);
+    }
+
+    @Test(expected = EntityNotFoundException.class)
+    public void getLatestValuesHouseNotFound() throws EntityNotFoundException {
+        //When
+        houseService.getLatestValues(1);
+    }
+
     @Test
     public void update() throws EntityNotFoundException {
         //Given
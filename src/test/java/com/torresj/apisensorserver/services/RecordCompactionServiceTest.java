@@ -0,0 +1,109 @@
+package com.torresj.apisensorserver.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import com.torresj.apisensorserver.repositories.RecordRepository;
+import com.torresj.apisensorserver.services.impl.RecordCompactionServiceImpl;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RecordCompactionServiceTest {
+
+    @Mock
+    private RecordRepository recordRepository;
+
+    @Mock
+    private RecordRollupService rollupService;
+
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void compactDeletesEverySeriesInChunks() {
+        //Given
+        RecordCompactionService compactionService = new RecordCompactionServiceImpl(
+                recordRepository, rollupService, 30, 100, 0, meterRegistry);
+        LocalDateTime before = LocalDate.now().minusDays(30).atStartOfDay();
+
+        //When
+        when(recordRepository.findSeries(ArgumentMatchers.any(LocalDateTime.class),
+                ArgumentMatchers.eq(before)))
+                .thenReturn(Arrays.asList(new long[] { 1, 1 }, new long[] { 2, 1 }));
+        when(recordRepository.deleteBefore(1, 1, before, 100)).thenReturn(100, 100, 20);
+        when(recordRepository.deleteBefore(2, 1, before, 100)).thenReturn(0);
+        long deleted = compactionService.compact();
+
+        //Then
+        assertEquals(220, deleted);
+        verify(recordRepository, times(3)).deleteBefore(1, 1, before, 100);
+        assertEquals(220, meterRegistry.get("records.compaction.deleted").counter().count(), 0);
+    }
+
+    @Test
+    public void rollupsCheckedBeforeDelete() {
+        //Given
+        RecordCompactionService compactionService = new RecordCompactionServiceImpl(
+                recordRepository, rollupService, 30, 100, 0, meterRegistry);
+        LocalDateTime before = LocalDate.now().minusDays(30).atStartOfDay();
+
+        //When
+        when(recordRepository.findSeries(ArgumentMatchers.any(LocalDateTime.class),
+                ArgumentMatchers.eq(before)))
+                .thenReturn(Arrays.asList(new long[] { 1, 1 }, new long[] { 2, 1 }));
+        when(rollupService.ensureRolledUp(ArgumentMatchers.eq(2L), ArgumentMatchers.eq(1L),
+                ArgumentMatchers.any(LocalDateTime.class), ArgumentMatchers.eq(before)))
+                .thenThrow(new RuntimeException("Database down"));
+        when(recordRepository.deleteBefore(1, 1, before, 100)).thenReturn(10);
+        long deleted = compactionService.compact();
+
+        //Then
+        assertEquals(10, deleted);
+        InOrder inOrder = inOrder(rollupService, recordRepository);
+        inOrder.verify(rollupService).ensureRolledUp(ArgumentMatchers.eq(1L),
+                ArgumentMatchers.eq(1L), ArgumentMatchers.any(LocalDateTime.class),
+                ArgumentMatchers.eq(before));
+        inOrder.verify(recordRepository).deleteBefore(1, 1, before, 100);
+        verify(recordRepository, never()).deleteBefore(ArgumentMatchers.eq(2L),
+                ArgumentMatchers.eq(1L), ArgumentMatchers.any(LocalDateTime.class), anyInt());
+    }
+
+    @Test
+    public void disabledCompactsNothing() {
+        //Given
+        RecordCompactionService compactionService = new RecordCompactionServiceImpl(
+                recordRepository, rollupService, 0, 100, 0, meterRegistry);
+
+        //When
+        long deleted = compactionService.compact();
+
+        //Then
+        assertFalse(compactionService.isEnabled());
+        assertEquals(0, deleted);
+        verifyZeroInteractions(recordRepository);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void previousDayIsNeverCompacted() {
+        new RecordCompactionServiceImpl(recordRepository, rollupService, 1, 100, 0,
+                meterRegistry);
+    }
+}
@@ -0,0 +1,134 @@
+package com.torresj.apisensorserver.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.torresj.apisensorserver.codec.RecordDecoder;
+import com.torresj.apisensorserver.models.RecordExportFormat;
+import com.torresj.apisensorserver.models.entities.Record;
+import com.torresj.apisensorserver.repositories.RecordRepository;
+import com.torresj.apisensorserver.services.impl.RecordExportServiceImpl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RecordExportServiceTest {
+
+    @Mock
+    private RecordRepository recordRepository;
+
+    private ObjectMapper objectMapper;
+
+    private RecordExportService exportService;
+
+    private static final LocalDate DAY = LocalDate.of(2018, Month.JANUARY, 1);
+
+    private static final LocalDateTime TIME = DAY.atTime(10, 0);
+
+    private static final List<Long> SENSORS = Arrays.asList(1L, 2L);
+
+    @Before
+    public void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        exportService = new RecordExportServiceImpl(recordRepository, objectMapper);
+    }
+
+    @Test
+    public void exportCsv() throws IOException {
+        //Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streamRecords(new Record(1L, 1, 3, 2.5, TIME, TIME), new Record(2L, 2, 3, 4.0, TIME,
+                TIME.plusSeconds(30)));
+
+        //When
+        exportService.export(SENSORS, 3L, DAY, DAY, RecordExportFormat.CSV, out);
+
+        //Then
+        assertEquals("id,sensorId,variableId,value,date,createAt\n"
+                        + "1,1,3,2.5,2018-01-01T10:00,2018-01-01T10:00\n"
+                        + "2,2,3,4.0,2018-01-01T10:00,2018-01-01T10:00:30\n",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void exportNdjson() throws IOException {
+        //Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Record first = new Record(1L, 1, 3, 2.5, TIME, TIME);
+        Record second = new Record(2L, 2, 3, 4.0, TIME, TIME.plusSeconds(30));
+        streamRecords(first, second);
+
+        //When
+        exportService.export(SENSORS, 3L, DAY, DAY, RecordExportFormat.NDJSON, out);
+
+        //Then
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(first, objectMapper.readValue(lines[0], Record.class));
+        assertEquals(second, objectMapper.readValue(lines[1], Record.class));
+    }
+
+    @Test
+    public void exportBinary() throws IOException {
+        //Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Record first = new Record(1L, 1, 3, 2.5, TIME, TIME);
+        Record second = new Record(2L, 2, 3, 4.0, TIME, TIME.plusSeconds(30));
+        streamRecords(first, second);
+
+        //When
+        exportService.export(SENSORS, 3L, DAY, DAY, RecordExportFormat.BINARY, out);
+
+        //Then
+        RecordDecoder decoder = new RecordDecoder(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(first, decoder.read());
+        assertEquals(second, decoder.read());
+        assertNull(decoder.read());
+    }
+
+    @Test
+    public void exportEmptyRangeWritesOnlyHeader() throws IOException {
+        //Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streamRecords();
+
+        //When
+        exportService.export(SENSORS, null, DAY, DAY, RecordExportFormat.CSV, out);
+
+        //Then
+        assertEquals("id,sensorId,variableId,value,date,createAt\n",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void streamRecords(Record... records) {
+        doAnswer(invocation -> {
+            Consumer<Record> consumer = invocation.getArgument(4);
+            Arrays.stream(records).forEach(consumer);
+            return null;
+        }).when(recordRepository).forEachInRange(eq(SENSORS), any(), eq(DAY.atStartOfDay()),
+                eq(DAY.plusDays(1).atStartOfDay()), any(Consumer.class));
+    }
+}
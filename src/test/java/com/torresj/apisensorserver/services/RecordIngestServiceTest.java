@@ -0,0 +1,171 @@
+package com.torresj.apisensorserver.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.torresj.apisensorserver.models.entities.Record;
+import com.torresj.apisensorserver.services.RecordIngestService.OverflowPolicy;
+import com.torresj.apisensorserver.services.impl.RecordIngestServiceImpl;
+import com.torresj.apisensorserver.spool.RecordSpool;
+import com.torresj.apisensorserver.utils.TestUtils;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RecordIngestServiceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private RecordService recordService;
+
+    private RecordSpool spool = new RecordSpool("", 0, 0, new SimpleMeterRegistry());
+
+    private RecordIngestServiceImpl ingestService;
+
+    @After
+    public void stop() throws InterruptedException {
+        if (ingestService != null) {
+            ingestService.stop();
+        }
+    }
+
+    @Test
+    public void flushBySize() {
+        //Given
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        when(recordService.registerAll(anyList())).thenAnswer(invocation -> {
+            List<Record> batch = invocation.getArgument(0);
+            batchSizes.add(batch.size());
+            return new ArrayList<>(batch);
+        });
+        ingestService = new RecordIngestServiceImpl(recordService, new SimpleMeterRegistry(), 5,
+                60000, 100, OverflowPolicy.DROP, 0, spool, 100);
+
+        //When
+        TestUtils.getExampleRecords(10, 1, 1).forEach(ingestService::submit);
+        ingestService.start();
+
+        //Then
+        verify(recordService, timeout(5000).times(2)).registerAll(anyList());
+        assertEquals(5, (int) batchSizes.get(0));
+        assertEquals(5, (int) batchSizes.get(1));
+    }
+
+    @Test
+    public void flushByLinger() {
+        //Given
+        when(recordService.registerAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        ingestService = new RecordIngestServiceImpl(recordService, new SimpleMeterRegistry(), 500,
+                50, 100, OverflowPolicy.DROP, 0, spool, 100);
+        ingestService.start();
+
+        //When
+        ingestService.submit(TestUtils.getExampleRecord(1, 1));
+
+        //Then
+        verify(recordService, timeout(5000)).registerAll(anyList());
+        assertEquals(0, ingestService.pending());
+    }
+
+    @Test
+    public void stopWritesQueuedRecordsWithoutWaitingForLinger() throws InterruptedException {
+        //Given
+        when(recordService.registerAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        ingestService = new RecordIngestServiceImpl(recordService, new SimpleMeterRegistry(), 500,
+                60000, 100, OverflowPolicy.DROP, 0, spool, 100);
+        ingestService.start();
+        ingestService.submit(TestUtils.getExampleRecord(1, 1));
+
+        //When
+        long start = System.currentTimeMillis();
+        ingestService.stop();
+
+        //Then
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertEquals(0, ingestService.pending());
+        verify(recordService).registerAll(anyList());
+    }
+
+    @Test
+    public void dropWhenQueueIsFull() {
+        //Given
+        ingestService = new RecordIngestServiceImpl(recordService, new SimpleMeterRegistry(), 10,
+                50, 2, OverflowPolicy.DROP, 0, spool, 100);
+
+        //When
+        boolean first = ingestService.submit(TestUtils.getExampleRecord(1, 1));
+        boolean second = ingestService.submit(TestUtils.getExampleRecord(1, 1));
+        boolean third = ingestService.submit(TestUtils.getExampleRecord(1, 1));
+
+        //Then
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse(third);
+        assertEquals(2, ingestService.pending());
+    }
+
+    @Test
+    public void blockUntilTimeoutWhenQueueIsFull() {
+        //Given
+        ingestService = new RecordIngestServiceImpl(recordService, new SimpleMeterRegistry(), 10,
+                50, 1, OverflowPolicy.BLOCK, 50, spool, 100);
+
+        //When
+        ingestService.submit(TestUtils.getExampleRecord(1, 1));
+        long start = System.currentTimeMillis();
+        boolean queued = ingestService.submit(TestUtils.getExampleRecord(1, 1));
+
+        //Then
+        assertFalse(queued);
+        assertTrue(System.currentTimeMillis() - start >= 50);
+    }
+
+    @Test
+    public void spooledRecordsAreRetriedUntilWritten() throws IOException, InterruptedException {
+        //Given
+        RecordSpool enabled = new RecordSpool(folder.getRoot().getPath(), 1 << 16, 2,
+                new SimpleMeterRegistry());
+        enabled.open();
+        when(recordService.registerAll(anyList())).thenThrow(new IllegalStateException("DB down"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        ingestService = new RecordIngestServiceImpl(recordService, new SimpleMeterRegistry(), 10,
+                10, 1, OverflowPolicy.DROP, 0, enabled, 10);
+        ingestService.start();
+
+        //When
+        for (int i = 0; i < 3; i++) {
+            Record record = TestUtils.getExampleRecord(1, 1);
+            record.setDate(LocalDateTime.now());
+            assertTrue(ingestService.submit(record));
+        }
+
+        //Then
+        verify(recordService, timeout(5000).atLeast(2)).registerAll(anyList());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (ingestService.pending() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, ingestService.pending());
+    }
+}
@@ -0,0 +1,258 @@
+package com.torresj.apisensorserver.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import com.torresj.apisensorserver.models.AggregationBucket;
+import com.torresj.apisensorserver.models.RecordAggregate;
+import com.torresj.apisensorserver.models.entities.Record;
+import com.torresj.apisensorserver.models.entities.RecordRollup;
+import com.torresj.apisensorserver.repositories.RecordRepository;
+import com.torresj.apisensorserver.repositories.RecordRollupRepository;
+import com.torresj.apisensorserver.services.impl.RecordRollupServiceImpl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RecordRollupServiceTest {
+
+    @Mock
+    private RecordRollupRepository rollupRepository;
+
+    @Mock
+    private RecordRepository recordRepository;
+
+    @Mock
+    private RecordCompactionService compactionService;
+
+    private RecordRollupService rollupService;
+
+    private static final LocalDateTime TIME = LocalDateTime.of(2018, Month.JANUARY, 1, 10, 0);
+
+    @Before
+    public void setUp() {
+        rollupService = new RecordRollupServiceImpl(rollupRepository, recordRepository,
+                compactionService, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void getAggregatesFromPending() {
+        //Given
+        rollupService.add(Arrays.asList(record(2.0, TIME.plusSeconds(10)),
+                record(4.0, TIME.plusSeconds(50)), record(9.0, TIME.plusSeconds(90))));
+
+        //When
+        when(rollupRepository
+                .findBySensorIdAndVariableIdAndResolutionAndBucketGreaterThanEqualAndBucketLessThanOrderByBucket(
+                        1, 1, AggregationBucket.MINUTE, TIME, TIME.plusHours(1)))
+                .thenReturn(Collections.emptyList());
+        List<RecordAggregate> aggregates = rollupService
+                .getAggregates(1, 1, AggregationBucket.MINUTE, TIME, TIME.plusHours(1));
+
+        //Then
+        assertEquals(2, aggregates.size());
+        assertEquals(TIME, aggregates.get(0).getBucket());
+        assertEquals(2, aggregates.get(0).getCount());
+        assertEquals(3.0, aggregates.get(0).getAvg(), 0);
+        assertEquals(4.0, aggregates.get(0).getLast(), 0);
+        assertEquals(1, aggregates.get(1).getCount());
+    }
+
+    @Test
+    public void getAggregatesFromCoarsestRollup() {
+        //Given
+        RecordAggregate first = new RecordAggregate(TIME);
+        first.add(1.0, TIME);
+        RecordAggregate second = new RecordAggregate(TIME.plusMinutes(3));
+        second.add(5.0, TIME.plusMinutes(3));
+        RecordAggregate third = new RecordAggregate(TIME.plusMinutes(7));
+        third.add(7.0, TIME.plusMinutes(7));
+
+        //When
+        when(rollupRepository
+                .findBySensorIdAndVariableIdAndResolutionAndBucketGreaterThanEqualAndBucketLessThanOrderByBucket(
+                        1, 1, AggregationBucket.MINUTE, TIME, TIME.plusHours(1)))
+                .thenReturn(Arrays.asList(rollup(AggregationBucket.MINUTE, first),
+                        rollup(AggregationBucket.MINUTE, second),
+                        rollup(AggregationBucket.MINUTE, third)));
+        List<RecordAggregate> aggregates = rollupService
+                .getAggregates(1, 1, AggregationBucket.FIVE_MINUTES, TIME, TIME.plusHours(1));
+
+        //Then
+        assertEquals(2, aggregates.size());
+        assertEquals(TIME, aggregates.get(0).getBucket());
+        assertEquals(2, aggregates.get(0).getCount());
+        assertEquals(1.0, aggregates.get(0).getMin(), 0);
+        assertEquals(5.0, aggregates.get(0).getMax(), 0);
+        assertEquals(TIME.plusMinutes(5), aggregates.get(1).getBucket());
+    }
+
+    @Test
+    public void flushMergesIntoExistingRollup() {
+        //Given
+        RecordAggregate stored = new RecordAggregate(TIME.withHour(0));
+        stored.add(10.0, TIME.minusHours(1));
+        RecordRollup existing = rollup(AggregationBucket.DAY, stored);
+        rollupService.add(Collections.singletonList(record(2.0, TIME)));
+
+        //When
+        when(rollupRepository.findBySensorIdAndVariableIdAndResolutionAndBucket(eq(1L), eq(1L),
+                any(AggregationBucket.class), any(LocalDateTime.class))).thenReturn(Optional.empty());
+        when(rollupRepository.findBySensorIdAndVariableIdAndResolutionAndBucket(1L, 1L,
+                AggregationBucket.DAY, TIME.withHour(0))).thenReturn(Optional.of(existing));
+        rollupService.flush();
+
+        //Then
+        verify(rollupRepository, times(3)).save(any(RecordRollup.class));
+        assertEquals(2, existing.getValueCount());
+        assertEquals(6.0, existing.toAggregate().getAvg(), 0);
+        assertEquals(2.0, existing.getLastValue(), 0);
+    }
+
+    @Test
+    public void rebuildReplacesRollupsAndDropsPending() {
+        //Given
+        LocalDateTime day = TIME.withHour(0);
+        RecordAggregate stale = new RecordAggregate(day);
+        stale.add(100.0, TIME);
+        RecordRollup existing = rollup(AggregationBucket.DAY, stale);
+        RecordAggregate minute = new RecordAggregate(TIME);
+        minute.add(2.0, TIME);
+        minute.add(4.0, TIME.plusSeconds(30));
+        rollupService.add(Collections.singletonList(record(4.0, TIME.plusSeconds(30))));
+
+        //When
+        when(recordRepository.findSeries(day, day.plusDays(1)))
+                .thenReturn(Collections.singletonList(new long[] { 1, 1 }));
+        when(recordRepository.aggregate(1, 1, day, day.plusDays(1), AggregationBucket.MINUTE))
+                .thenReturn(Collections.singletonList(minute));
+        when(rollupRepository.findBySensorIdAndVariableIdAndResolutionAndBucket(eq(1L), eq(1L),
+                any(AggregationBucket.class), any(LocalDateTime.class))).thenReturn(Optional.empty());
+        when(rollupRepository
+                .findBySensorIdAndVariableIdAndResolutionAndBucketGreaterThanEqualAndBucketLessThanOrderByBucket(
+                        eq(1L), eq(1L), any(AggregationBucket.class), eq(day), eq(day.plusDays(1))))
+                .thenReturn(Collections.emptyList());
+        when(rollupRepository
+                .findBySensorIdAndVariableIdAndResolutionAndBucketGreaterThanEqualAndBucketLessThanOrderByBucket(
+                        1, 1, AggregationBucket.DAY, day, day.plusDays(1)))
+                .thenReturn(Collections.singletonList(existing));
+        rollupService.rebuild(day, day.plusDays(1));
+        List<RecordAggregate> aggregates = rollupService
+                .getAggregates(1, 1, AggregationBucket.DAY, day, day.plusDays(1));
+
+        //Then
+        assertEquals(2, existing.getValueCount());
+        assertEquals(3.0, existing.toAggregate().getAvg(), 0);
+        assertEquals(4.0, existing.getLastValue(), 0);
+        assertEquals(1, aggregates.size());
+        assertEquals(2, aggregates.get(0).getCount());
+    }
+
+    @Test
+    public void rebuildSkipsCompactedDays() {
+        //Given
+        LocalDateTime day = TIME.withHour(0);
+
+        //When
+        when(compactionService.isEnabled()).thenReturn(true);
+        when(compactionService.compactedBefore()).thenReturn(day.plusDays(1));
+        rollupService.rebuild(day, day.plusDays(1));
+
+        //Then
+        verify(recordRepository, never()).findSeries(any(LocalDateTime.class),
+                any(LocalDateTime.class));
+    }
+
+    @Test
+    public void ensureRolledUpRebuildsOnlyIncompleteDays() {
+        //Given
+        LocalDate covered = TIME.toLocalDate();
+        LocalDate missed = covered.plusDays(1);
+        LocalDateTime to = missed.plusDays(1).atStartOfDay();
+        Map<LocalDate, Long> raw = new TreeMap<>();
+        raw.put(covered, 2L);
+        raw.put(missed, 1L);
+        RecordAggregate day = new RecordAggregate(covered.atStartOfDay());
+        day.add(2.0, TIME);
+        day.add(4.0, TIME.plusMinutes(1));
+        day.add(6.0, TIME.plusMinutes(2));
+        RecordAggregate minute = new RecordAggregate(missed.atTime(10, 0));
+        minute.add(5.0, missed.atTime(10, 0));
+
+        //When
+        when(recordRepository.countPerDay(1, 1, covered.atStartOfDay(), to)).thenReturn(raw);
+        when(rollupRepository
+                .findBySensorIdAndVariableIdAndResolutionAndBucketGreaterThanEqualAndBucketLessThanOrderByBucket(
+                        1, 1, AggregationBucket.DAY, covered.atStartOfDay(), to))
+                .thenReturn(Collections.singletonList(rollup(AggregationBucket.DAY, day)));
+        when(recordRepository.aggregate(1, 1, missed.atStartOfDay(), to, AggregationBucket.MINUTE))
+                .thenReturn(Collections.singletonList(minute));
+        when(rollupRepository
+                .findBySensorIdAndVariableIdAndResolutionAndBucketGreaterThanEqualAndBucketLessThanOrderByBucket(
+                        eq(1L), eq(1L), any(AggregationBucket.class), eq(missed.atStartOfDay()),
+                        eq(to))).thenReturn(Collections.emptyList());
+        int rebuilt = rollupService.ensureRolledUp(1, 1, covered.atStartOfDay(), to);
+
+        //Then
+        assertEquals(1, rebuilt);
+        verify(recordRepository, never()).aggregate(1, 1, covered.atStartOfDay(),
+                missed.atStartOfDay(), AggregationBucket.MINUTE);
+        verify(rollupRepository, times(3)).saveAll(any());
+    }
+
+    @Test
+    public void getSummariesAsRecords() {
+        //Given
+        RecordAggregate minute = new RecordAggregate(TIME);
+        minute.add(2.0, TIME);
+        minute.add(4.0, TIME.plusSeconds(30));
+        PageRequest pageRequest = PageRequest.of(0, 10, Sort.by("bucket").descending());
+
+        //When
+        when(rollupRepository
+                .findBySensorIdAndVariableIdAndResolutionAndBucketGreaterThanEqualAndBucketLessThan(
+                        1, 1, AggregationBucket.MINUTE, TIME, TIME.plusHours(1), pageRequest))
+                .thenReturn(new PageImpl<>(
+                        Collections.singletonList(rollup(AggregationBucket.MINUTE, minute))));
+        List<Record> summaries = rollupService
+                .getSummaries(1, 1, TIME, TIME.plusHours(1), PageRequest.of(0, 10)).getContent();
+
+        //Then
+        assertEquals(1, summaries.size());
+        assertEquals(null, summaries.get(0).getId());
+        assertEquals(3.0, summaries.get(0).getValue(), 0);
+        assertEquals(TIME, summaries.get(0).getCreateAt());
+    }
+
+    private Record record(double value, LocalDateTime createAt) {
+        return new Record(null, 1, 1, value, createAt, createAt);
+    }
+
+    private RecordRollup rollup(AggregationBucket resolution, RecordAggregate aggregate) {
+        return new RecordRollup(1, 1, resolution, aggregate);
+    }
+}
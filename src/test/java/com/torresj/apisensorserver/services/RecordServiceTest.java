@@ -1,26 +1,36 @@
 package com.torresj.apisensorserver.services;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.Month;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import com.torresj.apisensorserver.cache.ExistenceCache;
+import com.torresj.apisensorserver.cache.LatestValueStore;
+import com.torresj.apisensorserver.cache.RecentRecordKeys;
+import com.torresj.apisensorserver.cache.VisibilityIndex;
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
+import com.torresj.apisensorserver.models.AggregationBucket;
+import com.torresj.apisensorserver.models.RecordAggregate;
+import com.torresj.apisensorserver.models.RecordCursor;
+import com.torresj.apisensorserver.models.RecordSlice;
 import com.torresj.apisensorserver.models.entities.Record;
-import com.torresj.apisensorserver.models.entities.Sensor;
-import com.torresj.apisensorserver.models.entities.Variable;
-import com.torresj.apisensorserver.repositories.HouseRepository;
 import com.torresj.apisensorserver.repositories.RecordRepository;
-import com.torresj.apisensorserver.repositories.SensorRepository;
-import com.torresj.apisensorserver.repositories.UserHouseRelationRepository;
-import com.torresj.apisensorserver.repositories.UserRepository;
-import com.torresj.apisensorserver.repositories.VariableRepository;
 import com.torresj.apisensorserver.services.impl.RecordServiceImpl;
+import com.torresj.apisensorserver.websocket.RecordPublisher;
 import com.torresj.apisensorserver.utils.TestUtils;
 
 import org.junit.Test;
@@ -28,10 +38,15 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @RunWith(MockitoJUnitRunner.class)
 public class RecordServiceTest {
@@ -40,26 +55,30 @@ public class RecordServiceTest {
     private RecordRepository recordRepository;
 
     @Mock
-    private SensorRepository sensorRepository;
+    private RecordPublisher publisher;
 
     @Mock
-    private VariableRepository variableRepository;
+    private ExistenceCache existenceCache;
 
     @Mock
-    private UserRepository userRepository;
+    private VisibilityIndex visibilityIndex;
 
     @Mock
-    private UserHouseRelationRepository userHouseRelationRepository;
+    private LatestValueStore latestValues;
 
     @Mock
-    private HouseRepository houseRepository;
+    private RecordRollupService rollupService;
 
     @Mock
-    private SimpMessagingTemplate template;
+    private RecordCompactionService compactionService;
+
+    private RecentRecordKeys recentKeys = new RecentRecordKeys(600000, 10,
+            new SimpleMeterRegistry());
 
     @InjectMocks
-    private RecordService recordService = new RecordServiceImpl(recordRepository, variableRepository,
-            sensorRepository, userRepository, userHouseRelationRepository, houseRepository, template);
+    private RecordService recordService = new RecordServiceImpl(recordRepository, publisher,
+            existenceCache, visibilityIndex, rollupService, latestValues, recentKeys,
+            compactionService);
 
     private static final int nPage = 0;
 
@@ -72,17 +91,16 @@ public class RecordServiceTest {
     public void register() throws EntityNotFoundException {
         //Given
         Record record = TestUtils.getExampleRecord(1, 1);
-        Variable variable = TestUtils.getExampleVariable(1);
-        Sensor sensor = TestUtils.getExampleSensor(1, 1, 1);
 
         //When
-        when(variableRepository.findById(anyLong())).thenReturn(Optional.of(variable));
-        when(sensorRepository.findById(anyLong())).thenReturn(Optional.of(sensor));
+        when(existenceCache.sensorExists(anyLong())).thenReturn(true);
+        when(existenceCache.variableExists(anyLong())).thenReturn(true);
         when(recordRepository.save(record)).thenReturn(record);
         Record recordActual = recordService.register(record);
 
         //Then
         assertNotEquals(null, recordActual);
+        verify(latestValues).update(record);
     }
 
     @Test(expected = EntityNotFoundException.class)
@@ -95,6 +113,110 @@ public class RecordServiceTest {
 
     }
 
+    @Test
+    public void registerAll() {
+        //Given
+        List<Record> records = TestUtils.getExampleRecords(5, 1, 1);
+        records.add(TestUtils.getExampleRecord(2, 1));
+
+        //When
+        when(existenceCache.sensorExists(1)).thenReturn(true);
+        when(existenceCache.sensorExists(2)).thenReturn(false);
+        when(existenceCache.variableExists(1)).thenReturn(true);
+        List<Record> saved = recordService.registerAll(records);
+
+        //Then
+        assertEquals(5, saved.size());
+        verify(recordRepository).saveBatch(saved);
+        verify(publisher).publish(saved);
+    }
+
+    @Test
+    public void registerAllRetriesFailedBatchOneByOne() {
+        //Given
+        List<Record> records = TestUtils.getExampleRecords(3, 1, 1);
+        Record bad = records.get(1);
+
+        //When
+        when(existenceCache.sensorExists(1)).thenReturn(true);
+        when(existenceCache.variableExists(1)).thenReturn(true);
+        doThrow(new DataIntegrityViolationException("Duplicated")).when(recordRepository)
+                .saveBatch(records);
+        doThrow(new DataIntegrityViolationException("Duplicated")).when(recordRepository)
+                .saveBatch(Collections.singletonList(bad));
+        List<Record> saved = recordService.registerAll(records);
+
+        //Then
+        assertEquals(2, saved.size());
+        assertFalse(saved.contains(bad));
+        verify(rollupService).add(saved);
+    }
+
+    @Test
+    public void registerAllSkipsRedeliveries() {
+        //Given
+        List<Record> records = TestUtils.getExampleRecords(2, 1, 1);
+        records.get(0).setDate(LocalDateTime.of(2019, Month.MARCH, 1, 10, 0));
+        records.get(1).setDate(LocalDateTime.of(2019, Month.MARCH, 1, 10, 1));
+        Record repeated = TestUtils.getExampleRecord(1, 1);
+        repeated.setDate(records.get(1).getDate());
+
+        //When
+        when(existenceCache.sensorExists(1)).thenReturn(true);
+        when(existenceCache.variableExists(1)).thenReturn(true);
+        List<Record> first = recordService.registerAll(Arrays.asList(records.get(0),
+                records.get(1), repeated));
+        List<Record> second = recordService.registerAll(records);
+
+        //Then
+        assertEquals(records, first);
+        assertTrue(second.isEmpty());
+        verify(recordRepository).saveBatch(records);
+        verify(publisher, times(1)).publish(records);
+    }
+
+    @Test
+    public void registerAllKeepsRecordsRejectedByUniqueIndex() {
+        //Given
+        List<Record> records = TestUtils.getExampleRecords(2, 1, 1);
+        records.get(0).setDate(LocalDateTime.of(2019, Month.MARCH, 1, 10, 0));
+        records.get(1).setDate(LocalDateTime.of(2019, Month.MARCH, 1, 10, 1));
+        Record stored = records.get(1);
+
+        //When
+        when(existenceCache.sensorExists(1)).thenReturn(true);
+        when(existenceCache.variableExists(1)).thenReturn(true);
+        doThrow(new DuplicateKeyException("Duplicated")).when(recordRepository)
+                .saveBatch(records);
+        doThrow(new DuplicateKeyException("Duplicated")).when(recordRepository)
+                .saveBatch(Collections.singletonList(stored));
+        List<Record> saved = recordService.registerAll(records);
+        List<Record> again = recordService.registerAll(Collections.singletonList(stored));
+
+        //Then
+        assertEquals(Collections.singletonList(records.get(0)), saved);
+        assertTrue(again.isEmpty());
+        verify(recordRepository).saveBatch(Collections.singletonList(stored));
+    }
+
+    @Test
+    public void registerSkipsRedelivery() throws EntityNotFoundException {
+        //Given
+        Record record = TestUtils.getExampleRecord(1, 1);
+        record.setDate(LocalDateTime.of(2019, Month.MARCH, 1, 10, 0));
+
+        //When
+        when(existenceCache.sensorExists(anyLong())).thenReturn(true);
+        when(existenceCache.variableExists(anyLong())).thenReturn(true);
+        when(recordRepository.save(record)).thenReturn(record);
+        recordService.register(record);
+        recordService.register(record);
+
+        //Then
+        verify(recordRepository, times(1)).save(record);
+        verify(publisher, times(1)).publish(Collections.singletonList(record));
+    }
+
     @Test
     public void getRecords() {
         //Given
@@ -111,6 +233,110 @@ public class RecordServiceTest {
         assertEquals(10, recordsActual.size());
     }
 
+    @Test
+    public void getRecordSlice() {
+        //Given
+        List<Record> records = TestUtils.getExampleRecords(2, 1, 1);
+        LocalDate date = LocalDate.of(2018, Month.JANUARY, 1);
+        RecordCursor cursor = new RecordCursor(date.atTime(12, 0), 50);
+
+        //When
+        when(recordRepository.findSliceBefore(1, 1, date.atStartOfDay(), cursor.getCreateAt(), 50,
+                PageRequest.of(0, 2))).thenReturn(new SliceImpl<>(records, PageRequest.of(0, 2), true));
+        RecordSlice slice = recordService.getRecordSlice(1, 1, 2, date, date, cursor.encode());
+
+        //Then
+        assertEquals(2, slice.getContent().size());
+        assertTrue(slice.isHasNext());
+        assertEquals(RecordCursor.of(records.get(1)), RecordCursor.decode(slice.getNext()));
+    }
+
+    @Test
+    public void getRecordsFollowedBySummaries() {
+        //Given
+        LocalDate date = LocalDate.of(2018, Month.JANUARY, 1);
+        LocalDateTime boundary = date.plusDays(1).atStartOfDay();
+        List<Record> summaries = TestUtils.getExampleRecords(3, 1, 1);
+        PageRequest secondPage = PageRequest.of(1, 4, Sort.by("createAt").descending());
+
+        //When
+        when(compactionService.isEnabled()).thenReturn(true);
+        when(compactionService.compactedBefore()).thenReturn(boundary);
+        when(recordRepository.findBySensorIdAndVariableIdAndCreateAtBetween(1, 1, boundary,
+                date.plusDays(1).atTime(23, 59), secondPage))
+                .thenReturn(new PageImpl<>(TestUtils.getExampleRecords(1, 1, 1), secondPage, 5));
+        when(rollupService.getSummaries(1, 1, date.atStartOfDay(), boundary, PageRequest.of(0, 4)))
+                .thenReturn(new PageImpl<>(summaries, PageRequest.of(0, 4), 3));
+        Page<Record> page = recordService.getRecords(1, 1, 1, 4, date, date.plusDays(1));
+
+        //Then
+        assertEquals(4, page.getContent().size());
+        assertEquals(summaries, page.getContent().subList(1, 4));
+        assertEquals(8, page.getTotalElements());
+    }
+
+    @Test
+    public void getRecordSliceContinuesWithSummaries() {
+        //Given
+        LocalDate date = LocalDate.of(2018, Month.JANUARY, 1);
+        LocalDateTime boundary = date.atTime(12, 0);
+        RecordCursor cursor = new RecordCursor(date.atTime(13, 0), 50);
+        List<Record> raw = TestUtils.getExampleRecords(1, 1, 1);
+        Record summary = new Record(null, 1, 1, 2.0, date.atTime(11, 59), date.atTime(11, 59));
+
+        //When
+        when(compactionService.isEnabled()).thenReturn(true);
+        when(compactionService.compactedBefore()).thenReturn(boundary);
+        when(recordRepository.findSliceBefore(1, 1, boundary, cursor.getCreateAt(), 50,
+                PageRequest.of(0, 2))).thenReturn(new SliceImpl<>(raw, PageRequest.of(0, 2), false));
+        when(rollupService.getSummaries(1, 1, date.atStartOfDay(), boundary, PageRequest.of(0, 1)))
+                .thenReturn(new PageImpl<>(Collections.singletonList(summary), PageRequest.of(0, 1),
+                        30));
+        RecordSlice slice = recordService.getRecordSlice(1, 1, 2, date, date, cursor.encode());
+
+        //Then
+        assertEquals(Arrays.asList(raw.get(0), summary), slice.getContent());
+        assertTrue(slice.isHasNext());
+        assertEquals(new RecordCursor(summary.getCreateAt(), 0),
+                RecordCursor.decode(slice.getNext()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getRecordSliceWithInvalidCursor() {
+        //Given
+        LocalDate date = LocalDate.of(2018, Month.JANUARY, 1);
+
+        //When
+        recordService.getRecordSlice(1, 1, 2, date, date, "not-a-cursor");
+    }
+
+    @Test
+    public void getAggregates() {
+        //Given
+        LocalDate date = LocalDate.of(2018, Month.JANUARY, 1);
+        RecordAggregate aggregate = new RecordAggregate(date.atStartOfDay());
+        aggregate.add(1.5, date.atTime(10, 0));
+
+        //When
+        when(rollupService.getAggregates(1, 1, AggregationBucket.HOUR, date.atStartOfDay(),
+                date.plusDays(1).atStartOfDay())).thenReturn(Collections.singletonList(aggregate));
+        List<RecordAggregate> aggregates = recordService
+                .getAggregates(1, 1, AggregationBucket.HOUR, date, date);
+
+        //Then
+        assertEquals(1, aggregates.size());
+        assertEquals(1, aggregates.get(0).getCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getAggregatesTooManyBuckets() {
+        //Given
+        LocalDate date = LocalDate.of(2018, Month.JANUARY, 1);
+
+        //When
+        recordService.getAggregates(1, 1, AggregationBucket.MINUTE, date, date.plusDays(30));
+    }
+
     @Test
     public void getRecord() throws EntityNotFoundException {
         //Given
@@ -4,25 +4,37 @@ import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.torresj.apisensorserver.action.ActionDispatcher;
+import com.torresj.apisensorserver.cache.ExistenceCache;
+import com.torresj.apisensorserver.cache.LatestValueStore;
+import com.torresj.apisensorserver.cache.SensorTypeActions;
+import com.torresj.apisensorserver.cache.VisibilityIndex;
+import com.torresj.apisensorserver.exceptions.ActionException;
 import com.torresj.apisensorserver.exceptions.EntityAlreadyExistsException;
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
-import com.torresj.apisensorserver.models.entities.House;
+import com.torresj.apisensorserver.models.ActionDelivery;
+import com.torresj.apisensorserver.models.ActionDelivery.Status;
+import com.torresj.apisensorserver.models.ActionReport;
+import com.torresj.apisensorserver.models.LatestValue;
 import com.torresj.apisensorserver.models.entities.Sensor;
 import com.torresj.apisensorserver.models.entities.SensorType;
 import com.torresj.apisensorserver.models.entities.Variable;
 import com.torresj.apisensorserver.models.entities.VariableSensorRelation;
-import com.torresj.apisensorserver.repositories.HouseRepository;
 import com.torresj.apisensorserver.repositories.SensorRepository;
 import com.torresj.apisensorserver.repositories.SensorTypeRepository;
-import com.torresj.apisensorserver.repositories.UserHouseRelationRepository;
-import com.torresj.apisensorserver.repositories.UserRepository;
 import com.torresj.apisensorserver.repositories.VariableRepository;
 import com.torresj.apisensorserver.repositories.VariableSensorRelationRepository;
 import com.torresj.apisensorserver.services.impl.SensorServiceImpl;
@@ -54,13 +66,19 @@ public class SensorServiceTest {
     private SensorTypeRepository sensorTypeRepository;
 
     @Mock
-    private HouseRepository houseRepository;
+    private ExistenceCache existenceCache;
+
+    @Mock
+    private VisibilityIndex visibilityIndex;
 
     @Mock
-    private UserRepository userRepository;
+    private LatestValueStore latestValues;
 
     @Mock
-    private UserHouseRelationRepository userHouseRelationRepository;
+    private ActionDispatcher actionDispatcher;
+
+    @Mock
+    private SensorTypeActions sensorTypeActions;
 
     private static final int nPage = 0;
 
@@ -71,8 +89,8 @@ public class SensorServiceTest {
 
     @InjectMocks
     private SensorService sensorService = new SensorServiceImpl(sensorRepository, variableRepository,
-            variableSensorRelationRepository, sensorTypeRepository, houseRepository, userRepository,
-            userHouseRelationRepository);
+            variableSensorRelationRepository, sensorTypeRepository, existenceCache, visibilityIndex,
+            latestValues, actionDispatcher, sensorTypeActions);
 
     @Test
     public void getSensors() {
@@ -201,6 +219,27 @@ public class SensorServiceTest {
         assertEquals(variables, listActual);
     }
 
+    @Test
+    public void getLatestValues() throws EntityNotFoundException {
+        //Given
+        List<LatestValue> values = Arrays.asList(LatestValue.of(TestUtils.getExampleRecord(1, 1)),
+                LatestValue.of(TestUtils.getExampleRecord(1, 2)));
+
+        //When
+        when(existenceCache.sensorExists(1L)).thenReturn(true);
+        when(latestValues.getBySensor(1L)).thenReturn(values);
+        List<LatestValue> valuesActual = sensorService.getLatestValues(1);
+
+        //Then
+        assertEquals(values, valuesActual);
+    }
+
+    @Test(expected = EntityNotFoundException.class)
+    public void getLatestValuesSensorNotFound() throws EntityNotFoundException {
+        //When
+        sensorService.getLatestValues(1);
+    }
+
     @Test
     public void addVariable() throws EntityNotFoundException {
         //Given
@@ -227,12 +266,10 @@ public class SensorServiceTest {
         Sensor sensor = TestUtils.getExampleSensor(1, 1, 1);
         Sensor sensorExpected = TestUtils.getExampleSensor(1, 1, 1);
         SensorType type = TestUtils.getExampleSensorType(1);
-        House house = TestUtils.getExampleHouse(1);
-
         //When
         when(sensorRepository.findByMac(anyString())).thenReturn(Optional.of(sensor));
         when(sensorTypeRepository.findById(anyLong())).thenReturn(Optional.of(type));
-        when(houseRepository.findById(anyLong())).thenReturn(Optional.of(house));
+        when(existenceCache.houseExists(anyLong())).thenReturn(true);
         when(sensorRepository.save(sensor)).thenReturn(sensor);
         Sensor sensorActual = sensorService.update(sensor);
 
@@ -250,10 +287,8 @@ public class SensorServiceTest {
         Sensor sensor = TestUtils.getExampleSensor(1, 1, 1);
         Sensor sensorExpected = TestUtils.getExampleSensor(1, 1, 1);
         SensorType type = TestUtils.getExampleSensorType(1);
-        House house = TestUtils.getExampleHouse(1);
-
         //When
-        when(houseRepository.findById(anyLong())).thenReturn(Optional.of(house));
+        when(existenceCache.houseExists(anyLong())).thenReturn(true);
         when(sensorTypeRepository.findById(anyLong())).thenReturn(Optional.of(type));
         when(sensorRepository.save(any())).thenReturn(sensor);
         Sensor sensorActual = sensorService.register(sensor);
@@ -291,4 +326,67 @@ public class SensorServiceTest {
                 .thenReturn(Optional.of(relation));
         sensorService.removeVariable(1, 1);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void resetDispatchesAction() throws EntityNotFoundException, JsonProcessingException {
+        //Given
+        Sensor sensor = TestUtils.getExampleSensor(1, 1, 1);
+        ActionDelivery delivery = new ActionDelivery("1", 1, "reset", Status.PENDING, 0, null,
+                LocalDateTime.now(), LocalDateTime.now());
+
+        //When
+        when(sensorRepository.findById(anyLong())).thenReturn(Optional.of(sensor));
+        when(actionDispatcher.dispatch(sensor, "reset")).thenReturn(delivery);
+        ActionDelivery result = sensorService.reset(1);
+
+        //Then
+        assertEquals(delivery, result);
+    }
+
+    @Test
+    public void houseActionRejectsUnsupportedTypes()
+            throws EntityNotFoundException, JsonProcessingException {
+        //Given
+        Sensor supported = TestUtils.getExampleSensor(1, 1, 1);
+        Sensor unsupported = TestUtils.getExampleSensor(2, 1, 2);
+
+        //When
+        when(existenceCache.houseExists(1)).thenReturn(true);
+        when(sensorRepository.findByHouseId(1L)).thenReturn(Arrays.asList(supported, unsupported));
+        when(sensorTypeActions.getActions(1))
+                .thenReturn(Optional.of(new HashSet<>(Arrays.asList("open", "close"))));
+        when(sensorTypeActions.getActions(2))
+                .thenReturn(Optional.of(new HashSet<>(Arrays.asList("reboot"))));
+        doAnswer(invocation -> {
+            ActionDelivery delivery = new ActionDelivery("1", 1, "open", Status.DELIVERED, 1, null,
+                    LocalDateTime.now(), LocalDateTime.now());
+            invocation.<Consumer<ActionDelivery>>getArgument(2).accept(delivery);
+            return delivery;
+        }).when(actionDispatcher).dispatch(eq(supported), eq("open"), any());
+        ActionReport report = sensorService.sendHouseAction(1, "open");
+
+        //Then
+        assertEquals(1, report.getDelivered());
+        assertEquals(1, report.getRejected());
+        assertEquals(0, report.getPending());
+        assertEquals(2, report.getDeliveries().size());
+        assertEquals(2, report.getDeliveries().get(1).getSensorId());
+    }
+
+    @Test(expected = EntityNotFoundException.class)
+    public void houseActionToNonExistentHouse()
+            throws EntityNotFoundException, JsonProcessingException {
+        //When
+        when(existenceCache.houseExists(1)).thenReturn(false);
+        sensorService.sendHouseAction(1, "reset");
+    }
+
+    @Test(expected = ActionException.class)
+    public void sensorTypeActionNotSupported()
+            throws EntityNotFoundException, JsonProcessingException, ActionException {
+        //When
+        when(sensorTypeActions.getActions(1))
+                .thenReturn(Optional.of(new HashSet<>(Arrays.asList("open", "close"))));
+        sensorService.sendSensorTypeAction(1, "reboot");
+    }
+}
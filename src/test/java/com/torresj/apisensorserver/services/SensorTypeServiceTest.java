@@ -1,15 +1,19 @@
 package com.torresj.apisensorserver.services;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 
+import com.torresj.apisensorserver.cache.SensorTypeActions;
 import com.torresj.apisensorserver.exceptions.EntityAlreadyExistsException;
 import com.torresj.apisensorserver.exceptions.EntityHasRelationsException;
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
@@ -39,6 +43,9 @@ public class SensorTypeServiceTest {
     @Mock
     private SensorRepository sensorRepository;
 
+    @Mock
+    private SensorTypeActions sensorTypeActions;
+
     private static final int nPage = 0;
 
     private static final int elements = 20;
@@ -48,7 +55,7 @@ public class SensorTypeServiceTest {
 
     @InjectMocks
     private SensorTypeService sensorTypeService = new SensorTypeServiceImpl(sensorTypeRepository,
-            sensorRepository);
+            sensorRepository, sensorTypeActions);
 
     @Test
     public void getSensorTypes() {
@@ -201,4 +208,23 @@ public class SensorTypeServiceTest {
         sensorTypeService.remove(1);
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void isActionAllowed() throws EntityNotFoundException {
+        //When
+        when(sensorTypeActions.getActions(1))
+                .thenReturn(Optional.of(new HashSet<>(Arrays.asList("open", "close"))));
+
+        //Then
+        assertTrue(sensorTypeService.isActionAllowed(1, "open"));
+        assertTrue(sensorTypeService.isActionAllowed(1, "reset"));
+        assertFalse(sensorTypeService.isActionAllowed(1, "reboot"));
+    }
+
+    @Test(expected = EntityNotFoundException.class)
+    public void isActionAllowedEntityNotFound() throws EntityNotFoundException {
+        //When
+        when(sensorTypeActions.getActions(1)).thenReturn(Optional.empty());
+        sensorTypeService.isActionAllowed(1, "open");
+    }
+}
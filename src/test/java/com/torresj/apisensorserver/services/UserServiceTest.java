@@ -1,16 +1,23 @@
 package com.torresj.apisensorserver.services;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import com.torresj.apisensorserver.cache.VisibilityIndex;
 import com.torresj.apisensorserver.exceptions.EntityAlreadyExistsException;
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
 import com.torresj.apisensorserver.models.entities.House;
@@ -25,6 +32,7 @@ import com.torresj.apisensorserver.utils.TestUtils;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -44,6 +52,9 @@ public class UserServiceTest {
     @Mock
     private HouseRepository houseRepository;
 
+    @Mock
+    private VisibilityIndex visibilityIndex;
+
     private static final int nPage = 0;
 
     private static final int elements = 20;
@@ -53,7 +64,7 @@ public class UserServiceTest {
 
     @InjectMocks
     private UserService userService = new UserServiceImpl(userRepository, userHouseRelationRepository,
-            houseRepository);
+            houseRepository, visibilityIndex);
 
     @Test
     public void getUsers() {
@@ -191,4 +202,41 @@ public class UserServiceTest {
 
         assertEquals(idsActuals,ids);
     }
-}
\ No newline at end of file
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void flushConnectionsOncePerUser() {
+        //Given
+        userService.registerConnection("user");
+        userService.registerConnection("admin");
+        userService.registerConnection("user");
+
+        //When
+        when(userRepository.updateLastConnections(any(Map.class))).thenReturn(new int[] { 1, 1 });
+        userService.flushConnections();
+        userService.flushConnections();
+
+        //Then
+        ArgumentCaptor<Map<String, LocalDateTime>> batch = ArgumentCaptor.forClass(Map.class);
+        verify(userRepository, times(1)).updateLastConnections(batch.capture());
+        assertEquals(2, batch.getValue().size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void failedFlushKeepsConnections() {
+        //Given
+        userService.registerConnection("user");
+
+        //When
+        when(userRepository.updateLastConnections(any(Map.class)))
+                .thenThrow(new RuntimeException("Database down")).thenReturn(new int[] { 1 });
+        userService.flushConnections();
+        userService.flushConnections();
+
+        //Then
+        ArgumentCaptor<Map<String, LocalDateTime>> batch = ArgumentCaptor.forClass(Map.class);
+        verify(userRepository, times(2)).updateLastConnections(batch.capture());
+        assertEquals(Collections.singleton("user"), batch.getValue().keySet());
+    }
+}
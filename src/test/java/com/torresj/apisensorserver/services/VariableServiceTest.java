@@ -10,15 +10,15 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
+import com.torresj.apisensorserver.cache.ExistenceCache;
+import com.torresj.apisensorserver.cache.LatestValueStore;
+import com.torresj.apisensorserver.cache.VisibilityIndex;
 import com.torresj.apisensorserver.exceptions.EntityAlreadyExistsException;
 import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
 import com.torresj.apisensorserver.models.entities.Sensor;
 import com.torresj.apisensorserver.models.entities.Variable;
 import com.torresj.apisensorserver.models.entities.VariableSensorRelation;
-import com.torresj.apisensorserver.repositories.HouseRepository;
 import com.torresj.apisensorserver.repositories.SensorRepository;
-import com.torresj.apisensorserver.repositories.UserHouseRelationRepository;
-import com.torresj.apisensorserver.repositories.UserRepository;
 import com.torresj.apisensorserver.repositories.VariableRepository;
 import com.torresj.apisensorserver.repositories.VariableSensorRelationRepository;
 import com.torresj.apisensorserver.services.impl.VariableServiceImpl;
@@ -47,13 +47,13 @@ public class VariableServiceTest {
     private VariableSensorRelationRepository variableSensorRelationRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private ExistenceCache existenceCache;
 
     @Mock
-    private HouseRepository houseRepository;
+    private VisibilityIndex visibilityIndex;
 
     @Mock
-    private UserHouseRelationRepository userHouseRelationRepository;
+    private LatestValueStore latestValues;
 
     private static final int nPage = 0;
 
@@ -64,8 +64,8 @@ public class VariableServiceTest {
 
     @InjectMocks
     private VariableService variableService = new VariableServiceImpl(variableRepository,
-            sensorRepository, userRepository, variableSensorRelationRepository, houseRepository,
-            userHouseRelationRepository);
+            sensorRepository, variableSensorRelationRepository, existenceCache, visibilityIndex,
+            latestValues);
 
     @Test
     public void getVariables() {
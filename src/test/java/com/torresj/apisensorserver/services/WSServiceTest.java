@@ -0,0 +1,128 @@
+package com.torresj.apisensorserver.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+
+import com.torresj.apisensorserver.cache.VisibilityIndex;
+import com.torresj.apisensorserver.exceptions.EntityNotFoundException;
+import com.torresj.apisensorserver.models.entities.User;
+import com.torresj.apisensorserver.services.impl.WSServiceImpl;
+import com.torresj.apisensorserver.utils.TestUtils;
+import com.torresj.apisensorserver.websocket.SessionAuthorizations;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WSServiceTest {
+
+    @Mock
+    private SensorService sensorService;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private VisibilityIndex visibilityIndex;
+
+    private SessionAuthorizations authorizations;
+
+    private WSService wsService;
+
+    @Before
+    public void setUp() {
+        authorizations = new SessionAuthorizations(visibilityIndex);
+        wsService = new WSServiceImpl(sensorService, userService, authorizations);
+    }
+
+    @Test
+    public void subscribeReusesSessionDecisions() throws EntityNotFoundException {
+        //Given
+        User user = TestUtils.getExampleUser("user", "user", User.Role.USER);
+
+        //When
+        when(userService.getUser("user")).thenReturn(user);
+        when(sensorService.hasUserVisibilitySensor("user", 1)).thenReturn(true);
+        StompHeaderAccessor subscribe = accessor(StompCommand.SUBSCRIBE, "s1", "user",
+                "/topic/station/1");
+        wsService.openSession(accessor(StompCommand.CONNECT, "s1", "user", null));
+        boolean first = wsService.checkSensorAndUserVisibility(subscribe);
+        boolean second = wsService.checkSensorAndUserVisibility(subscribe);
+
+        //Then
+        assertTrue(first);
+        assertTrue(second);
+        verify(userService, times(1)).getUser("user");
+        verify(sensorService, times(1)).getSensor(1);
+        verify(sensorService, times(1)).hasUserVisibilitySensor("user", 1);
+    }
+
+    @Test
+    public void visibilityChangeDropsDecisions() throws EntityNotFoundException {
+        //Given
+        User user = TestUtils.getExampleUser("user", "user", User.Role.USER);
+
+        //When
+        when(userService.getUser("user")).thenReturn(user);
+        when(sensorService.hasUserVisibilitySensor("user", 1)).thenReturn(true, false);
+        StompHeaderAccessor subscribe = accessor(StompCommand.SUBSCRIBE, "s1", "user",
+                "/topic/station/1");
+        wsService.openSession(accessor(StompCommand.CONNECT, "s1", "user", null));
+        boolean first = wsService.checkSensorAndUserVisibility(subscribe);
+        when(visibilityIndex.getGeneration()).thenReturn(1L);
+        boolean second = wsService.checkSensorAndUserVisibility(subscribe);
+
+        //Then
+        assertTrue(first);
+        assertFalse(second);
+        verify(userService, times(2)).getUser("user");
+        verify(sensorService, times(2)).hasUserVisibilitySensor("user", 1);
+    }
+
+    @Test
+    public void disconnectDropsSession() throws EntityNotFoundException {
+        //Given
+        User user = TestUtils.getExampleUser("admin", "admin", User.Role.ADMIN);
+
+        //When
+        when(userService.getUser("admin")).thenReturn(user);
+        StompHeaderAccessor subscribe = accessor(StompCommand.SUBSCRIBE, "s1", "admin",
+                "/topic/station/1");
+        wsService.openSession(accessor(StompCommand.CONNECT, "s1", "admin", null));
+        assertTrue(wsService.checkSensorAndUserVisibility(subscribe));
+        authorizations.onDisconnect(new SessionDisconnectEvent(this,
+                MessageBuilder.createMessage(new byte[0],
+                        accessor(StompCommand.DISCONNECT, "s1", "admin", null).getMessageHeaders()),
+                "s1", CloseStatus.NORMAL));
+
+        //Then
+        assertEquals(0, authorizations.size());
+    }
+
+    private StompHeaderAccessor accessor(StompCommand command, String sessionId, String username,
+            String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        if (destination != null) {
+            accessor.setNativeHeader("destination", destination);
+        }
+        accessor.setUser(
+                new UsernamePasswordAuthenticationToken(username, null, new ArrayList<>()));
+        return accessor;
+    }
+}
@@ -0,0 +1,159 @@
+package com.torresj.apisensorserver.spool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.torresj.apisensorserver.models.entities.Record;
+import com.torresj.apisensorserver.utils.TestUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RecordSpoolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RecordSpool spool;
+
+    @Before
+    public void setUp() throws IOException {
+        spool = open(4, 3);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        spool.close();
+    }
+
+    @Test
+    public void readsInOrderUntilCommitted() throws IOException {
+        //Given
+        for (int i = 0; i < 6; i++) {
+            assertTrue(spool.append(record(i)));
+        }
+
+        //When
+        List<Record> first = spool.read(5);
+        List<Record> again = spool.read(5);
+        spool.commit(5);
+        List<Record> rest = spool.read(5);
+
+        //Then
+        assertEquals(5, first.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, first.get(i).getSensorId());
+        }
+        assertEquals(first, again);
+        assertEquals(1, rest.size());
+        assertEquals(5, rest.get(0).getSensorId());
+        assertEquals(1, spool.depth());
+        assertEquals(1, meterRegistry.get("ingest.spool.depth").gauge().value(), 0);
+    }
+
+    @Test
+    public void fullWhenEverySegmentIsInUse() throws IOException {
+        //When
+        for (int i = 0; i < 12; i++) {
+            assertTrue(spool.append(record(i)));
+        }
+        boolean full = spool.append(record(12));
+        spool.commit(4);
+        boolean afterCommit = spool.append(record(12));
+
+        //Then
+        assertFalse(full);
+        assertTrue(afterCommit);
+        assertEquals(3, spool.segments());
+        assertEquals(9, spool.depth());
+    }
+
+    @Test
+    public void reopensFromCheckpoint() throws IOException {
+        //Given
+        Record record = record(0);
+        for (int i = 0; i < 10; i++) {
+            spool.append(i == 7 ? record : record(i));
+        }
+        spool.commit(7);
+        spool.close();
+
+        //When
+        spool = open(4, 3);
+        List<Record> records = spool.read(10);
+
+        //Then
+        assertEquals(3, records.size());
+        assertEquals(record, records.get(0));
+        assertEquals(8, records.get(1).getSensorId());
+        assertEquals(3, spool.depth());
+        assertEquals(2, spool.segments());
+    }
+
+    @Test
+    public void commitToEndOfHeadSegment() throws IOException {
+        //Given
+        for (int i = 0; i < 4; i++) {
+            spool.append(record(i));
+        }
+
+        //When
+        spool.commit(4);
+        spool.append(record(4));
+        List<Record> records = spool.read(10);
+
+        //Then
+        assertEquals(1, records.size());
+        assertEquals(4, records.get(0).getSensorId());
+        assertEquals(1, spool.segments());
+    }
+
+    @Test
+    public void tornEntryEndsSpool() throws IOException {
+        //Given
+        spool.append(record(0));
+        spool.append(record(1));
+        spool.close();
+        File segment = folder.getRoot().listFiles((dir, name) -> name.endsWith(".spool"))[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(RecordSpool.ENTRY_BYTES + 3);
+            file.write(0xFF);
+        }
+
+        //When
+        spool = open(4, 3);
+
+        //Then
+        assertEquals(1, spool.depth());
+        assertEquals(0, spool.read(10).get(0).getSensorId());
+    }
+
+    private RecordSpool open(int entries, int maxSegments) throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        RecordSpool opened = new RecordSpool(folder.getRoot().getPath(),
+                entries * RecordSpool.ENTRY_BYTES, maxSegments, meterRegistry);
+        opened.open();
+        return opened;
+    }
+
+    private static Record record(long sensorId) {
+        Record record = TestUtils.getExampleRecord(sensorId, 1);
+        record.setId(null);
+        record.setDate(LocalDateTime.now().minusSeconds(sensorId));
+        return record;
+    }
+}
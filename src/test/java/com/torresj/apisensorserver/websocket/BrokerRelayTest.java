@@ -0,0 +1,112 @@
+package com.torresj.apisensorserver.websocket;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.torresj.apisensorserver.ApiSensorApplication;
+import com.torresj.apisensorserver.utils.TestUtils;
+import com.torresj.apisensorserver.websocket.StompBrokerStandIn.Frame;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = ApiSensorApplication.class, webEnvironment = WebEnvironment.RANDOM_PORT)
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2, replace = Replace.ANY)
+@TestPropertySource(locations =
+        "classpath:application-test.properties")
+@ContextConfiguration(initializers = BrokerRelayTest.RelayInitializer.class)
+@ActiveProfiles("test")
+public class BrokerRelayTest {
+
+    private static StompBrokerStandIn broker;
+
+    @Autowired
+    private RecordPublisher recordPublisher;
+
+    @Autowired
+    private StompBrokerRelayMessageHandler relay;
+
+    @AfterClass
+    public static void stopBroker() throws IOException {
+        broker.close();
+    }
+
+    @Test
+    public void publishesRecordsThroughTheBroker() throws Exception {
+        //Given
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!relay.isBrokerAvailable() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        try (Socket socket = new Socket("localhost", broker.getPort())) {
+            socket.setSoTimeout(10000);
+            Map<String, String> headers = new LinkedHashMap<>();
+            headers.put("accept-version", "1.2");
+            StompBrokerStandIn.write(socket.getOutputStream(), "CONNECT", headers, new byte[0]);
+            assertThat(StompBrokerStandIn.read(socket.getInputStream()).command,
+                    equalTo("CONNECTED"));
+            headers.clear();
+            headers.put("id", "sub-0");
+            headers.put("destination", "/topic/station.42");
+            headers.put("receipt", "subscribed");
+            StompBrokerStandIn.write(socket.getOutputStream(), "SUBSCRIBE", headers, new byte[0]);
+            assertThat(StompBrokerStandIn.read(socket.getInputStream()).command,
+                    equalTo("RECEIPT"));
+
+            //When
+            recordPublisher.publish(Arrays.asList(TestUtils.getExampleRecord(42, 1)));
+            recordPublisher.flush();
+
+            //Then
+            Frame message = StompBrokerStandIn.read(socket.getInputStream());
+            assertThat(message.command, equalTo("MESSAGE"));
+            assertThat(message.headers.get("destination"), equalTo("/topic/station.42"));
+            assertThat(new String(message.body, "UTF-8"), containsString("\"sensorId\":42"));
+            assertThat(broker.getLogins(), hasItem("test"));
+        }
+    }
+
+    /* Starts the stand-in before the context so the relay connects to it on startup */
+    static class RelayInitializer
+            implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+        @Override
+        public void initialize(ConfigurableApplicationContext context) {
+            try {
+                broker = new StompBrokerStandIn();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            TestPropertyValues.of("websocket.broker.relay.enabled=true",
+                    "websocket.broker.relay.host=localhost",
+                    "websocket.broker.relay.port=" + broker.getPort(),
+                    "websocket.station-prefix=/topic/station.").applyTo(context);
+        }
+    }
+}
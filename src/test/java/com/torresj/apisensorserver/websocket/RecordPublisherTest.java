@@ -0,0 +1,168 @@
+package com.torresj.apisensorserver.websocket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.torresj.apisensorserver.models.entities.Record;
+import com.torresj.apisensorserver.utils.TestUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RecordPublisherTest {
+
+    @Mock
+    private SimpMessagingTemplate template;
+
+    @Mock
+    private StationSubscriptions subscriptions;
+
+    private RecordPublisher publisher;
+
+    @Before
+    public void setUp() {
+        publisher = new RecordPublisher(template, subscriptions, new SimpleMeterRegistry(),
+                "/topic/station/", false, 10, 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void coalescesRecordsByStation() {
+        //Given
+        List<Record> records = Arrays.asList(TestUtils.getExampleRecord(1, 1),
+                TestUtils.getExampleRecord(2, 1), TestUtils.getExampleRecord(1, 2));
+
+        //When
+        when(subscriptions.hasSubscribers(anyString())).thenReturn(true);
+        publisher.publish(records);
+        publisher.flush();
+
+        //Then
+        ArgumentCaptor<List<Record>> frame = ArgumentCaptor.forClass(List.class);
+        verify(template).convertAndSend(eq("/topic/station/1"), frame.capture());
+        assertEquals(Arrays.asList(records.get(0), records.get(2)), frame.getValue());
+        verify(template).convertAndSend(eq("/topic/station/2"), frame.capture());
+        assertEquals(Arrays.asList(records.get(1)), frame.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void frameKeepsNewestRecords() {
+        //Given
+        List<Record> records = Arrays.asList(TestUtils.getExampleRecord(1, 1),
+                TestUtils.getExampleRecord(1, 2), TestUtils.getExampleRecord(1, 3));
+
+        //When
+        when(subscriptions.hasSubscribers(anyString())).thenReturn(true);
+        publisher.publish(records);
+        publisher.flush();
+        publisher.flush();
+
+        //Then
+        ArgumentCaptor<List<Record>> frame = ArgumentCaptor.forClass(List.class);
+        verify(template).convertAndSend(eq("/topic/station/1"), frame.capture());
+        assertEquals(records.subList(1, 3), frame.getValue());
+    }
+
+    @Test
+    public void skipsStationsWithoutSubscribers() {
+        //Given
+        List<Record> records = Arrays.asList(TestUtils.getExampleRecord(1, 1));
+
+        //When
+        publisher.publish(records);
+        publisher.flush();
+
+        //Then
+        verify(template, never()).convertAndSend(anyString(), any(Object.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void relayPublishesWithoutLocalSubscribers() {
+        //Given
+        RecordPublisher relayPublisher = new RecordPublisher(template, subscriptions,
+                new SimpleMeterRegistry(), "/topic/station.", true, 10, 2);
+        List<Record> records = Arrays.asList(TestUtils.getExampleRecord(1, 1));
+
+        //When
+        relayPublisher.publish(records);
+        relayPublisher.flush();
+
+        //Then
+        ArgumentCaptor<List<Record>> frame = ArgumentCaptor.forClass(List.class);
+        verify(template).convertAndSend(eq("/topic/station.1"), frame.capture());
+        assertEquals(records, frame.getValue());
+    }
+
+    @Test
+    public void countsSubscriptions() {
+        //Given
+        StationSubscriptions stationSubscriptions = new StationSubscriptions();
+
+        //When
+        stationSubscriptions.onSubscribe(
+                new SessionSubscribeEvent(this, subscribe("s1", "sub1", "/topic/station/1")));
+        stationSubscriptions.onSubscribe(
+                new SessionSubscribeEvent(this, subscribe("s2", "sub1", "/topic/station/1")));
+        stationSubscriptions.onSubscribe(
+                new SessionSubscribeEvent(this, subscribe("s2", "sub2", "/topic/station/2")));
+
+        //Then
+        assertTrue(stationSubscriptions.hasSubscribers("/topic/station/1"));
+        assertTrue(stationSubscriptions.hasSubscribers("/topic/station/2"));
+        assertFalse(stationSubscriptions.hasSubscribers("/topic/station/3"));
+
+        //When
+        StompHeaderAccessor unsubscribe = StompHeaderAccessor.create(StompCommand.UNSUBSCRIBE);
+        unsubscribe.setSessionId("s1");
+        unsubscribe.setSubscriptionId("sub1");
+        stationSubscriptions.onUnsubscribe(new SessionUnsubscribeEvent(this,
+                MessageBuilder.createMessage(new byte[0], unsubscribe.getMessageHeaders())));
+
+        //Then
+        assertTrue(stationSubscriptions.hasSubscribers("/topic/station/1"));
+
+        //When
+        stationSubscriptions.onDisconnect(new SessionDisconnectEvent(this,
+                subscribe("s2", "sub1", "/topic/station/1"), "s2", CloseStatus.NORMAL));
+
+        //Then
+        assertFalse(stationSubscriptions.hasSubscribers("/topic/station/1"));
+        assertFalse(stationSubscriptions.hasSubscribers("/topic/station/2"));
+    }
+
+    private Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,199 @@
+package com.torresj.apisensorserver.websocket;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal STOMP 1.2 broker for tests, just what the broker relay uses: CONNECT, SUBSCRIBE, SEND and
+ * DISCONNECT. SEND frames are delivered to the subscriptions with the same destination and any
+ * frame asking for a receipt gets it once handled.
+ */
+public class StompBrokerStandIn implements Closeable {
+
+    private final ServerSocket server;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private final List<String> logins = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong messageIds = new AtomicLong();
+
+    public StompBrokerStandIn() throws IOException {
+        server = new ServerSocket(0);
+        Thread acceptor = new Thread(this::accept, "stomp-stand-in");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public List<String> getLogins() {
+        return logins;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                Thread connection = new Thread(() -> serve(socket), "stomp-stand-in-connection");
+                connection.setDaemon(true);
+                connection.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        OutputStream out = null;
+        try (Socket s = socket) {
+            InputStream in = s.getInputStream();
+            out = s.getOutputStream();
+            Frame frame;
+            while ((frame = read(in)) != null) {
+                switch (frame.command) {
+                case "CONNECT":
+                case "STOMP":
+                    logins.add(frame.headers.getOrDefault("login", ""));
+                    Map<String, String> connected = new LinkedHashMap<>();
+                    connected.put("version", "1.2");
+                    connected.put("heart-beat", "0,0");
+                    write(out, "CONNECTED", connected, new byte[0]);
+                    break;
+                case "SUBSCRIBE":
+                    subscriptions.add(new Subscription(out, frame.headers.get("id"),
+                            frame.headers.get("destination")));
+                    break;
+                case "SEND":
+                    deliver(frame);
+                    break;
+                default:
+                    break;
+                }
+                String receipt = frame.headers.get("receipt");
+                if (receipt != null) {
+                    Map<String, String> headers = new LinkedHashMap<>();
+                    headers.put("receipt-id", receipt);
+                    write(out, "RECEIPT", headers, new byte[0]);
+                }
+                if ("DISCONNECT".equals(frame.command)) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // Connection closed by the client
+        } finally {
+            OutputStream closed = out;
+            subscriptions.removeIf(subscription -> subscription.out == closed);
+        }
+    }
+
+    private void deliver(Frame frame) {
+        String destination = frame.headers.get("destination");
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.destination.equals(destination)) {
+                continue;
+            }
+            Map<String, String> headers = new LinkedHashMap<>();
+            headers.put("subscription", subscription.id);
+            headers.put("message-id", String.valueOf(messageIds.incrementAndGet()));
+            headers.put("destination", destination);
+            headers.put("content-type",
+                    frame.headers.getOrDefault("content-type", "application/json"));
+            try {
+                write(subscription.out, "MESSAGE", headers, frame.body);
+            } catch (IOException e) {
+                // Subscriber gone, its connection cleans the subscription up
+            }
+        }
+    }
+
+    /* Reads a frame skipping heart-beat end of lines, null once the stream is closed */
+    static Frame read(InputStream in) throws IOException {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == 0) {
+                break;
+            }
+            if (raw.size() == 0 && (b == '\n' || b == '\r')) {
+                continue;
+            }
+            raw.write(b);
+        }
+        if (b == -1) {
+            return null;
+        }
+        String text = new String(raw.toByteArray(), StandardCharsets.UTF_8);
+        int end = text.indexOf("\n\n");
+        String head = (end < 0 ? text : text.substring(0, end)).replace("\r", "");
+        String[] lines = head.split("\n");
+        Frame frame = new Frame();
+        frame.command = lines[0];
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon > 0) {
+                frame.headers.putIfAbsent(lines[i].substring(0, colon),
+                        lines[i].substring(colon + 1));
+            }
+        }
+        frame.body = end < 0 ? new byte[0]
+                : text.substring(end + 2).getBytes(StandardCharsets.UTF_8);
+        return frame;
+    }
+
+    static void write(OutputStream out, String command, Map<String, String> headers, byte[] body)
+            throws IOException {
+        StringBuilder head = new StringBuilder(command).append('\n');
+        headers.forEach((name, value) -> head.append(name).append(':').append(value).append('\n'));
+        head.append("content-length:").append(body.length).append("\n\n");
+        synchronized (out) {
+            out.write(head.toString().getBytes(StandardCharsets.UTF_8));
+            out.write(body);
+            out.write(0);
+            out.flush();
+        }
+    }
+
+    static class Frame {
+
+        String command;
+
+        Map<String, String> headers = new LinkedHashMap<>();
+
+        byte[] body;
+    }
+
+    private static class Subscription {
+
+        private final OutputStream out;
+
+        private final String id;
+
+        private final String destination;
+
+        private Subscription(OutputStream out, String id, String destination) {
+            this.out = out;
+            this.id = id;
+            this.destination = destination;
+        }
+    }
+}